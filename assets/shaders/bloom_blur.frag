@@ -0,0 +1,17 @@
+#ifdef GL_ES
+precision mediump float;
+#endif
+
+varying vec2 v_texCoords;
+uniform sampler2D u_texture;
+uniform vec2 u_direction; // one texel along the blur axis, in texture coordinates
+
+void main() {
+    // 9-tap Gaussian in 5 fetches, neighbouring taps are merged into one bilinear sample
+    vec3 sum = texture2D(u_texture, v_texCoords).rgb * 0.2270270270;
+    sum += texture2D(u_texture, v_texCoords + u_direction * 1.3846153846).rgb * 0.3162162162;
+    sum += texture2D(u_texture, v_texCoords - u_direction * 1.3846153846).rgb * 0.3162162162;
+    sum += texture2D(u_texture, v_texCoords + u_direction * 3.2307692308).rgb * 0.0702702703;
+    sum += texture2D(u_texture, v_texCoords - u_direction * 3.2307692308).rgb * 0.0702702703;
+    gl_FragColor = vec4(sum, 1.0);
+}
@@ -0,0 +1,27 @@
+#ifdef GL_ES
+precision mediump float;
+#endif
+
+varying vec2 v_texCoords;
+uniform sampler2D u_texture;
+uniform vec2 u_texelSize; // size of a source texel in texture coordinates
+uniform float u_threshold; // brightness where the glow starts
+uniform float u_knee; // width of the soft transition around the threshold
+
+vec3 bright(vec3 color) {
+    float brightness = max(color.r, max(color.g, color.b));
+    // Quadratic soft knee so the glow fades in instead of popping at the threshold
+    float soft = clamp(brightness - u_threshold + u_knee, 0.0, 2.0 * u_knee);
+    soft = soft * soft / (4.0 * u_knee + 0.0001);
+    float contribution = max(soft, brightness - u_threshold) / max(brightness, 0.0001);
+    return color * contribution;
+}
+
+void main() {
+    // Four bilinear taps average a 4x4 block, so downsampling by up to 4 does not skip bright pixels
+    vec3 sum = bright(texture2D(u_texture, v_texCoords + u_texelSize * vec2(-1.0, -1.0)).rgb);
+    sum += bright(texture2D(u_texture, v_texCoords + u_texelSize * vec2(1.0, -1.0)).rgb);
+    sum += bright(texture2D(u_texture, v_texCoords + u_texelSize * vec2(-1.0, 1.0)).rgb);
+    sum += bright(texture2D(u_texture, v_texCoords + u_texelSize * vec2(1.0, 1.0)).rgb);
+    gl_FragColor = vec4(sum * 0.25, 1.0);
+}
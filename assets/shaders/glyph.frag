@@ -0,0 +1,12 @@
+#ifdef GL_ES
+precision mediump float;
+#endif
+
+varying vec2 v_texCoords;
+varying float v_alpha;
+uniform sampler2D u_texture;
+
+void main() {
+    vec4 color = texture2D(u_texture, v_texCoords);
+    gl_FragColor = vec4(color.rgb, color.a * v_alpha);
+}
@@ -0,0 +1,24 @@
+// Per glyph: the unscaled rectangle, scale and rotation around its centre, alpha and texture region.
+// Instanced draws read them once per glyph; expanded quads repeat them on each of the four vertices.
+attribute vec2 a_corner; // 0 or 1 on each axis
+attribute vec4 a_rect; // x, y, width, height
+attribute vec4 a_transform; // scaleX, scaleY, rotation in radians, alpha
+attribute vec4 a_region; // u, v, u2, v2
+
+uniform mat4 u_projTrans;
+
+varying vec2 v_texCoords;
+varying float v_alpha;
+
+void main() {
+    vec2 size = a_rect.zw;
+    vec2 local = (a_corner - 0.5) * size * a_transform.xy;
+    float c = cos(a_transform.z);
+    float s = sin(a_transform.z);
+    vec2 world = vec2(local.x * c - local.y * s, local.x * s + local.y * c) + a_rect.xy + size * 0.5;
+
+    // v is the region's top edge, v2 its bottom
+    v_texCoords = vec2(mix(a_region.x, a_region.z, a_corner.x), mix(a_region.w, a_region.y, a_corner.y));
+    v_alpha = a_transform.w;
+    gl_Position = u_projTrans * vec4(world, 0.0, 1.0);
+}
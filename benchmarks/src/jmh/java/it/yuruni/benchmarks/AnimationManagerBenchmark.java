@@ -0,0 +1,57 @@
+package it.yuruni.benchmarks;
+
+import com.badlogic.gdx.graphics.Texture;
+import it.yuruni.graphics.animation.AnimationManager;
+import it.yuruni.graphics.animation.Easing;
+import it.yuruni.graphics.animation.Glyph;
+import it.yuruni.jobs.JobSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnimationManager#update(float)} with a mix of move, fade, scale and rotation tweens
+ * that never finish during the measurement, run serially and on a {@link JobSystem} with one worker per core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimationManagerBenchmark {
+    private static final Easing[] EASINGS = Easing.values();
+
+    @Param({"1000", "10000", "100000"})
+    public int tweens;
+
+    @Param({"serial", "parallel"})
+    public String jobs;
+
+    private JobSystem jobSystem;
+    private AnimationManager animationManager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        jobSystem = jobs.equals("parallel") ? new JobSystem(JobSystem.defaultWorkers()) : JobSystem.SERIAL;
+        animationManager = new AnimationManager(jobSystem);
+        for (int i = 0; i < tweens; i++) {
+            Glyph glyph = new Glyph((Texture) null, i, i, false);
+            Easing easing = EASINGS[i % EASINGS.length];
+            switch (i & 3) {
+                case 0 -> animationManager.animateMove(glyph, -i, i * 2f, 1e6f, easing);
+                case 1 -> animationManager.animateFade(glyph, 0f, 1e6f, easing);
+                case 2 -> animationManager.animateScale(glyph, 2f, 3f, 1e6f, easing);
+                default -> animationManager.animateRotation(glyph, 360f, 1e6f, easing);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jobSystem.dispose();
+    }
+
+    @Benchmark
+    public int update() {
+        animationManager.update(1f / 60f);
+        return animationManager.getActiveAnimationCount();
+    }
+}
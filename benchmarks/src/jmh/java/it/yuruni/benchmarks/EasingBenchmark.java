@@ -0,0 +1,50 @@
+package it.yuruni.benchmarks;
+
+import it.yuruni.Utils;
+import it.yuruni.graphics.animation.Easing;
+import it.yuruni.graphics.animation.EasingTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact and table evaluation of every {@link Easing}, 1024 progress values per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EasingBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param
+    public Easing easing;
+
+    private final float[] progress = new float[SAMPLES];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < SAMPLES; i++) {
+            progress[i] = i / (float) (SAMPLES - 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float exact() {
+        float sum = 0;
+        for (float t : progress) {
+            sum += Utils.applyEasing(t, easing);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float table() {
+        float sum = 0;
+        for (float t : progress) {
+            sum += EasingTable.apply(t, easing);
+        }
+        return sum;
+    }
+}
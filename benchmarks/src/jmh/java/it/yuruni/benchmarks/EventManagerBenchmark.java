@@ -0,0 +1,50 @@
+package it.yuruni.benchmarks;
+
+import it.yuruni.graphics.animation.EventManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of the beat loop: schedule an event a little ahead, then update.
+ * {@code history} events have already fired before measuring and {@code pending} events wait far in the future,
+ * neither should change the per-frame cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventManagerBenchmark {
+    private static final float FRAME = 1f / 60f;
+    private static final Runnable NOOP = () -> {
+    };
+
+    @Param({"0", "10000", "1000000"})
+    public int history;
+
+    @Param({"0", "1000", "100000"})
+    public int pending;
+
+    private EventManager eventManager;
+    private float time;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        eventManager = new EventManager();
+        for (int i = 0; i < history; i++) {
+            time += FRAME;
+            eventManager.schedule(time, NOOP);
+            eventManager.update(time);
+        }
+        for (int i = 0; i < pending; i++) {
+            eventManager.schedule(1e9f + i, NOOP);
+        }
+    }
+
+    @Benchmark
+    public int frame() {
+        time += FRAME;
+        eventManager.schedule(time + 0.1f, NOOP);
+        eventManager.update(time);
+        return eventManager.size();
+    }
+}
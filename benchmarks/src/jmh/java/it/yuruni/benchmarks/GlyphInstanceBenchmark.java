@@ -0,0 +1,96 @@
+package it.yuruni.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import it.yuruni.graphics.render.GlyphInstanceBuffer;
+import it.yuruni.graphics.render.InstancedGlyphRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of one frame of 50k rotating glyphs: packed as shader attributes, per instance and expanded to quads,
+ * against the rotated corners a SpriteBatch computes for the same glyphs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GlyphInstanceBenchmark {
+    private static final int GLYPHS = 50_000;
+    private static final int SPRITE_FLOATS = 20; // SpriteBatch: 4 vertices of x, y, color, u, v
+
+    private final float[] x = new float[GLYPHS];
+    private final float[] y = new float[GLYPHS];
+    private final float[] rotation = new float[GLYPHS];
+    private GlyphInstanceBuffer instances;
+    private GlyphInstanceBuffer quads;
+    private float[] spriteVertices;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < GLYPHS; i++) {
+            x[i] = MathUtils.random(1920f);
+            y[i] = MathUtils.random(1080f);
+            rotation[i] = MathUtils.random(360f);
+        }
+        instances = new GlyphInstanceBuffer(InstancedGlyphRenderer.MAX_GLYPHS_PER_DRAW, false);
+        quads = new GlyphInstanceBuffer(InstancedGlyphRenderer.MAX_GLYPHS_PER_DRAW, true);
+        spriteVertices = new float[InstancedGlyphRenderer.MAX_GLYPHS_PER_DRAW * SPRITE_FLOATS];
+    }
+
+    @Benchmark
+    public int instanced() {
+        return pack(instances);
+    }
+
+    @Benchmark
+    public int expandedQuads() {
+        return pack(quads);
+    }
+
+    private int pack(GlyphInstanceBuffer buffer) {
+        int floats = 0;
+        for (int i = 0; i < GLYPHS; i++) {
+            if (buffer.isFull()) {
+                floats += buffer.getFloatCount();
+                buffer.clear(); // A flush
+            }
+            buffer.add(x[i], y[i], 32f, 32f, 1.25f, 1.25f, rotation[i], 0.8f, 0f, 0f, 1f, 1f);
+        }
+        floats += buffer.getFloatCount();
+        buffer.clear();
+        return floats;
+    }
+
+    @Benchmark
+    public int spriteBatchCorners() {
+        // The vertex math of SpriteBatch.draw with origin, scale and rotation
+        float[] vertices = spriteVertices;
+        int index = 0;
+        int floats = 0;
+        float width = 32f, height = 32f, originX = 16f, originY = 16f, scale = 1.25f, color = 0.8f;
+        for (int i = 0; i < GLYPHS; i++) {
+            if (index == vertices.length) {
+                floats += index;
+                index = 0;
+            }
+            float worldOriginX = x[i] + originX;
+            float worldOriginY = y[i] + originY;
+            float fx = -originX * scale, fy = -originY * scale;
+            float fx2 = (width - originX) * scale, fy2 = (height - originY) * scale;
+            float cos = MathUtils.cosDeg(rotation[i]);
+            float sin = MathUtils.sinDeg(rotation[i]);
+
+            float x1 = cos * fx - sin * fy + worldOriginX, y1 = sin * fx + cos * fy + worldOriginY;
+            float x2 = cos * fx - sin * fy2 + worldOriginX, y2 = sin * fx + cos * fy2 + worldOriginY;
+            float x3 = cos * fx2 - sin * fy2 + worldOriginX, y3 = sin * fx2 + cos * fy2 + worldOriginY;
+            float x4 = x1 + (x3 - x2), y4 = y3 - (y2 - y1);
+
+            vertices[index] = x1; vertices[index + 1] = y1; vertices[index + 2] = color; vertices[index + 3] = 0f; vertices[index + 4] = 1f;
+            vertices[index + 5] = x2; vertices[index + 6] = y2; vertices[index + 7] = color; vertices[index + 8] = 0f; vertices[index + 9] = 0f;
+            vertices[index + 10] = x3; vertices[index + 11] = y3; vertices[index + 12] = color; vertices[index + 13] = 1f; vertices[index + 14] = 0f;
+            vertices[index + 15] = x4; vertices[index + 16] = y4; vertices[index + 17] = color; vertices[index + 18] = 1f; vertices[index + 19] = 1f;
+            index += SPRITE_FLOATS;
+        }
+        return floats + index;
+    }
+}
@@ -0,0 +1,44 @@
+package it.yuruni.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Boots the libGDX headless backend once per benchmark fork.
+ * Natives, files and a no-op GL are available afterwards, so textures can be created
+ * without a GPU; only the CPU side of GL calls is measured.
+ */
+final class Headless {
+    private static boolean started = false;
+
+    private Headless() {
+    }
+
+    static synchronized void start() {
+        if (started) return;
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = 1;
+        new HeadlessApplication(new ApplicationAdapter() {
+        }, config);
+
+        GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class[]{GL20.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        started = true;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) return 0;
+        if (type == boolean.class) return false;
+        if (type == float.class) return 0f;
+        if (type == long.class) return 0L;
+        return null;
+    }
+}
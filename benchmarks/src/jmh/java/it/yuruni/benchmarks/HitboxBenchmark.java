@@ -0,0 +1,83 @@
+package it.yuruni.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.math.Rectangle;
+import it.yuruni.graphics.animation.Glyph;
+import it.yuruni.graphics.animation.TextGlyph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hitbox refresh of a textured {@link Glyph} and of a {@link TextGlyph}, forced and as a frame of a glyph
+ * that did not move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitboxBenchmark {
+    private Texture texture;
+    private BitmapFont font;
+    private BenchGlyph glyph;
+    private BenchTextGlyph textGlyph;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.start();
+        Pixmap pixmap = new Pixmap(256, 128, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+        font = new BitmapFont();
+
+        glyph = new BenchGlyph(texture);
+        glyph.setScaleX(1.5f);
+        textGlyph = new BenchTextGlyph("Arrow keys to navigate, space to select", font);
+        textGlyph.setScaleX(1.5f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        texture.dispose();
+        font.dispose();
+    }
+
+    @Benchmark
+    public Rectangle glyph() {
+        glyph.refreshHitbox();
+        return glyph.getHitbox();
+    }
+
+    @Benchmark
+    public Rectangle textGlyph() {
+        textGlyph.refreshHitbox();
+        return textGlyph.getHitbox();
+    }
+
+    @Benchmark
+    public Rectangle staticTextGlyphFrame() {
+        textGlyph.update(1f / 60f);
+        return textGlyph.getHitbox();
+    }
+
+    private static class BenchGlyph extends Glyph {
+        BenchGlyph(Texture texture) {
+            super(texture, 100, 100, false);
+        }
+
+        void refreshHitbox() {
+            updateHitbox();
+        }
+    }
+
+    private static class BenchTextGlyph extends TextGlyph {
+        BenchTextGlyph(String text, BitmapFont font) {
+            super(text, font, 100, 100, false);
+        }
+
+        void refreshHitbox() {
+            updateHitbox();
+        }
+    }
+}
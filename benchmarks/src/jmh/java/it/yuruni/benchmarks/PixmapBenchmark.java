@@ -0,0 +1,67 @@
+package it.yuruni.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import it.yuruni.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Utils#rotateTextureRightAngles(Texture, float)} and {@link Utils#resizeTo(Texture, double)} on a 1080p image.
+ * Both consume the source pixmap, so a fresh source texture is prepared outside the measurement for each call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+public class PixmapBenchmark {
+    @Param({"rotate90", "rotate180", "resize50", "resize120"})
+    public String transform;
+
+    private Pixmap source;
+    private Texture input;
+    private Texture output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.start();
+        source = new Pixmap(1920, 1080, Pixmap.Format.RGBA8888);
+        for (int y = 0; y < source.getHeight(); y += 8) {
+            source.setColor(y / 1080f, 0.5f, 1f - y / 1080f, 1f);
+            source.fillRectangle(0, y, source.getWidth(), 8);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInput() {
+        Pixmap copy = new Pixmap(source.getWidth(), source.getHeight(), source.getFormat());
+        copy.drawPixmap(source, 0, 0);
+        input = new Texture(new PixmapTextureData(copy, null, false, false, true));
+    }
+
+    @TearDown(Level.Invocation)
+    public void releaseOutput() {
+        if (output != null && output != input) output.dispose();
+        input.dispose();
+        output = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        source.dispose();
+    }
+
+    @Benchmark
+    public Texture transform() {
+        output = switch (transform) {
+            case "rotate90" -> Utils.rotateTextureRightAngles(input, 90);
+            case "rotate180" -> Utils.rotateTextureRightAngles(input, 180);
+            case "resize50" -> Utils.resizeTo(input, 50);
+            default -> Utils.resizeTo(input, 120);
+        };
+        return output;
+    }
+}
@@ -2,38 +2,99 @@ package it.yuruni;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
-import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ScreenUtils;
 
+import it.yuruni.assets.AssetDependent;
+import it.yuruni.assets.Assets;
+
 import it.yuruni.audio.AudioEffectManager;
+import it.yuruni.audio.SongClock;
+import it.yuruni.audio.analysis.BeatMap;
+import it.yuruni.audio.analysis.BeatMapCache;
+
+import it.yuruni.debug.FrameProfiler;
+
+import it.yuruni.game.chart.ChartLoader;
+import it.yuruni.game.judgement.JudgementEngine;
+import it.yuruni.game.judgement.JudgementWindows;
+import it.yuruni.game.level.Level;
+import it.yuruni.game.level.LevelCatalog;
 
 import it.yuruni.graphics.animation.*;
 
+import it.yuruni.graphics.atlas.GlyphAtlas;
+
 import it.yuruni.graphics.effects.CameraManager;
 import it.yuruni.graphics.effects.ParallaxManager;
 import it.yuruni.graphics.effects.ShaderManager;
-import it.yuruni.graphics.effects.YParticleEffect;
+import it.yuruni.graphics.effects.ParticleManager;
+import it.yuruni.graphics.pixmap.DerivedTextureCache;
+import it.yuruni.graphics.pixmap.PixmapTransform;
+import it.yuruni.graphics.render.InstancedGlyphRenderer;
+import it.yuruni.jobs.JobSystem;
 import it.yuruni.ui.Button;
 
 
 /** First screen of the application. Displayed after the application is created. */
-public class FirstScreen implements Screen {
-
+public class FirstScreen implements FixedStepScreen, AssetDependent {
+    private static final String GLYPH_LIST = "atlas/glyphs.txt";
+    private static final String BACKGROUND = "sampleBGs/bg.png";
+    private static final PixmapTransform BACKGROUND_SCALE = PixmapTransform.scale(120, PixmapTransform.Filter.NEAREST);
+    private static final String FONT = "fonts/josefin-20.ttf";
+    private static final String SONG_MUFFLED = "audio/song/SECRET BOSS_muffled.mp3";
+    private static final String SONG_CLEAR = "audio/song/SECRET BOSS.mp3";
+    private static final String SFX_HEAVY_SLIDING = "audio/heavy-sliding.mp3";
+    private static final String SFX_DOOR = "audio/door-open-close.mp3";
+    private static final String SFX_LIGHT_SLIDING = "audio/object-sliding.mp3";
+    private static final String SFX_MONITOR_ON = "audio/monitor-on.mp3";
+    private static final String PARTICLE_CONCENTRATION = "particles/downConcentration.p";
+    // The music starts 8 seconds into the intro, the menu shows up at 14
+    private static final float AUDIO_START = 8f;
+    private static final float INTRO_END = 14f;
+    // The clear track starts playing at 13 seconds in when the timeline is at 8
+    private static final float SONG_OFFSET = 13f - AUDIO_START;
+    private static final float BEAT_LOOP_START = 13f + SONG_OFFSET; // Song position of beat 0, the drop
+    private static final float BASS_BUMP_SCALE = 1.05f;
+    private static final float BASS_BUMP_DURATION = 0.15f;
+    private static final float BASS_BUMP_GLOW = 0.35f;
+    private static final float FLASH_GLOW = 1.5f;
+    private static final float FLASH_GLOW_DURATION = 2f;
+
+    private final AssetManager assets = Main.assets;
     private SpriteBatch batch;
+    private InstancedGlyphRenderer glyphRenderer;
+    private GlyphAtlas atlas;
     private final AnimationManager animationManager = Main.animationManager;
     private final ParallaxManager parallaxManager = Main.parallaxManager;
     private final CameraManager cameraManager = Main.cameraManager;
     private final ShaderManager shaderManager = Main.shaderManager;
     private final EventManager eventManager = Main.eventManager;
+    private final FrameProfiler profiler = Main.profiler;
+    private final SongClock songClock = Main.songClock;
+    private final ParticleManager particles = Main.particles;
+    private final LevelCatalog levels = Main.levels;
+    private final JobSystem jobs = Main.jobs;
+    // Step work that shares nothing with the glyphs, run as jobs next to the glyph updates
+    private final Runnable updateCamera = () -> cameraManager.update(GameLoop.STEP);
+    private final Runnable updateParticles = () -> particles.update(GameLoop.STEP);
+    private final Runnable updatePostEffects = () -> shaderManager.update(GameLoop.STEP);
+    private long concentrationLeft = ParticleManager.NO_EFFECT;
+    private long concentrationRight = ParticleManager.NO_EFFECT;
     private AudioEffectManager audioManager;
-    private float timePassed = 0f;
+    private float clockTime = 0f; // Song clock timeline time at the last frame
+    private float timePassed = 0f; // Simulated timeline time, advanced by the steps
+    private Sequence intro;
 
     private TextGlyph tutorialText;
     private Button mainButton;
@@ -42,87 +103,169 @@ public class FirstScreen implements Screen {
     private Glyph logo;
 
     private Array<Glyph> fadeGlyphs;
-    private float nextBeatTime = 0f;
-    private final float beatInterval = 60f / 220f;
+    private final Rectangle viewBounds = new Rectangle();
+    private int lastBeat = -1;
     private BitmapFont font;
 
+    private BeatMap beatMap;
+    private boolean bassPulseActive = false;
+    private int nextBassHit = -1;
+    private float logoBaseScaleX;
+    private float logoBaseScaleY;
+
     private boolean isInMainMenu = false;
+    private Level level; // The level being played, null while in the menus
+    private JudgementEngine judgement; // Judges the level's chart, null while in the menus
+    // Held menu keys, followed through input events and acted on once per frame
+    private boolean upHeld;
+    private boolean spaceHeld;
+    private final InputAdapter menuInput = new InputAdapter() {
+        @Override
+        public boolean keyDown(int keycode) {
+            switch (keycode) {
+                case Input.Keys.ENTER:
+                case Input.Keys.ESCAPE:
+                    if (timePassed >= INTRO_END) return false;
+                    skipIntro();
+                    return true;
+                case Input.Keys.UP:
+                    upHeld = true;
+                    return false;
+                case Input.Keys.SPACE:
+                    spaceHeld = true;
+                    return false;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public boolean keyUp(int keycode) {
+            if (keycode == Input.Keys.UP) upHeld = false;
+            if (keycode == Input.Keys.SPACE) spaceHeld = false;
+            return false;
+        }
+    };
     private float playMenuRectOriginY;
     private float playMenuRectExtendedY;
     private float playArrowOriginY;
     private float playArrowExtendedY;
+    // Menu layout in the logo's unscaled pixels; the menu is attached to the logo when it shows up and follows the
+    // logo's tweens from then on
+    private static final float MENU_RECT_X = 8f;
+    private static final float MENU_RECT_Y = 56f;
+    private static final float PLAY_ARROW_X = 218f;
+    private static final float PLAY_ARROW_Y = 129f;
+    private static final float PLAY_ARROW_SCALE = 1.33f;
+    private static final float PLAY_ARROW_REST_OFFSET = 44f;
+    private static final float MENU_SLIDE = 444f; // how far up the menu slides out
+
+
+    @Override
+    public void queueAssets(AssetManager assets) {
+        if (!Main.simulateOnly) {
+            // GL textures, a simulation only run lays the glyphs out without them
+            GlyphAtlas.queue(assets, Gdx.files.internal(GLYPH_LIST));
+            DerivedTextureCache.queue(assets, BACKGROUND, BACKGROUND_SCALE);
+            Assets.loadFont(assets, FONT, "fonts/josefin-sans-latin-400-normal.ttf", 20, Color.WHITE);
+        }
+        assets.load(SONG_MUFFLED, Music.class);
+        assets.load(SONG_CLEAR, Music.class);
+        assets.load(SFX_HEAVY_SLIDING, Sound.class);
+        assets.load(SFX_DOOR, Sound.class);
+        assets.load(SFX_LIGHT_SLIDING, Sound.class);
+        assets.load(SFX_MONITOR_ON, Sound.class);
+        assets.load(PARTICLE_CONCENTRATION, ParticleEffect.class);
+    }
 
+    private long spawnConcentration(float x) {
+        long handle = particles.spawn(PARTICLE_CONCENTRATION, x, -370);
+        ParticleEffect effect = particles.get(handle);
+        if (effect != null) effect.scaleEffect(3);
+        return handle;
+    }
+
+    // Null without the atlas, in a simulation only run
+    private TextureRegion region(String name) {
+        return atlas == null ? null : atlas.findRegion(name);
+    }
 
     @Override
     public void show() {
-        batch = new SpriteBatch();
-
-        audioManager = new AudioEffectManager(
-                Gdx.files.internal("./audio/song/SECRET BOSS_muffled.mp3"),
-                Gdx.files.internal("./audio/song/SECRET BOSS.mp3")
-        );
-
-        //particles
-        YParticleEffect concentration = new YParticleEffect(true);
-        concentration.load(Gdx.files.internal("./particles/downConcentration.p"), Gdx.files.internal("particles"));
-        concentration.setPosition(Main.WIDTH / 2f - 670f, -370);
-        concentration.scaleEffect(3);
-        YParticleEffect concentration2 = new YParticleEffect(true);
-        concentration2.load(Gdx.files.internal("./particles/downConcentration.p"), Gdx.files.internal("particles"));
-        concentration2.setPosition(Main.WIDTH / 2f + 600f, -370);
-        concentration2.scaleEffect(3);
+        // The LoadingScreen queued and loaded everything, the atlas pages and the background included
+        Main.input.addProcessor(menuInput);
+        if (!Main.simulateOnly) {
+            batch = new SpriteBatch();
+            glyphRenderer = new InstancedGlyphRenderer();
+        }
+
+        audioManager = new AudioEffectManager(assets.get(SONG_MUFFLED, Music.class), assets.get(SONG_CLEAR, Music.class));
+        // Analysed once per song, later runs read the cached map; ready long before the drop at 13 seconds
+        BeatMapCache.loadAsync(Gdx.files.internal(SONG_CLEAR), map -> {
+            beatMap = map;
+            // Beat 0 of the fade loop is the drop
+            if (map.getBpm() > 0f) songClock.setTempo(map.getBpm(), BEAT_LOOP_START);
+        });
+
+        //particles, both streams come out of one pool
+        particles.prewarm(PARTICLE_CONCENTRATION, 2);
 
         //Textures
-        Glyph bg = new Glyph(Utils.resizeTo(new Texture("./sampleBGs/bg.png"), 120), -192, -108, true);
+        TextureRegion bgRegion = null;
+        if (!Main.simulateOnly) {
+            atlas = GlyphAtlas.fromAssets(assets, Gdx.files.internal(GLYPH_LIST));
+            bgRegion = DerivedTextureCache.fromAssets(assets, BACKGROUND, BACKGROUND_SCALE);
+        }
+        Glyph bg = new Glyph(bgRegion, -192, -108, true);
         bg.setAlpha(0f);
 
-        Glyph glyph = new Glyph(new Texture("./logo/LogoLayout.png"), 0, 0, true);
+        Glyph glyph = new Glyph(region("logo/LogoLayout"), 0, 0, true);
         glyph.setAlpha(0f);
 
-        Glyph keyboard = new Glyph(new Texture("./keyboard.png"), Main.WIDTH / 2f - 670, 1000, true);
+        Glyph keyboard = new Glyph(region("keyboard"), Main.WIDTH / 2f - 670, 1000, true);
         keyboard.setScaleX(keyboard.getScaleX() * 0.67f);
         keyboard.setScaleY(keyboard.getScaleY() * 0.67f);
 
-        Glyph pc = new Glyph(new Texture("./PC.png"), Main.WIDTH / 2f + 550 + 2000, Main.HEIGHT / 2f - 300, true);
+        Glyph pc = new Glyph(region("PC"), Main.WIDTH / 2f + 550 + 2000, Main.HEIGHT / 2f - 300, true);
         pc.setAlpha(0f);
 
-        Glyph soundMemo = new Glyph(new Texture("./sound.png"), 20, 200, true);
-        Glyph soundCover = new Glyph(new Texture("./soundCover.png"), 20, 200, true);
+        Glyph soundMemo = new Glyph(region("sound"), 20, 200, true);
+        Glyph soundCover = new Glyph(region("soundCover"), 20, 200, true);
 
-        Glyph flash = new Glyph(new Texture("./whiteCirc.png"), Main.WIDTH / 2f, Main.HEIGHT / 2f, true);
+        Glyph flash = new Glyph(region("whiteCirc"), Main.WIDTH / 2f, Main.HEIGHT / 2f, true);
         flash.setScaleX(flash.getScaleX() * 100f);
         flash.setScaleY(flash.getScaleY() * 100f);
         flash.setAlpha(0f);
 
-        Glyph upFade = new Glyph(new Texture("./upwardsFade.png"), 0, 200, true);
+        TextureRegion upFadeRegion = region("upwardsFade");
+        Glyph upFade = new Glyph(upFadeRegion, 0, 200, true);
         upFade.setAlpha(0f);
-        Glyph downFade = new Glyph(Utils.rotateTextureRightAngles(new Texture("./upwardsFade.png"), 180), 0, 200, true);
+        //Flipping both axes is the 180 degree rotation, without a second texture
+        TextureRegion downFadeRegion = null;
+        if (upFadeRegion != null) {
+            downFadeRegion = new TextureRegion(upFadeRegion);
+            downFadeRegion.flip(true, true);
+        }
+        Glyph downFade = new Glyph(downFadeRegion, 0, 200, true);
         downFade.setAlpha(0f);
         downFade.setY(-200);
         fadeGlyphs = new Array<>(new Glyph[]{upFade, downFade});
 
-        playMenuRect = new Glyph(new Texture("./ui/menuRect.png"), -1000, -1000, true);
-        playArrow = new Glyph(new Texture("./ui/playButton.png"), -1000, -1000, true);
+        playMenuRect = new Glyph(region("ui/menuRect"), -1000, -1000, true);
+        playArrow = new Glyph(region("ui/playButton"), -1000, -1000, true);
 
-        logo = new Glyph(new Texture("./logo/shortLogo.png"), 323, 289 + 1000, true);
+        logo = new Glyph(region("logo/shortLogo"), 323, 289 + 1000, true);
         logo.setScaleX(logo.getScaleX() * 0.15f);
         logo.setScaleY(logo.getScaleY() * 0.15f);
 
         //Some text
-        FreeTypeFontGenerator generator = new FreeTypeFontGenerator(Gdx.files.internal("fonts/josefin-sans-latin-400-normal.ttf"));
-        FreeTypeFontGenerator.FreeTypeFontParameter parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = 20;
-        parameter.color = Color.WHITE;
-        font = generator.generateFont(parameter);
+        if (!Main.simulateOnly) font = assets.get(FONT, BitmapFont.class);
         tutorialText = new TextGlyph("Arrow keys to navigate, space to select", font, Main.WIDTH / 2f - 200, Main.HEIGHT / 2f - 400 - 500, true);
-        generator.dispose();
 
         //Button
-        mainButton = new Button(new Texture("./logo/shortLogo.png"), -1000, -1000, () -> {
+        mainButton = new Button(region("logo/shortLogo"), -1000, -1000, () -> {
 
         });
-        mainButton.setScaleX(mainButton.getScaleX() * 0.15f);
-        mainButton.setScaleY(mainButton.getScaleY() * 0.15f);
         mainButton.setAlpha(0f);
         mainButton.addOnHoverListener(() -> {
             animationManager.animateRotation(logo, -3f, 0.2f, Easing.EASE_IN_OUT_CIRC); //Do 20 for menu
@@ -130,193 +273,321 @@ public class FirstScreen implements Screen {
         mainButton.addOnUnHoverListener(() -> {
             animationManager.animateRotation(logo, 0f, 0.2f, Easing.EASE_IN_OUT_CIRC);
         });
+        Main.pointer.add(mainButton);
 
         //sfx
-        Sound sliding_heavy = Gdx.audio.newSound(Gdx.files.internal("./audio/heavy-sliding.mp3"));
-        Sound door_open_close = Gdx.audio.newSound(Gdx.files.internal("./audio/door-open-close.mp3"));
-        Sound sliding_light = Gdx.audio.newSound(Gdx.files.internal("./audio/object-sliding.mp3"));
-        Sound monitor_on = Gdx.audio.newSound(Gdx.files.internal("./audio/monitor-on.mp3"));
+        Sound sliding_heavy = assets.get(SFX_HEAVY_SLIDING, Sound.class);
+        Sound door_open_close = assets.get(SFX_DOOR, Sound.class);
+        Sound sliding_light = assets.get(SFX_LIGHT_SLIDING, Sound.class);
+        Sound monitor_on = assets.get(SFX_MONITOR_ON, Sound.class);
 
         /////////
         //Setup//
         /////////
+        // The intro is keyframed so it can be seeked: glyph motion on tracks, everything else on cues. Keyframes
+        // start from where the glyphs were placed above
+        intro = new Sequence();
+        float keyboardX = keyboard.getX();
+        float keyboardY = keyboard.getY();
+        float keyboardScale = keyboard.getScaleX();
+        float pcX = pc.getX();
+        float pcY = pc.getY();
+        float logoX = logo.getX();
+        float logoY = logo.getY();
+        float logoScale = logo.getScaleX();
+        float memoX = soundMemo.getX();
+        float coverX = soundCover.getX();
+        float upFadeY = upFade.getY();
+        float tutorialY = tutorialText.getY();
+        float factor = 3f;
+
         //PC sliding and phasing in
-        animationManager.animateFade(pc, 1f, 3f, Easing.EASE_IN_OUT_QUAD);
-        animationManager.animateMove(pc, pc.getX() - 2000, pc.getY(), 2f, Easing.EASE_IN_OUT_CIRC);
+        intro.track(pc, Sequence.Property.ALPHA).key(0f, 0f).key(3f, 1f, Easing.EASE_IN_OUT_QUAD);
+        intro.track(pc, Sequence.Property.X).key(0f, pcX).key(2f, pcX - 2000, Easing.EASE_IN_OUT_CIRC);
         sliding_heavy.play();
         door_open_close.play();
 
-        //Sound visualization (door open)
-        eventManager.addEvent(new Event(2f, () -> {
+        //Sound visualization (door open), the cover slides out and comes back in from the other side
+        intro.cue(2f, () -> {
             monitor_on.play();
             cameraManager.shake(0.2f, 3f, 25f);
-            animationManager.animateMove(soundCover, soundCover.getX() + 400, soundCover.getY(), 0.25f,Easing.LINEAR);
-        }));
-        eventManager.addEvent(new Event(2.25f, () -> {
-            soundCover.setX(soundCover.getX() - 800);
-            animationManager.animateMove(soundCover, soundCover.getX() + 400, soundCover.getY(), 0.4f,Easing.LINEAR);
-        }));
+        }, false);
+        intro.track(soundCover, Sequence.Property.X)
+                .key(2f, coverX)
+                .key(2.25f, coverX + 400)
+                .key(2.25f, coverX - 400)
+                .key(2.65f, coverX);
         //Keyboard slide down
-        eventManager.addEvent(new Event(3f, () -> {
-            sliding_light.play();
-            animationManager.animateMove(keyboard, keyboard.getX(), keyboard.getY() - 1000, 2f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateMove(logo, logo.getX(), logo.getY() - 1000, 2f,Easing.EASE_IN_OUT_QUAD);
-        }));
+        intro.cue(3f, sliding_light::play, false);
+        intro.track(keyboard, Sequence.Property.Y).key(3f, keyboardY).key(5f, keyboardY - 1000, Easing.EASE_IN_OUT_QUAD);
+        intro.track(logo, Sequence.Property.Y).key(3f, logoY).key(5f, logoY - 1000, Easing.EASE_IN_OUT_QUAD);
         //Monitor flickering
-        eventManager.addEvent(new Event(5f, () -> {
-            animationManager.animateFade(upFade, 1f, 1f,Easing.EASE_IN_EXPO);
-        }));
-        eventManager.addEvent(new Event(6f, () -> {
-            animationManager.animateFade(upFade, 0.5f, 5000f,Easing.EASE_OSCILLATE_INFINITE);
-        }));
+        intro.track(upFade, Sequence.Property.ALPHA)
+                .key(5f, 0f)
+                .key(6f, 1f, Easing.EASE_IN_EXPO)
+                .key(6f + 5000f, 0.5f, Easing.EASE_OSCILLATE_INFINITE);
 
         //Start focus on logo - move everything away, sound start transition
-        eventManager.addEvent(new Event(8f, () -> {
-            audioManager.startTransition(5f, 0.005f, 0.5f, 13f, false);
-            float factor = 3f;
-            animationManager.animateScale(keyboard, keyboard.getScaleX() * factor, keyboard.getScaleY() * factor, 4f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateMove(keyboard, keyboard.getX() + 1000, keyboard.getY() + 180, 4f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateScale(logo, logo.getScaleX() * factor, logo.getScaleY() * factor, 4f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateMove(logo, logo.getX() + 330, logo.getY() - 20, 4f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateFade(keyboard, 0f, 4f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateFade(bg, 0.1f, 4f,Easing.EASE_IN_QUART);
-            animationManager.animateMove(pc, pc.getX() + 1000, pc.getY() + 20, 2f,Easing.EASE_IN_OUT_CIRC);
-            animationManager.animateMove(soundMemo, soundMemo.getX() - 1000, soundMemo.getY(), 2f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateMove(soundCover, soundMemo.getX() - 1000, soundMemo.getY(), 2f,Easing.EASE_IN_OUT_QUAD);
-            animationManager.animateMove(upFade, upFade.getX(), upFade.getY() + 500, 4f,Easing.EASE_IN_OUT_ELASTIC);
-        }));
-
-        this.nextBeatTime = 13f;
-        eventManager.addEvent(new Event(13f, () -> {
-            upFade.setY(upFade.getY() - 500);
+        intro.cue(AUDIO_START, () -> {
+            // Late when the intro was skipped past this point, the music starts where it would be by now
+            float late = intro.getTime() - AUDIO_START;
+            audioManager.startTransition(5f, 0.005f, 0.5f, intro.getTime() + SONG_OFFSET, false);
+            audioManager.update(late);
+            songClock.attach(audioManager.getClearTrack(), SONG_OFFSET);
+        });
+        intro.track(keyboard, Sequence.Property.SCALE).key(AUDIO_START, keyboardScale).key(12f, keyboardScale * factor, Easing.EASE_IN_OUT_QUAD);
+        intro.track(keyboard, Sequence.Property.X).key(AUDIO_START, keyboardX).key(12f, keyboardX + 1000, Easing.EASE_IN_OUT_QUAD);
+        intro.track(keyboard, Sequence.Property.Y).key(AUDIO_START, keyboardY - 1000).key(12f, keyboardY - 1000 + 180, Easing.EASE_IN_OUT_QUAD);
+        intro.track(keyboard, Sequence.Property.ALPHA).key(AUDIO_START, keyboard.getAlpha()).key(12f, 0f, Easing.EASE_IN_OUT_QUAD);
+        intro.track(logo, Sequence.Property.SCALE).key(AUDIO_START, logoScale).key(12f, logoScale * factor, Easing.EASE_IN_OUT_QUAD);
+        intro.track(logo, Sequence.Property.X).key(AUDIO_START, logoX).key(12f, logoX + 330, Easing.EASE_IN_OUT_QUAD);
+        intro.track(logo, Sequence.Property.Y).key(AUDIO_START, logoY - 1000).key(12f, logoY - 1000 - 20, Easing.EASE_IN_OUT_QUAD);
+        intro.track(pc, Sequence.Property.X).key(AUDIO_START, pcX - 2000).key(10f, pcX - 1000, Easing.EASE_IN_OUT_CIRC);
+        intro.track(pc, Sequence.Property.Y).key(AUDIO_START, pcY).key(10f, pcY + 20, Easing.EASE_IN_OUT_CIRC);
+        intro.track(soundMemo, Sequence.Property.X).key(AUDIO_START, memoX).key(10f, memoX - 1000, Easing.EASE_IN_OUT_QUAD);
+        intro.track(soundCover, Sequence.Property.X).key(AUDIO_START, coverX).key(10f, memoX - 1000, Easing.EASE_IN_OUT_QUAD);
+        intro.track(upFade, Sequence.Property.Y).key(AUDIO_START, upFadeY).key(12f, upFadeY + 500, Easing.EASE_IN_OUT_ELASTIC);
+        intro.track(bg, Sequence.Property.ALPHA).key(AUDIO_START, 0f).key(12f, 0.1f, Easing.EASE_IN_QUART);
+
+        songClock.reset(0f, SONG_OFFSET);
+        intro.cue(13f, () -> {
             monitor_on.stop();
-            shaderManager.setPunch(1.0f);
-            concentration.start();
-            concentration2.start();
-            animationManager.animatePulse(logo, 220, 1.05f); //TODO: REPLACE WITH ACTUAL BASS DETECTION
-            animationManager.animateFade(flash, 1f, 0.5f,Easing.EASE_IN_OUT_EXPO);
+            if (shaderManager != null) {
+                shaderManager.getPunch().setIntensity(1.0f);
+                shaderManager.getBloom().flash(FLASH_GLOW, FLASH_GLOW_DURATION);
+            }
+            concentrationLeft = spawnConcentration(Main.WIDTH / 2f - 670f);
+            concentrationRight = spawnConcentration(Main.WIDTH / 2f + 600f);
+            logoBaseScaleX = logo.getScaleX();
+            logoBaseScaleY = logo.getScaleY();
+            bassPulseActive = true;
             parallaxManager.addLayer(bg, 0.02f, 0.1f);
-        }));
-        eventManager.addEvent(new Event(13.25f, () -> {
-            animationManager.animateFade(bg, 1f, 1f,Easing.EASE_IN_QUART);
-        }));
-        eventManager.addEvent(new Event(13.5f, () -> {
-            animationManager.animateFade(flash, 0f, 1.5f,Easing.LINEAR);
-        }));
-        eventManager.addEvent(new Event(14f, () -> {
-            //Button display
-            mainButton.setX(logo.getX());
-            mainButton.setY(logo.getY());
-            mainButton.setScaleX(logo.getScaleX());
-            mainButton.setScaleY(logo.getScaleY());
-            playMenuRect.setScaleX(logo.getScaleX());
-            playMenuRect.setScaleY(logo.getScaleY());
-            playMenuRect.setX(logo.getX() + 6.7f);
-            playMenuRect.setY(logo.getY() + 50);
-            playArrow.setX(logo.getX() + 205);
-            playArrow.setY(logo.getY() + 150);
-            playArrow.setScaleX(playArrow.getScaleX() * 0.6f);
-            playArrow.setScaleY(playArrow.getScaleY() * 0.6f);
-
-            concentration.allowCompletion();
-            concentration2.allowCompletion();
-            sliding_light.dispose();
-            sliding_heavy.dispose();
-            door_open_close.dispose();
-            monitor_on.dispose();
-
-            animationManager.animateMove(tutorialText, tutorialText.getX(), tutorialText.getY() + 500, 2f, Easing.EASE_IN_OUT_EXPO);
+        });
+        intro.track(upFade, Sequence.Property.Y).key(13f, upFadeY + 500).key(13f, upFadeY);
+        intro.track(flash, Sequence.Property.ALPHA)
+                .key(13f, 0f)
+                .key(13.5f, 1f, Easing.EASE_IN_OUT_EXPO)
+                .key(15f, 0f);
+        intro.track(bg, Sequence.Property.ALPHA).key(13.25f, 0.1f).key(14.25f, 1f, Easing.EASE_IN_QUART);
+        intro.cue(INTRO_END, () -> {
+            //Button display, attached to the logo so they move, scale and rotate with it
+            mainButton.setX(0);
+            mainButton.setY(0);
+            playMenuRect.setX(MENU_RECT_X);
+            playMenuRect.setY(MENU_RECT_Y);
+            playArrow.setX(PLAY_ARROW_X);
+            playArrow.setY(PLAY_ARROW_Y);
+            playArrow.setScaleX(PLAY_ARROW_SCALE);
+            playArrow.setScaleY(PLAY_ARROW_SCALE);
+            logo.addChild(mainButton);
+            logo.addChild(playMenuRect);
+            logo.addChild(playArrow);
+
+            particles.allowCompletion(concentrationLeft);
+            particles.allowCompletion(concentrationRight);
+            // The sound effects stay loaded, earlier cues play them again after a seek back; dispose unloads them
 
             playMenuRectOriginY = playMenuRect.getY();
-            playMenuRectExtendedY = playMenuRect.getY() + 200;
-            playArrowOriginY = playArrow.getY() + 20;
-            playArrowExtendedY = playArrow.getY() + 220;
+            playMenuRectExtendedY = playMenuRect.getY() + MENU_SLIDE;
+            playArrowOriginY = playArrow.getY() + PLAY_ARROW_REST_OFFSET;
+            playArrowExtendedY = playArrowOriginY + MENU_SLIDE;
+            // The menu starts on the first level, its background streams in while the player looks around
+            if (levels.getSelected() == null && levels.size() > 0) levels.select(0);
             isInMainMenu = true;
-        }));
+        });
+        intro.track(tutorialText, Sequence.Property.Y).key(INTRO_END, tutorialY).key(INTRO_END + 2f, tutorialY + 500, Easing.EASE_IN_OUT_EXPO);
     }
 
-        @Override
-        public void render(float delta) {
-            // --- Update logic ---
-            timePassed += delta;
-            eventManager.update(timePassed);
-            audioManager.update(delta);
-            cameraManager.update(delta);
-            parallaxManager.update(delta);
-
-            if (mainButton != null) mainButton.update(delta);
-
-            if (timePassed >= nextBeatTime && nextBeatTime > 0) {
-                nextBeatTime += beatInterval;
-
-                Glyph targetGlyph = fadeGlyphs.random();
-                animationManager.animateFade(targetGlyph, 0.5f, 0.1f, Easing.EASE_OUT_SINE);
-                eventManager.addEvent(new Event(timePassed + 0.1f, () -> {
-                    animationManager.animateFade(targetGlyph, 0f, 0.3f, Easing.EASE_IN_SINE);
-                }));
-            }
+    /**
+     * Jumps to the end of the intro, taking the music along if it already plays; otherwise the intro's audio cue
+     * starts it at the right position.
+     */
+    private void skipIntro() {
+        float from = timePassed;
+        boolean musicPlaying = songClock.isAttached();
+        songClock.reset(INTRO_END, SONG_OFFSET);
+        clockTime = INTRO_END;
+        timePassed = INTRO_END;
+        if (musicPlaying) {
+            audioManager.update(INTRO_END - from);
+            audioManager.setPosition(INTRO_END + SONG_OFFSET);
+            songClock.attach(audioManager.getClearTrack(), SONG_OFFSET);
+        }
+        intro.seek(INTRO_END);
+    }
 
-            // --- up arrow key stuff ---
-            if (isInMainMenu) {
-                if (Gdx.input.isKeyPressed(Input.Keys.UP)) {
-                    if (Gdx.input.isKeyPressed(Input.Keys.SPACE)) {
-                        isInMainMenu = false;
-                        animationManager.animateMove(tutorialText, tutorialText.getX(), tutorialText.getY() - 500, 1f, Easing.EASE_IN_OUT_EXPO);
-                        animationManager.animateMove(playMenuRect, playMenuRect.getX(), playMenuRectOriginY, 0.3f, Easing.EASE_IN_OUT_QUINT);
-                        animationManager.animateMove(playArrow, playArrow.getX(), playArrowOriginY, 0.5f, Easing.EASE_IN_OUT_QUINT);
-                        animationManager.animateRotation(playArrow, -0.5f, 0.5f, Easing.EASE_IN_OUT_BACK);
-                        eventManager.addEvent(new Event(timePassed + 0.4f, () -> {
-                            animationManager.animateScale(playArrow, playArrow.getScaleX() * 20, playArrow.getScaleY() * 20, 1f, Easing.EASE_IN_OUT_BACK);
-                            animationManager.animateMove(playArrow, playArrow.getX(), playArrow.getY() - 100, 1f, Easing.EASE_IN_OUT_QUINT);
-                        }));
-                        Utils.putAfter(Main.glyphs, playArrow, logo);
-                    }
-                    if (playMenuRect.getAlpha() == 1f) {
-                        animationManager.animateMove(playMenuRect, playMenuRect.getX(), playMenuRectExtendedY, 0.3f, Easing.EASE_IN_OUT_QUINT);
-                        animationManager.animateMove(playArrow, playArrow.getX(), playArrowExtendedY, 0.4f, Easing.EASE_IN_OUT_QUINT);
-                        animationManager.animateRotation(playArrow, 360, 0.4f, Easing.EASE_IN_OUT_EXPO);
-                        playMenuRect.setAlpha(0.98f);
-                        eventManager.addEvent(new Event(timePassed + 0.4f, () -> {
-                            playMenuRect.setAlpha(0.99f);
-                        }));
-                    }
-                } else {
-                    if (playMenuRect.getAlpha() == 0.99f) {
-                        animationManager.animateMove(playMenuRect, playMenuRect.getX(), playMenuRectOriginY, 0.3f, Easing.EASE_IN_OUT_QUINT);
-                        animationManager.animateMove(playArrow, playArrow.getX(), playArrowOriginY, 0.4f, Easing.EASE_IN_OUT_QUINT);
-                        animationManager.animateRotation(playArrow, -360, 0.4f, Easing.EASE_IN_OUT_CIRC);
-                        playMenuRect.setAlpha(0.98f);
-                        eventManager.addEvent(new Event(timePassed + 0.4f, () -> {
-                            playMenuRect.setAlpha(1f);
-                        }));
-                    }
+    /**
+     * Starts the level selected in the menu. Selecting it pinned its background in the texture cache; its chart is
+     * loaded here and judged from the song position on, notes already past are left out.
+     */
+    private void startLevel() {
+        level = levels.getSelected();
+        if (level == null || level.getChartPath() == null) return;
+
+        judgement = new JudgementEngine(ChartLoader.loadOrCompile(Gdx.files.internal(level.getChartPath())),
+                JudgementWindows.forDifficulty(level.getDifficulty()), songClock);
+        judgement.startAt(songClock.getSongTime());
+        Main.input.addProcessor(judgement);
+    }
+
+    @Override
+    public float frame(float delta) {
+        float previousTime = clockTime;
+        songClock.update(delta);
+        clockTime = songClock.getTime();
+
+        profiler.begin(FrameProfiler.Phase.AUDIO);
+        audioManager.update(clockTime - previousTime);
+        profiler.end(FrameProfiler.Phase.AUDIO);
+
+        // Held keys are acted on once per frame, so the menu reacts the same however many steps the frame runs
+        profiler.begin(FrameProfiler.Phase.UI);
+
+        // --- up arrow key stuff ---
+        if (isInMainMenu) {
+            if (upHeld) {
+                if (spaceHeld) {
+                    isInMainMenu = false;
+                    animationManager.animateMove(tutorialText, tutorialText.getX(), tutorialText.getY() - 500, 1f, Easing.EASE_IN_OUT_EXPO);
+                    animationManager.animateMove(playMenuRect, playMenuRect.getX(), playMenuRectOriginY, 0.3f, Easing.EASE_IN_OUT_QUINT);
+                    animationManager.animateMove(playArrow, playArrow.getX(), playArrowOriginY, 0.5f, Easing.EASE_IN_OUT_QUINT);
+                    animationManager.animateRotation(playArrow, -0.5f, 0.5f, Easing.EASE_IN_OUT_BACK);
+                    eventManager.schedule(timePassed + 0.4f, () -> {
+                        animationManager.animateScale(playArrow, playArrow.getScaleX() * 20, playArrow.getScaleY() * 20, 1f, Easing.EASE_IN_OUT_BACK);
+                        animationManager.animateMove(playArrow, playArrow.getX(), playArrow.getY() - MENU_SLIDE / 2f, 1f, Easing.EASE_IN_OUT_QUINT);
+                    });
+                    Main.renderQueue.putAfter(playArrow, logo);
+                    startLevel();
+                }
+                if (playMenuRect.getAlpha() == 1f) {
+                    animationManager.animateMove(playMenuRect, playMenuRect.getX(), playMenuRectExtendedY, 0.3f, Easing.EASE_IN_OUT_QUINT);
+                    animationManager.animateMove(playArrow, playArrow.getX(), playArrowExtendedY, 0.4f, Easing.EASE_IN_OUT_QUINT);
+                    animationManager.animateRotation(playArrow, 360, 0.4f, Easing.EASE_IN_OUT_EXPO);
+                    playMenuRect.setAlpha(0.98f);
+                    eventManager.schedule(timePassed + 0.4f, () -> {
+                        playMenuRect.setAlpha(0.99f);
+                    });
+                }
+            } else {
+                if (playMenuRect.getAlpha() == 0.99f) {
+                    animationManager.animateMove(playMenuRect, playMenuRect.getX(), playMenuRectOriginY, 0.3f, Easing.EASE_IN_OUT_QUINT);
+                    animationManager.animateMove(playArrow, playArrow.getX(), playArrowOriginY, 0.4f, Easing.EASE_IN_OUT_QUINT);
+                    animationManager.animateRotation(playArrow, -360, 0.4f, Easing.EASE_IN_OUT_CIRC);
+                    playMenuRect.setAlpha(0.98f);
+                    eventManager.schedule(timePassed + 0.4f, () -> {
+                        playMenuRect.setAlpha(1f);
+                    });
                 }
             }
+        }
+        profiler.end(FrameProfiler.Phase.UI);
 
-            // --- Apply camera effects ---
-            cameraManager.applyEffects();
+        // The steps follow the song clock; it only stands still or jumps back on a seek, the steps wait then
+        return Math.max(0f, clockTime - previousTime);
+    }
 
-            // --- Render scene into ShaderManager's FBO ---
-            shaderManager.begin();
+    @Override
+    public void skip(float skipped) {
+        // Lost to a stall, the events and the intro jump there in the next step
+        timePassed += skipped;
+    }
 
-            ScreenUtils.clear(0, 0, 0, 1); // Clear the FBO
+    @Override
+    public void step(float step) {
+        timePassed += step;
+        profiler.begin(FrameProfiler.Phase.EVENTS);
+        eventManager.update(timePassed);
+        intro.playTo(timePassed);
+        profiler.end(FrameProfiler.Phase.EVENTS);
+
+        profiler.begin(FrameProfiler.Phase.PARALLAX);
+        parallaxManager.update(step);
+        profiler.end(FrameProfiler.Phase.PARALLAX);
+
+        profiler.begin(FrameProfiler.Phase.UI);
+        // Notes the song has moved past are misses
+        if (judgement != null) judgement.update();
+
+        // The beat loop waits for the tempo from the beat map
+        int beat = songClock.getBeatIndex();
+        if (songClock.getBpm() > 0f && beat >= 0 && beat > lastBeat) {
+            lastBeat = beat;
+
+            Glyph targetGlyph = fadeGlyphs.random();
+            animationManager.animateFade(targetGlyph, 0.5f, 0.1f, Easing.EASE_OUT_SINE);
+            eventManager.schedule(timePassed + 0.1f, () -> {
+                animationManager.animateFade(targetGlyph, 0f, 0.3f, Easing.EASE_IN_SINE);
+            });
+        }
 
-            batch.setProjectionMatrix(Main.camera.combined);
+        // --- logo bumps on the song's bass hits ---
+        if (bassPulseActive && beatMap != null) {
+            float[] bassHits = beatMap.getBassHits();
+            float songTime = songClock.getSongTime();
+            if (nextBassHit < 0) nextBassHit = BeatMap.indexAtOrAfter(bassHits, songTime);
 
-            batch.begin();
-            animationManager.updateAndRenderGlyphs(delta, batch);
-            for (YParticleEffect eff : Main.particles) {
-                eff.update(delta);
-                eff.draw(batch);
+            boolean hit = false;
+            while (nextBassHit < bassHits.length && bassHits[nextBassHit] <= songTime) {
+                nextBassHit++;
+                hit = true;
             }
-            batch.end();
+            if (hit) {
+                // Restart from the base scale so overlapping bumps all settle back on it
+                logo.setScaleX(logoBaseScaleX);
+                logo.setScaleY(logoBaseScaleY);
+                animationManager.animateScale(logo, logoBaseScaleX * BASS_BUMP_SCALE, logoBaseScaleY * BASS_BUMP_SCALE, BASS_BUMP_DURATION, Easing.EASE_OSCILLATE_1);
+                if (shaderManager != null) shaderManager.getBloom().flash(BASS_BUMP_GLOW, BASS_BUMP_DURATION);
+            }
+        }
+        profiler.end(FrameProfiler.Phase.UI);
 
-            // --- End FBO rendering and apply shaders to screen ---
-            shaderManager.end(delta);
+        // Run by Main with its glyph jobs, all finished before the next step and the draw
+        jobs.add("camera", updateCamera);
+        jobs.add("particles", updateParticles);
+        if (shaderManager != null) jobs.add("post effects", updatePostEffects);
+    }
 
-            // --- Reset camera effects ---
-            cameraManager.resetEffects();
-        }
+    @Override
+    public void draw(float alpha) {
+        // --- Apply camera effects ---
+        cameraManager.applyEffects();
+
+        // --- Render scene into ShaderManager's FBO ---
+        shaderManager.begin();
+
+        ScreenUtils.clear(0, 0, 0, 1); // Clear the FBO
+
+        batch.setProjectionMatrix(Main.camera.combined);
+
+        // Glyphs are transformed on the GPU, the batch only takes text and particles
+        glyphRenderer.begin(Main.camera.combined);
+        profiler.begin(FrameProfiler.Phase.GLYPHS);
+        animationManager.renderGlyphs(glyphRenderer, batch, alpha, cameraManager.getViewBounds(viewBounds));
+        glyphRenderer.end();
+        profiler.end(FrameProfiler.Phase.GLYPHS);
+        profiler.addGlyphCounts(animationManager.getDrawnGlyphCount(), animationManager.getCulledGlyphCount());
+        profiler.addRenderCalls(glyphRenderer.renderCalls);
+
+        profiler.begin(FrameProfiler.Phase.PARTICLES);
+        batch.begin();
+        particles.draw(batch);
+        batch.end();
+        profiler.end(FrameProfiler.Phase.PARTICLES);
+        profiler.addRenderCalls(batch.renderCalls);
+
+        // --- End FBO rendering and apply shaders to screen ---
+        profiler.begin(FrameProfiler.Phase.POST_PROCESS);
+        shaderManager.end();
+        profiler.end(FrameProfiler.Phase.POST_PROCESS);
+
+        // --- Reset camera effects ---
+        cameraManager.resetEffects();
+    }
+
+    @Override
+    public void render(float delta) {
+        // Main drives this screen through frame, step and draw
+    }
 
     @Override
     public void resize(int width, int height) {
@@ -343,8 +614,23 @@ public class FirstScreen implements Screen {
     @Override
     public void dispose() {
         // Destroy screen's assets here.
-        batch.dispose();
+        if (batch != null) batch.dispose();
+        if (glyphRenderer != null) glyphRenderer.dispose();
+        Main.pointer.remove(mainButton);
+        Main.input.removeProcessor(menuInput);
+        if (judgement != null) Main.input.removeProcessor(judgement);
+        levels.clearSelection();
+        Assets.unloadIfLoaded(assets, GLYPH_LIST);
+        Assets.unloadIfLoaded(assets, DerivedTextureCache.assetName(BACKGROUND, BACKGROUND_SCALE));
         audioManager.dispose();
-        font.dispose();
+        Assets.unloadIfLoaded(assets, FONT);
+        Assets.unloadIfLoaded(assets, SONG_MUFFLED);
+        Assets.unloadIfLoaded(assets, SONG_CLEAR);
+        Assets.unloadIfLoaded(assets, SFX_LIGHT_SLIDING);
+        Assets.unloadIfLoaded(assets, SFX_HEAVY_SLIDING);
+        Assets.unloadIfLoaded(assets, SFX_DOOR);
+        Assets.unloadIfLoaded(assets, SFX_MONITOR_ON);
+        particles.forget(PARTICLE_CONCENTRATION);
+        Assets.unloadIfLoaded(assets, PARTICLE_CONCENTRATION);
     }
 }
@@ -0,0 +1,40 @@
+package it.yuruni;
+
+import com.badlogic.gdx.Screen;
+
+/**
+ * A screen that {@link Main} drives through its {@link GameLoop} instead of {@link Screen#render(float)}.
+ * Every frame calls {@link #frame(float)} once, then {@link #step(float)} as many times as the loop pays
+ * out for the time the frame returned, then {@link #draw(float)} unless the game runs in simulate-only mode.
+ */
+public interface FixedStepScreen extends Screen {
+    /**
+     * Per-frame work that must see every frame exactly once, like just-pressed input checks or sampling clocks.
+     * @param delta seconds since the previous frame
+     * @return seconds to simulate this frame; the delta, or how far a clock the screen follows moved
+     */
+    float frame(float delta);
+
+    /**
+     * Called after {@link #frame(float)} when the loop had more time than it steps in a frame and dropped the
+     * oldest part, before the steps it does run. State that follows a clock should jump by that much so it stays
+     * on the clock; the tweens and glyphs just lose the time.
+     * @param skipped the seconds that are not simulated
+     */
+    default void skip(float skipped) {
+    }
+
+    /**
+     * Advances the simulation. Tweens have already been stepped, glyphs are updated afterwards. Work that shares
+     * nothing with the glyphs can be added to {@link Main#jobs}; it runs alongside the glyph updates and is done
+     * before the next step.
+     * @param step the step length, always {@link GameLoop#STEP}
+     */
+    void step(float step);
+
+    /**
+     * Draws the scene between the previous and the current simulated state.
+     * @param alpha the interpolation factor, 0 for the previous state and 1 for the current one
+     */
+    void draw(float alpha);
+}
@@ -0,0 +1,79 @@
+package it.yuruni;
+
+/**
+ * Fixed timestep accumulator. Frame time is banked and paid out in steps of {@link #STEP} seconds, so the
+ * simulation advances the same way at any frame rate; the time left over becomes the interpolation alpha
+ * used to draw between the last two simulated states.
+ * <p>
+ * A frame never runs more than {@link #MAX_STEPS_PER_FRAME} steps. After a stall, such as a window drag or
+ * a blocking load, the excess is dropped instead of simulated, so slow steps can't snowball into ever
+ * longer frames. The dropped time is not lost: {@link #getLastDroppedTime()} tells the caller how far to jump
+ * whatever follows a clock, see {@link FixedStepScreen#skip(float)}.
+ */
+public final class GameLoop {
+    public static final float STEP = 1f / 120f;
+    public static final int MAX_STEPS_PER_FRAME = 8;
+
+    private double accumulator;
+    private long stepCount;
+    private double droppedTime;
+    private float lastDroppedTime;
+
+    /**
+     * Banks the time of a frame.
+     * @param delta seconds since the previous frame
+     * @return how many steps to run this frame, at most {@link #MAX_STEPS_PER_FRAME}
+     */
+    public int advance(float delta) {
+        if (delta < 0) throw new IllegalArgumentException("Delta must not be negative.");
+
+        accumulator += delta;
+        lastDroppedTime = 0f;
+        int due = (int) (accumulator / STEP);
+        if (due > MAX_STEPS_PER_FRAME) {
+            double dropped = (due - MAX_STEPS_PER_FRAME) * (double) STEP;
+            droppedTime += dropped;
+            lastDroppedTime = (float) dropped;
+            accumulator -= dropped;
+            due = MAX_STEPS_PER_FRAME;
+        }
+        accumulator = Math.max(0.0, accumulator - due * (double) STEP);
+        stepCount += due;
+        return due;
+    }
+
+    /**
+     * @return how far the unsimulated time reaches into the next step, from 0 to 1
+     */
+    public float getAlpha() {
+        return (float) Math.min(1.0, accumulator / STEP);
+    }
+
+    /**
+     * @return the steps run since the loop was created or reset
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * @return seconds skipped because frames ran out of steps
+     */
+    public float getDroppedTime() {
+        return (float) droppedTime;
+    }
+
+    /**
+     * @return seconds the last {@link #advance(float)} dropped, which come before the steps it returned
+     */
+    public float getLastDroppedTime() {
+        return lastDroppedTime;
+    }
+
+    public void reset() {
+        accumulator = 0;
+        stepCount = 0;
+        droppedTime = 0;
+        lastDroppedTime = 0f;
+    }
+}
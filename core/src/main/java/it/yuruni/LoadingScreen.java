@@ -0,0 +1,119 @@
+package it.yuruni;
+
+import com.badlogic.gdx.Game;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.ScreenUtils;
+import it.yuruni.assets.AssetDependent;
+import it.yuruni.assets.Assets;
+
+/**
+ * Queues the assets of the next screen, keeps animating while {@link Main#assets} loads them and then
+ * switches to that screen. The manager gets {@link Assets#UPLOAD_BUDGET_MILLIS} of every frame, decoding
+ * happens on its loader thread meanwhile.
+ */
+public class LoadingScreen implements Screen {
+    private static final float BAR_WIDTH = 600f;
+    private static final float BAR_HEIGHT = 6f;
+
+    private final Game game;
+    private final Screen next;
+    private final AssetManager assets = Main.assets;
+
+    private SpriteBatch batch;
+    private Texture pixel;
+    private float time;
+    private float shownProgress;
+
+    /**
+     * @param game the game whose screen is switched once loading finishes
+     * @param next the screen to show afterwards, its assets are queued if it is an {@link AssetDependent}
+     */
+    public LoadingScreen(Game game, Screen next) {
+        this.game = game;
+        this.next = next;
+    }
+
+    @Override
+    public void show() {
+        if (!Main.simulateOnly) {
+            batch = new SpriteBatch();
+            Pixmap white = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+            white.setColor(Color.WHITE);
+            white.fill();
+            pixel = new Texture(white);
+            white.dispose();
+        }
+
+        if (next instanceof AssetDependent) ((AssetDependent) next).queueAssets(assets);
+    }
+
+    @Override
+    public void render(float delta) {
+        time += delta;
+        boolean done = assets.update(Assets.UPLOAD_BUDGET_MILLIS);
+
+        // Ease the bar towards the real progress so big uploads don't make it jump
+        shownProgress = Math.min(assets.getProgress(), shownProgress + Math.max(delta * 2f, (assets.getProgress() - shownProgress) * 0.2f));
+        if (done && shownProgress >= 1f) {
+            game.setScreen(next);
+            return;
+        }
+        if (Main.simulateOnly) return;
+
+        ScreenUtils.clear(0, 0, 0, 1);
+        Main.viewport.apply();
+        batch.setProjectionMatrix(Main.camera.combined);
+        batch.begin();
+
+        float barX = (Main.WIDTH - BAR_WIDTH) / 2f;
+        float barY = Main.HEIGHT / 2f - 60f;
+        batch.setColor(1f, 1f, 1f, 0.15f);
+        batch.draw(pixel, barX, barY, BAR_WIDTH, BAR_HEIGHT);
+        batch.setColor(1f, 1f, 1f, 0.9f);
+        batch.draw(pixel, barX, barY, BAR_WIDTH * shownProgress, BAR_HEIGHT);
+
+        // Three pulsing dots, so a stalled frame is visible as a hitch
+        for (int i = 0; i < 3; i++) {
+            float pulse = 0.5f + 0.5f * MathUtils.sin(time * 6f - i * 0.8f);
+            float size = 8f + 6f * pulse;
+            batch.setColor(1f, 1f, 1f, 0.3f + 0.7f * pulse);
+            batch.draw(pixel, Main.WIDTH / 2f + (i - 1) * 30f - size / 2f, Main.HEIGHT / 2f - size / 2f, size, size);
+        }
+        batch.setColor(Color.WHITE);
+        batch.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        Main.viewport.update(width, height, true);
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void hide() {
+        // The loading screen is only shown once
+        dispose();
+    }
+
+    @Override
+    public void dispose() {
+        if (batch != null) batch.dispose();
+        if (pixel != null) pixel.dispose();
+        batch = null;
+        pixel = null;
+    }
+}
@@ -2,69 +2,187 @@ package it.yuruni;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputMultiplexer;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
+import it.yuruni.assets.Assets;
+import it.yuruni.assets.TextureCache;
+import it.yuruni.audio.SongClock;
+import it.yuruni.debug.FrameProfiler;
+import it.yuruni.debug.ProfilerOverlay;
+import it.yuruni.game.level.LevelCatalog;
 import it.yuruni.graphics.animation.AnimationManager;
 import it.yuruni.graphics.animation.EventManager;
-import it.yuruni.graphics.animation.Glyph;
+import it.yuruni.graphics.animation.RenderQueue;
 import it.yuruni.graphics.effects.CameraManager;
+import it.yuruni.graphics.effects.HeadlessParticleEffectLoader;
 import it.yuruni.graphics.effects.ParallaxManager;
+import it.yuruni.graphics.effects.ParticleManager;
 import it.yuruni.graphics.effects.ShaderManager;
-import it.yuruni.graphics.effects.YParticleEffect;
+import it.yuruni.graphics.pixmap.DerivedTextureCache;
+import it.yuruni.jobs.JobSystem;
+import it.yuruni.ui.PointerDispatcher;
 
-import java.util.ArrayList;
-import java.util.List;
-
-/** {@link com.badlogic.gdx.ApplicationListener} implementation shared by all platforms. */
+/**
+ * {@link com.badlogic.gdx.ApplicationListener} implementation shared by all platforms.
+ * Tweens, glyphs and {@link FixedStepScreen}s are simulated in fixed steps by a {@link GameLoop} and drawn
+ * interpolated between the last two steps. The independent parts of a step run in parallel on a {@link JobSystem},
+ * and each step waits for them before the next one starts or the frame is drawn.
+ */
 public class Main extends Game {
-    public static final List<Glyph> glyphs = new ArrayList<>();
-    public static final List<YParticleEffect> particles = new ArrayList<>();
+    /**
+     * When set, nothing is drawn and no GL resources are created by the game, so it runs under a headless backend;
+     * for soak tests. Particle effects are loaded without their images and levels without their backgrounds.
+     */
+    public static boolean simulateOnly;
+    public static final RenderQueue renderQueue = new RenderQueue();
+    public static InputMultiplexer input; // Screens add their processors, e.g. a JudgementEngine while playing
+    public static PointerDispatcher pointer;
+    public static AssetManager assets;
+    public static DerivedTextureCache derivedTextures;
+    public static TextureCache textures;
+    public static LevelCatalog levels;
     public static AnimationManager animationManager;
     public static EventManager eventManager;
+    public static SongClock songClock;
     public static ShaderManager shaderManager;
     public static CameraManager cameraManager;
     public static ParallaxManager parallaxManager;
+    public static ParticleManager particles;
+    public static FrameProfiler profiler;
+    public static JobSystem jobs;
+    public static final GameLoop loop = new GameLoop();
+    private ProfilerOverlay profilerOverlay;
+    private final Runnable updateGlyphs = () -> animationManager.updateGlyphs(GameLoop.STEP);
+    private final Runnable refreshHitboxes = () -> animationManager.refreshHitboxes();
 
     //VirtualViewport
     public static OrthographicCamera camera;
     public static Viewport viewport;
     public static final float WIDTH = 1920, HEIGHT = 1080;
+    public static final int MAX_PARTICLES = 2000; // Live particles across all effects, see ParticleManager
 
+    public Main() {
+    }
+
+    /**
+     * @param simulateOnly whether to run without drawing, see {@link #simulateOnly}
+     */
+    public Main(boolean simulateOnly) {
+        Main.simulateOnly = simulateOnly;
+    }
 
     @Override
     public void create() {
-        animationManager = new AnimationManager();
+        input = new InputMultiplexer();
+        Gdx.input.setInputProcessor(input);
+        pointer = new PointerDispatcher();
+        input.addProcessor(pointer);
+        assets = Assets.createManager();
+        derivedTextures = new DerivedTextureCache();
+        textures = new TextureCache(assets, TextureCache.DEFAULT_BUDGET_BYTES);
+        // Level backgrounds are textures, a simulation only run goes without them
+        levels = LevelCatalog.load(Gdx.files.internal("levels/levels.json"), simulateOnly ? null : textures);
+        jobs = new JobSystem(JobSystem.defaultWorkers());
+        animationManager = new AnimationManager(jobs);
         eventManager = new EventManager();
-        shaderManager = new ShaderManager();
+        songClock = new SongClock();
         parallaxManager = new ParallaxManager();
+        input.addProcessor(parallaxManager);
+        if (simulateOnly) assets.setLoader(ParticleEffect.class, new HeadlessParticleEffectLoader(assets.getFileHandleResolver()));
+        particles = new ParticleManager(assets, MAX_PARTICLES);
+        profiler = new FrameProfiler(600);
+        jobs.setTimingListener(profiler); // Times each job of a step under its name
+        if (!simulateOnly) {
+            shaderManager = new ShaderManager();
+            profilerOverlay = new ProfilerOverlay(profiler, jobs);
+        }
 
         //Cam
         camera = new OrthographicCamera();
         cameraManager = new CameraManager(camera);
         viewport = new FitViewport(WIDTH,HEIGHT, camera);
 
-        setScreen(new FirstScreen());
+        setScreen(new LoadingScreen(this, new FirstScreen()));
     }
 
     @Override
     public void render() {
-        animationManager.update(Gdx.graphics.getDeltaTime());
-        super.render();
+        float delta = Gdx.graphics.getDeltaTime();
+        if (profilerOverlay != null) profilerOverlay.handleInput();
+        profiler.beginFrame();
+        textures.update(Assets.STREAMING_BUDGET_MILLIS);
+
+        // A fixed step screen says how much to simulate, so its steps stay on the clock it follows
+        Screen screen = getScreen();
+        float simulated = delta;
+        if (screen instanceof FixedStepScreen) simulated = ((FixedStepScreen) screen).frame(delta);
+        pointer.update();
+
+        int steps = loop.advance(simulated);
+        if (loop.getLastDroppedTime() > 0f && screen instanceof FixedStepScreen) {
+            ((FixedStepScreen) screen).skip(loop.getLastDroppedTime());
+        }
+        for (int i = 0; i < steps; i++) {
+            step(GameLoop.STEP);
+        }
+
+        // The screen may have changed during the steps
+        screen = getScreen();
+        if (screen instanceof FixedStepScreen) {
+            if (!simulateOnly) ((FixedStepScreen) screen).draw(loop.getAlpha());
+        } else if (screen != null) {
+            screen.render(delta);
+        }
+
+        profiler.endFrame();
+        if (profilerOverlay != null) profilerOverlay.render();
+    }
+
+    /**
+     * Runs one fixed simulation step: glyph states are saved for interpolation, then tweens and the screen
+     * advance. Last the step's jobs run: whatever the screen scheduled, the glyphs' own updates and their hitboxes,
+     * which depend on the glyphs' current frames. They are all done when this returns.
+     */
+    private void step(float step) {
+        animationManager.savePreviousGlyphStates();
+
+        profiler.begin(FrameProfiler.Phase.TWEENS);
+        animationManager.update(step);
+        profiler.end(FrameProfiler.Phase.TWEENS);
+
+        Screen screen = getScreen();
+        if (screen instanceof FixedStepScreen) ((FixedStepScreen) screen).step(step);
+
+        JobSystem.Job glyphs = jobs.add("glyphs", updateGlyphs);
+        jobs.add("hitboxes", refreshHitboxes, glyphs);
+        profiler.begin(FrameProfiler.Phase.JOBS);
+        jobs.run(); // Barrier, the next step and the draw read what the jobs wrote
+        profiler.end(FrameProfiler.Phase.JOBS);
     }
 
     @Override
     public void resize(int width, int height) {
         super.resize(width, height);
-        shaderManager.resize(width, height);
+        if (shaderManager != null) shaderManager.resize(width, height);
+        if (profilerOverlay != null) profilerOverlay.resize(width, height);
     }
 
     @Override
     public void dispose() {
         super.dispose();
-        shaderManager.dispose();
-        while (!glyphs.isEmpty()) {
-            glyphs.get(0).dispose();
+        particles.clear();
+        if (shaderManager != null) shaderManager.dispose();
+        if (profilerOverlay != null) profilerOverlay.dispose();
+        jobs.dispose();
+        while (!renderQueue.isEmpty()) {
+            renderQueue.first().dispose();
         }
+        derivedTextures.dispose();
+        assets.dispose();
     }
 }
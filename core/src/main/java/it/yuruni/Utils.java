@@ -4,16 +4,17 @@ import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.TextureData;
 import it.yuruni.graphics.animation.Easing;
-import it.yuruni.graphics.animation.Glyph;
+import it.yuruni.graphics.pixmap.PixmapTransforms;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.*;
 
 public final class Utils {
     /**
+     * File backed textures are decoded from disk again on every call,
+     * {@link it.yuruni.graphics.pixmap.DerivedTextureCache} derives an image once and shares the result.
      *
      * @param sourceTexture the original texture to be resized
      * @param newWidth the desired width of the resized texture
@@ -33,13 +34,7 @@ public final class Utils {
             sourcePixmap = sourceData.consumePixmap();
         }
 
-        Pixmap resizedPixmap = new Pixmap(newWidth, newHeight, sourcePixmap.getFormat());
-        resizedPixmap.setFilter(Pixmap.Filter.NearestNeighbour); //Much faster scaling method than BiLinear
-
-        resizedPixmap.drawPixmap(sourcePixmap,
-                0, 0, sourcePixmap.getWidth(), sourcePixmap.getHeight(), // Source rectangle
-                0, 0, newWidth, newHeight    // Destination rectangle
-        );
+        Pixmap resizedPixmap = resizeTo(sourcePixmap, newWidth, newHeight);
 
         Texture resizedTexture = new Texture(resizedPixmap);
 
@@ -50,6 +45,32 @@ public final class Utils {
         return resizedTexture;
     }
 
+    /**
+     *
+     * @param sourcePixmap the original pixmap, it is not disposed
+     * @param newWidth the desired width of the resized pixmap
+     * @param newHeight the desired height of the resized pixmap
+     * @return a new Pixmap resized to the specified dimensions
+     */
+    public static Pixmap resizeTo(Pixmap sourcePixmap, int newWidth, int newHeight) {
+        return PixmapTransforms.resizeNearest(sourcePixmap, newWidth, newHeight);
+    }
+
+    /**
+     *
+     * @param sourcePixmap the original pixmap, it is not disposed
+     * @param percentage the percentage to scale the pixmap by (e.g., 50 for 50%)
+     * @return a new Pixmap resized by the specified percentage
+     */
+    public static Pixmap resizeTo(Pixmap sourcePixmap, double percentage) {
+        if (percentage <= 0) throw new IllegalArgumentException("Percentage must be positive.");
+
+        float scale = (float) (percentage / 100.0);
+        int newWidth = Math.max(1, Math.round(sourcePixmap.getWidth() * scale));
+        int newHeight = Math.max(1, Math.round(sourcePixmap.getHeight() * scale));
+        return resizeTo(sourcePixmap, newWidth, newHeight);
+    }
+
     /**
      *
      * @param sourceTexture the original texture to be resized
@@ -92,46 +113,7 @@ public final class Utils {
         sourcePixmap = sourceData.consumePixmap();
 
 
-        int originalWidth = sourcePixmap.getWidth();
-        int originalHeight = sourcePixmap.getHeight();
-        int newWidth = originalWidth;
-        int newHeight = originalHeight;
-
-        // Determine new dimensions for 90/270 degree rotations
-        if (rotationAngle == 90 || rotationAngle == 270) {
-            newWidth = originalHeight;
-            newHeight = originalWidth;
-        }
-
-        Pixmap rotatedPixmap = new Pixmap(newWidth, newHeight, sourcePixmap.getFormat());
-
-        for (int y = 0; y < originalHeight; y++) {
-            for (int x = 0; x < originalWidth; x++) {
-                int color = sourcePixmap.getPixel(x, y);
-                int rotatedX = 0;
-                int rotatedY = switch (rotationAngle) {
-                    case 0 -> {
-                        rotatedX = x;
-                        yield y;
-                    }
-                    case 90 -> {
-                        rotatedX = y;
-                        yield newHeight - 1 - x;
-                    }
-                    case 180 -> {
-                        rotatedX = newWidth - 1 - x;
-                        yield newHeight - 1 - y;
-                    }
-                    case 270 -> {
-                        rotatedX = newWidth - 1 - y;
-                        yield x;
-                    }
-                    default -> 0;
-                };
-
-                rotatedPixmap.drawPixel(rotatedX, rotatedY, color);
-            }
-        }
+        Pixmap rotatedPixmap = PixmapTransforms.rotate(sourcePixmap, rotationAngle);
 
         Texture rotatedTexture = new Texture(rotatedPixmap);
 
@@ -169,57 +151,6 @@ public final class Utils {
         return wrappedText.toString().trim();
     }
 
-    /**
-     * Moves a glyph to the position right before a target glyph in the list.
-     * The list is modified in place. If either glyph is not in the list, or parameters are null,
-     * the list is not modified.
-     *
-     * @param glyphs the list of glyphs to modify
-     * @param toMove the glyph to move
-     * @param target the glyph to be placed before
-     */
-    public static void putBefore(List<Glyph> glyphs, Glyph toMove, Glyph target) {
-        if (glyphs == null || toMove == null || target == null || toMove == target) {
-            return;
-        }
-
-        if (!glyphs.contains(toMove) || !glyphs.contains(target)) {
-            return;
-        }
-
-        glyphs.remove(toMove);
-        int targetIndex = glyphs.indexOf(target);
-        glyphs.add(targetIndex, toMove);
-    }
-
-    /**
-     * Moves a glyph to the position right after a target glyph in the list.
-     * The list is modified in place. If either glyph is not in the list, or parameters are null,
-     * the list is not modified.
-     *
-     * @param glyphs the list of glyphs to modify
-     * @param toMove the glyph to move
-     * @param target the glyph to be placed after
-     */
-    public static void putAfter(List<Glyph> glyphs, Glyph toMove, Glyph target) {
-        if (glyphs == null || toMove == null || target == null || toMove == target) {
-            return;
-        }
-
-        if (!glyphs.contains(toMove) || !glyphs.contains(target)) {
-            return;
-        }
-
-        glyphs.remove(toMove);
-        int targetIndex = glyphs.indexOf(target);
-
-        if (targetIndex == glyphs.size() - 1) {
-            glyphs.add(toMove);
-        } else {
-            glyphs.add(targetIndex + 1, toMove);
-        }
-    }
-
     public static float applyEasing(float t, Easing easing) {
         switch (easing) {
             case EASE_IN_QUAD:
@@ -0,0 +1,17 @@
+package it.yuruni.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+
+/**
+ * Something, usually a screen, that declares the assets it needs before it is shown.
+ * The {@link it.yuruni.LoadingScreen} queues them, waits for the manager to finish and only then
+ * switches over, so nothing has to be decoded on the render thread in {@code show()}.
+ */
+public interface AssetDependent {
+    /**
+     * Queues every asset needed by this object with {@link AssetManager#load}.
+     * Nothing may be fetched from the manager here, the assets are not loaded yet.
+     * @param assets the manager to queue on
+     */
+    void queueAssets(AssetManager assets);
+}
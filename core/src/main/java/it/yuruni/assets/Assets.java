@@ -0,0 +1,71 @@
+package it.yuruni.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGeneratorLoader;
+import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
+import it.yuruni.graphics.atlas.GlyphAtlas;
+import it.yuruni.graphics.atlas.GlyphAtlasLoader;
+import it.yuruni.graphics.pixmap.DerivedTextureLoader;
+
+/**
+ * Helpers around the shared {@link AssetManager}.
+ * The manager decodes files on its loader thread and only runs the GL uploads on the render thread,
+ * a few at a time inside {@link AssetManager#update(int)}.
+ */
+public final class Assets {
+    /** Milliseconds per frame the loading screen gives the manager, leaving room for a 60 fps frame. */
+    public static final int UPLOAD_BUDGET_MILLIS = 8;
+    /** Milliseconds per frame for background streaming while a screen is running. */
+    public static final int STREAMING_BUDGET_MILLIS = 2;
+
+    private Assets() {
+    }
+
+    /**
+     * @return an asset manager that also understands .ttf fonts, glyph atlas lists and derived textures
+     */
+    public static AssetManager createManager() {
+        FileHandleResolver resolver = new InternalFileHandleResolver();
+        AssetManager assets = new AssetManager(resolver);
+        assets.setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
+        assets.setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
+        assets.setLoader(GlyphAtlas.class, new GlyphAtlasLoader(resolver));
+        assets.setLoader(Texture.class, DerivedTextureLoader.SUFFIX, new DerivedTextureLoader(resolver));
+        return assets;
+    }
+
+    /**
+     * Queues a FreeType font rendered at the given size.
+     * The asset name must end with .ttf and is what {@link AssetManager#get(String)} expects later;
+     * it is separate from the font file so the same file can be loaded at several sizes.
+     * @param assets the manager to queue on
+     * @param name the asset name, e.g. "fonts/josefin-20.ttf"
+     * @param fontFile the .ttf file path
+     * @param size the pixel size
+     * @param color the glyph color
+     */
+    public static void loadFont(AssetManager assets, String name, String fontFile, int size, Color color) {
+        if (!name.endsWith(".ttf")) throw new IllegalArgumentException("Font asset names must end with .ttf: " + name);
+
+        FreetypeFontLoader.FreeTypeFontLoaderParameter parameter = new FreetypeFontLoader.FreeTypeFontLoaderParameter();
+        parameter.fontFileName = fontFile;
+        parameter.fontParameters.size = size;
+        parameter.fontParameters.color = color;
+        assets.load(name, BitmapFont.class, parameter);
+    }
+
+    /**
+     * Unloads an asset if it is loaded, ignoring names that are not.
+     * @param assets the manager
+     * @param name the asset name
+     */
+    public static void unloadIfLoaded(AssetManager assets, String name) {
+        if (assets.isLoaded(name)) assets.unload(name);
+    }
+}
@@ -0,0 +1,190 @@
+package it.yuruni.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import it.yuruni.graphics.pixmap.PixmapTransforms;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Streams large textures, such as level backgrounds, through the {@link AssetManager} and keeps the resident
+ * ones under a VRAM byte budget. Textures are evicted least recently used first; pinned textures are never
+ * evicted, so whatever is on screen should be held with {@link #acquire(String)}.
+ * Not thread safe, use it from the render thread.
+ */
+public class TextureCache {
+    public static final long DEFAULT_BUDGET_BYTES = 128L << 20;
+
+    private final AssetManager assets;
+    private long budgetBytes;
+    private long residentBytes;
+
+    // Access order, the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Entries whose texture has not finished loading, the only ones update() has to check
+    private final Array<Entry> loading = new Array<>(false, 8);
+
+    /**
+     * @param assets the manager textures are loaded with
+     * @param budgetBytes the VRAM budget for resident textures
+     */
+    public TextureCache(AssetManager assets, long budgetBytes) {
+        this.assets = assets;
+        setBudgetBytes(budgetBytes);
+    }
+
+    /**
+     * Queues a texture to be loaded in the background, or marks it as recently used if it is already known.
+     * @param path the internal path of the texture
+     */
+    public void request(String path) {
+        if (entries.get(path) != null) return;
+
+        assets.load(path, Texture.class);
+        Entry entry = new Entry(path);
+        entries.put(path, entry);
+        loading.add(entry);
+    }
+
+    /**
+     * Requests a texture and pins it so it is not evicted until {@link #release(String)} is called as often.
+     * @param path the internal path of the texture
+     */
+    public void acquire(String path) {
+        request(path);
+        entries.get(path).pins++;
+    }
+
+    /**
+     * @param path a path previously passed to {@link #acquire(String)}
+     */
+    public void release(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.pins == 0) throw new IllegalArgumentException("Texture is not acquired: " + path);
+        entry.pins--;
+    }
+
+    /**
+     * @param path the internal path of the texture
+     * @return the texture if it finished loading, otherwise null; a hit counts as a use
+     */
+    public Texture get(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null || !assets.isLoaded(path, Texture.class)) return null;
+        return assets.get(path, Texture.class);
+    }
+
+    /**
+     * Requests a texture and waits for it. Only for textures that have to be on screen this frame.
+     * @param path the internal path of the texture
+     * @return the loaded texture
+     */
+    public Texture getBlocking(String path) {
+        request(path);
+        Texture texture = assets.finishLoadingAsset(path);
+        update(0);
+        return texture;
+    }
+
+    /**
+     * @param path the internal path of the texture
+     * @return whether the texture is loaded and resident
+     */
+    public boolean isLoaded(String path) {
+        return entries.containsKey(path) && assets.isLoaded(path, Texture.class);
+    }
+
+    /**
+     * Lets the manager load for up to the given time, accounts for finished textures and evicts until the
+     * resident textures fit in the budget. Call once per frame.
+     * @param millis the loading time budget for this frame, 0 to only account and evict
+     */
+    public void update(int millis) {
+        if (millis > 0 && !assets.isFinished()) assets.update(millis);
+
+        for (int i = loading.size - 1; i >= 0; i--) {
+            Entry entry = loading.get(i);
+            if (!assets.isLoaded(entry.path, Texture.class)) continue;
+
+            entry.bytes = estimateBytes(assets.get(entry.path, Texture.class));
+            residentBytes += entry.bytes;
+            loading.removeIndex(i);
+        }
+        trim();
+    }
+
+    private void trim() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (residentBytes > budgetBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            // Entries still loading are left alone, they hold no VRAM yet
+            if (entry.pins > 0 || entry.bytes == 0) continue;
+
+            iterator.remove();
+            residentBytes -= entry.bytes;
+            assets.unload(entry.path);
+        }
+    }
+
+    /**
+     * Unloads every texture that is not pinned.
+     */
+    public void evictAll() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.pins > 0) continue;
+
+            iterator.remove();
+            if (entry.bytes == 0) loading.removeValue(entry, true);
+            residentBytes -= entry.bytes;
+            assets.unload(entry.path);
+        }
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @param budgetBytes the new budget, applied on the next {@link #update(int)}
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        if (budgetBytes <= 0) throw new IllegalArgumentException("Budget must be positive.");
+        this.budgetBytes = budgetBytes;
+    }
+
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return the number of textures that are resident or loading
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static long estimateBytes(Texture texture) {
+        TextureData data = texture.getTextureData();
+        Pixmap.Format format = data.getFormat();
+        long bytes = (long) texture.getWidth() * texture.getHeight() * (format == null ? 4 : PixmapTransforms.bytesPerPixel(format));
+        // A full mipmap chain adds a third
+        if (data.useMipMaps()) bytes += bytes / 3;
+        return Math.max(1, bytes);
+    }
+
+    private static class Entry {
+        final String path;
+        int pins;
+        long bytes; // 0 while loading
+
+        Entry(String path) {
+            this.path = path;
+        }
+    }
+}
@@ -9,6 +9,7 @@ public class AudioEffectManager {
 
     private final Music muffledTrack;
     private final Music clearTrack;
+    private final boolean ownsTracks;
 
     private float transitionDuration;
     private float transitionTime;
@@ -19,6 +20,18 @@ public class AudioEffectManager {
     public AudioEffectManager(FileHandle muffledFile, FileHandle clearFile) {
         this.muffledTrack = Gdx.audio.newMusic(muffledFile);
         this.clearTrack = Gdx.audio.newMusic(clearFile);
+        this.ownsTracks = true;
+    }
+
+    /**
+     * Uses tracks that were loaded elsewhere, e.g. by an AssetManager. They are not disposed with this manager.
+     * @param muffledTrack the muffled version of the song
+     * @param clearTrack the clear version of the song
+     */
+    public AudioEffectManager(Music muffledTrack, Music clearTrack) {
+        this.muffledTrack = muffledTrack;
+        this.clearTrack = clearTrack;
+        this.ownsTracks = false;
     }
 
     public void startTransition(float duration, float startVolume, float endVolume, float position, boolean defaultLooping) {
@@ -64,6 +77,16 @@ public class AudioEffectManager {
         }
     }
 
+    /**
+     * Moves the playing tracks to a song position, e.g. when the timeline is seeked. A running transition goes on
+     * where it was; advance it with {@link #update(float)} to skip ahead in it.
+     * @param position the song position in seconds
+     */
+    public void setPosition(float position) {
+        if (muffledTrack.isPlaying()) muffledTrack.setPosition(position);
+        if (clearTrack.isPlaying()) clearTrack.setPosition(position);
+    }
+
     public Music getClearTrack() {
         return clearTrack;
     }
@@ -73,6 +96,11 @@ public class AudioEffectManager {
     }
 
     public void dispose() {
+        if (!ownsTracks) {
+            muffledTrack.stop();
+            clearTrack.stop();
+            return;
+        }
         muffledTrack.dispose();
         clearTrack.dispose();
     }
@@ -0,0 +1,202 @@
+package it.yuruni.audio;
+
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Master clock for everything that is timed to the song.
+ * While no music is attached it free-runs on frame deltas. Once a playing {@link Music} is attached it follows
+ * {@link Music#getPosition()}; the backends only update that value once per audio buffer, so the clock keeps
+ * extrapolating on frame deltas, measures its error whenever a new position is reported and works that error
+ * off over the following frames instead of jumping. The time never goes
+ * backwards unless the music is seeked by more than {@link #SNAP_THRESHOLD}.
+ * <p>
+ * Two time bases are exposed: the timeline time that screens schedule events on, and the song position, which
+ * differ by a constant offset. Both are corrected by the output latency, so they describe what is heard.
+ */
+public class SongClock {
+    /** Errors larger than this, in seconds, are treated as a seek and applied at once. */
+    public static final float SNAP_THRESHOLD = 0.1f;
+    /** Fraction of the measured error worked off per second. */
+    private static final double CORRECTION_RATE = 8.0;
+    /** After attaching, backwards reports are ignored for this long while the backend settles on the new position. */
+    private static final float ATTACH_GRACE = 0.25f;
+
+    private double time;
+    private long updateNanos; // When time was last advanced, 0 before the first update
+    private double songOffset;
+    private float outputLatency;
+
+    private Music music;
+    private float lastReported = Float.NaN;
+    private double pendingError;
+    private double sinceAttach;
+
+    private float bpm;
+    private double firstBeat;
+
+    /**
+     * Restarts the clock, free-running and detached.
+     * @param time the timeline time to start at
+     * @param songOffset the song position at timeline time 0, song position = time + songOffset
+     */
+    public void reset(float time, float songOffset) {
+        this.time = time;
+        this.songOffset = songOffset;
+        detach();
+    }
+
+    /**
+     * Follows a music track from now on. The track should already be playing from its start position.
+     * @param music the track
+     * @param songOffset the song position at timeline time 0
+     */
+    public void attach(Music music, float songOffset) {
+        this.music = music;
+        this.songOffset = songOffset;
+        lastReported = Float.NaN;
+        pendingError = 0;
+        sinceAttach = 0;
+    }
+
+    /**
+     * Goes back to free-running from the current time.
+     */
+    public void detach() {
+        music = null;
+        lastReported = Float.NaN;
+        pendingError = 0;
+    }
+
+    /**
+     * Advances the clock. Call once per frame before anything reads it.
+     * @param delta the frame delta in seconds
+     */
+    public void update(float delta) {
+        updateNanos = TimeUtils.nanoTime();
+        double previous = time;
+        double predicted = time + delta;
+
+        if (music == null || !music.isPlaying()) {
+            time = predicted;
+            return;
+        }
+
+        sinceAttach += delta;
+        float reported = music.getPosition();
+        if (reported == lastReported) {
+            // Nothing new, keep extrapolating and work off the error measured at the last report
+            double correction = pendingError * Math.min(1.0, CORRECTION_RATE * delta);
+            pendingError -= correction;
+            time = Math.max(previous, predicted + correction);
+            return;
+        }
+
+        // A fresh report is the only precise measurement: the position crossed it at some point during the
+        // last frame, on average half a frame ago
+        lastReported = reported;
+        double estimate = reported + delta * 0.5 - songOffset - outputLatency;
+        double error = estimate - predicted;
+
+        if (error < -SNAP_THRESHOLD && sinceAttach < ATTACH_GRACE) {
+            time = predicted;
+            pendingError = 0;
+        } else if (Math.abs(error) > SNAP_THRESHOLD) {
+            time = estimate;
+            pendingError = 0;
+        } else {
+            pendingError = error;
+            time = predicted;
+        }
+    }
+
+    /**
+     * @return the timeline time in seconds, what events are scheduled on
+     */
+    public float getTime() {
+        return (float) time;
+    }
+
+    /**
+     * @return the song position in seconds as heard
+     */
+    public float getSongTime() {
+        return (float) (time + songOffset);
+    }
+
+    /**
+     * Converts an input event timestamp, such as {@link com.badlogic.gdx.Input#getCurrentEventTime()}, to song
+     * position by offsetting from the last update. Events that arrived before the update map to earlier positions.
+     * @param nanos a {@link TimeUtils#nanoTime()} timestamp
+     * @return the song position at that moment in seconds
+     */
+    public float songTimeAtNanos(long nanos) {
+        if (updateNanos == 0) return getSongTime();
+        return (float) (time + songOffset + (nanos - updateNanos) / 1e9);
+    }
+
+    /**
+     * @param outputLatency seconds between a sample being reported as played and being heard
+     */
+    public void setOutputLatency(float outputLatency) {
+        this.outputLatency = outputLatency;
+    }
+
+    public float getOutputLatency() {
+        return outputLatency;
+    }
+
+    /**
+     * @return whether the clock follows a music track
+     */
+    public boolean isAttached() {
+        return music != null;
+    }
+
+    /**
+     * Sets the beat grid used by the beat methods.
+     * @param bpm beats per minute
+     * @param firstBeat the song position of beat 0 in seconds
+     */
+    public void setTempo(float bpm, float firstBeat) {
+        if (bpm <= 0) throw new IllegalArgumentException("BPM must be positive.");
+        this.bpm = bpm;
+        this.firstBeat = firstBeat;
+    }
+
+    public float getBpm() {
+        return bpm;
+    }
+
+    /**
+     * @return the position on the beat grid in beats, negative before the first beat; 0 without a tempo
+     */
+    public double getBeat() {
+        if (bpm <= 0) return 0;
+        return (time + songOffset - firstBeat) * bpm / 60.0;
+    }
+
+    /**
+     * @return the index of the current beat
+     */
+    public int getBeatIndex() {
+        return (int) Math.floor(getBeat());
+    }
+
+    /**
+     * @return progress through the current beat, in [0, 1)
+     */
+    public float getBeatPhase() {
+        return getSubdivisionPhase(1);
+    }
+
+    /**
+     * @param subdivisions parts per beat, e.g. 4 for sixteenth notes in 4/4
+     * @return progress through the current subdivision, in [0, 1)
+     */
+    public float getSubdivisionPhase(int subdivisions) {
+        if (subdivisions < 1) throw new IllegalArgumentException("Subdivisions must be at least 1.");
+        double position = getBeat() * subdivisions;
+        return (float) (position - Math.floor(position));
+    }
+}
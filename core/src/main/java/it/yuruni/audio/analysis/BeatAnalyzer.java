@@ -0,0 +1,338 @@
+package it.yuruni.audio.analysis;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline onset and bass detection.
+ * The song is decoded as a stream on the calling thread and cut into overlapping chunks of analysis frames;
+ * worker threads window and transform each chunk and compute its spectral flux and low band energy.
+ * Peak picking and the tempo estimate then run over those two curves on the calling thread.
+ */
+public class BeatAnalyzer {
+    public static final int WINDOW_SIZE = 1024;
+    public static final int HOP_SIZE = 512;
+    /** Upper edge of the band that counts as bass, in Hz. */
+    public static final float BASS_CUTOFF = 150f;
+    /**
+     * Default tempo range estimates are folded into by doubling or halving. Autocorrelation often locks onto
+     * every other beat, so the range sits high enough to report fast songs, like 220 BPM ones, at their real tempo.
+     */
+    public static final float DEFAULT_MIN_TEMPO = 120f, DEFAULT_MAX_TEMPO = 240f;
+
+    private static final int FRAMES_PER_CHUNK = 512; // About 6 seconds at 44.1 kHz
+    private static final int THRESHOLD_RADIUS = 10; // Frames on each side averaged for the onset threshold
+    private static final float THRESHOLD_MULTIPLIER = 1.5f;
+    private static final float MIN_ONSET_SPACING = 0.05f;
+    private static final float BASS_AVERAGE_SECONDS = 0.5f; // Half width of the local bass energy average
+    private static final float BASS_SENSITIVITY = 1.4f;
+    private static final float BASS_NOISE_FLOOR = 0.01f; // Relative to the loudest bass frame
+    private static final float MIN_BASS_SPACING = 0.12f;
+    private static final float MIN_BPM = 60f, MAX_BPM = 200f; // Tempos the autocorrelation searches, before folding
+
+    private final int threads;
+    private final float minTempo;
+    private final float maxTempo;
+
+    public BeatAnalyzer() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @param threads the number of worker threads used for the spectral analysis
+     */
+    public BeatAnalyzer(int threads) {
+        this(threads, DEFAULT_MIN_TEMPO, DEFAULT_MAX_TEMPO);
+    }
+
+    /**
+     * @param threads the number of worker threads used for the spectral analysis
+     * @param minTempo the lowest tempo reported, in BPM
+     * @param maxTempo the highest tempo reported, in BPM; at least twice the lowest so every tempo folds into the range
+     */
+    public BeatAnalyzer(int threads, float minTempo, float maxTempo) {
+        if (threads < 1) throw new IllegalArgumentException("At least one worker thread is needed.");
+        if (!(minTempo > 0f) || !(maxTempo >= minTempo * 2f)) {
+            throw new IllegalArgumentException("Tempo range must be positive and span an octave: " + minTempo + "-" + maxTempo);
+        }
+        this.threads = threads;
+        this.minTempo = minTempo;
+        this.maxTempo = maxTempo;
+    }
+
+    /**
+     * Analyses an MP3 file. Blocks until done, call it off the render thread.
+     * @param song the MP3 file
+     * @return the beat map
+     */
+    public BeatMap analyze(FileHandle song) {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "BeatAnalyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Mp3PcmStream stream = new Mp3PcmStream(song)) {
+            int sampleRate = stream.getSampleRate();
+            List<Future<ChunkResult>> chunks = new ArrayList<>();
+
+            // Each chunk also holds the frame before its first one, flux needs the previous spectrum
+            int chunkSamples = FRAMES_PER_CHUNK * HOP_SIZE + WINDOW_SIZE;
+            float[] samples = new float[chunkSamples];
+            int filled = 0;
+            int firstFrame = 0;
+            long totalSamples = 0;
+            boolean first = true;
+
+            while (true) {
+                int read = stream.read(samples, filled, chunkSamples - filled);
+                filled += read;
+                totalSamples += read;
+                boolean end = filled < chunkSamples;
+
+                // Frames whose window fits in the chunk, excluding the leading context frame of later chunks
+                int frames = filled < WINDOW_SIZE ? 0 : (filled - WINDOW_SIZE) / HOP_SIZE + 1;
+                int offset = first ? 0 : 1;
+                if (frames > offset) {
+                    float[] chunk = end ? Arrays.copyOf(samples, filled) : samples.clone();
+                    chunks.add(workers.submit(new ChunkTask(chunk, frames, offset, first, firstFrame, sampleRate)));
+                    firstFrame += frames - offset;
+                }
+                if (end) break;
+
+                // Keep the tail: the last frame analysed becomes the context frame of the next chunk
+                int keepFrom = (frames - 1) * HOP_SIZE;
+                System.arraycopy(samples, keepFrom, samples, 0, filled - keepFrom);
+                filled -= keepFrom;
+                first = false;
+            }
+
+            int frameCount = firstFrame;
+            float[] flux = new float[frameCount];
+            float[] bass = new float[frameCount];
+            for (Future<ChunkResult> future : chunks) {
+                ChunkResult result = future.get();
+                System.arraycopy(result.flux, 0, flux, result.firstFrame, result.flux.length);
+                System.arraycopy(result.bass, 0, bass, result.firstFrame, result.bass.length);
+            }
+
+            float framesPerSecond = sampleRate / (float) HOP_SIZE;
+            float[] onsets = pickOnsets(flux, framesPerSecond);
+            float[] bassHits = pickBassHits(bass, framesPerSecond);
+            float bpm = foldTempo(estimateTempo(flux, framesPerSecond), minTempo, maxTempo);
+            return new BeatMap(bpm, totalSamples / (float) sampleRate, onsets, bassHits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Beat analysis was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Beat analysis failed for " + song, e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static float frameTime(int frame, float framesPerSecond) {
+        // Center of the analysis window
+        return (frame + (float) WINDOW_SIZE / HOP_SIZE / 2f) / framesPerSecond;
+    }
+
+    private static float[] pickOnsets(float[] flux, float framesPerSecond) {
+        FloatArray onsets = new FloatArray();
+        int n = flux.length;
+        // Running sum for the moving average threshold
+        double windowSum = 0;
+        int windowStart = 0, windowEnd = 0;
+        float lastOnset = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            int from = Math.max(0, i - THRESHOLD_RADIUS), to = Math.min(n, i + THRESHOLD_RADIUS + 1);
+            while (windowEnd < to) windowSum += flux[windowEnd++];
+            while (windowStart < from) windowSum -= flux[windowStart++];
+            float threshold = (float) (windowSum / (to - from)) * THRESHOLD_MULTIPLIER;
+
+            float value = flux[i];
+            if (value <= threshold || !isLocalMax(flux, i, 3)) continue;
+            float time = frameTime(i, framesPerSecond);
+            if (time - lastOnset < MIN_ONSET_SPACING) continue;
+            onsets.add(time);
+            lastOnset = time;
+        }
+        return onsets.toArray();
+    }
+
+    private static float[] pickBassHits(float[] energy, float framesPerSecond) {
+        FloatArray hits = new FloatArray();
+        int n = energy.length;
+        float max = 0;
+        for (float e : energy) max = Math.max(max, e);
+        float floor = max * BASS_NOISE_FLOOR;
+
+        int radius = Math.max(1, Math.round(BASS_AVERAGE_SECONDS * framesPerSecond));
+        double windowSum = 0;
+        int windowStart = 0, windowEnd = 0;
+        float lastHit = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            int from = Math.max(0, i - radius), to = Math.min(n, i + radius + 1);
+            while (windowEnd < to) windowSum += energy[windowEnd++];
+            while (windowStart < from) windowSum -= energy[windowStart++];
+            float average = (float) (windowSum / (to - from));
+
+            float value = energy[i];
+            if (value < floor || value <= average * BASS_SENSITIVITY || !isLocalMax(energy, i, 2)) continue;
+            float time = frameTime(i, framesPerSecond);
+            if (time - lastHit < MIN_BASS_SPACING) continue;
+            hits.add(time);
+            lastHit = time;
+        }
+        return hits.toArray();
+    }
+
+    private static boolean isLocalMax(float[] values, int index, int radius) {
+        float value = values[index];
+        for (int j = Math.max(0, index - radius), end = Math.min(values.length, index + radius + 1); j < end; j++) {
+            if (values[j] > value || (values[j] == value && j < index)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Autocorrelation of the onset curve over the lags of the searched tempo range; the lag may be a multiple of
+     * the beat, see {@link #foldTempo(float, float, float)}.
+     */
+    private static float estimateTempo(float[] flux, float framesPerSecond) {
+        int minLag = Math.max(1, (int) Math.floor(framesPerSecond * 60f / MAX_BPM));
+        int maxLag = (int) Math.ceil(framesPerSecond * 60f / MIN_BPM);
+        if (flux.length <= maxLag * 2) return 0f;
+
+        double mean = 0;
+        for (float f : flux) mean += f;
+        mean /= flux.length;
+
+        // One extra lag on each side for the peak interpolation below
+        double[] correlation = new double[maxLag - minLag + 3];
+        int bestLag = 0;
+        double best = 0;
+        for (int lag = Math.max(1, minLag - 1); lag <= maxLag + 1; lag++) {
+            double sum = 0;
+            for (int i = lag; i < flux.length; i++) {
+                sum += (flux[i] - mean) * (flux[i - lag] - mean);
+            }
+            sum /= flux.length - lag;
+            correlation[lag - minLag + 1] = sum;
+            if (lag >= minLag && lag <= maxLag && sum > best) {
+                best = sum;
+                bestLag = lag;
+            }
+        }
+        if (bestLag == 0) return 0f;
+
+        // A parabola through the peak and its neighbours finds the lag between frames, a whole frame is a few BPM
+        double before = correlation[bestLag - minLag], after = correlation[bestLag - minLag + 2];
+        double curvature = before - 2 * best + after;
+        double lag = bestLag;
+        if (curvature < 0) lag += Math.max(-0.5, Math.min(0.5, 0.5 * (before - after) / curvature));
+        return (float) (60.0 * framesPerSecond / lag);
+    }
+
+    /**
+     * @param bpm a tempo estimate, 0 for none
+     * @param minTempo the lowest tempo of the range
+     * @param maxTempo the highest tempo of the range, at least twice the lowest
+     * @return the estimate doubled or halved into the range, 0 for none
+     */
+    static float foldTempo(float bpm, float minTempo, float maxTempo) {
+        if (bpm <= 0f) return 0f;
+        while (bpm < minTempo) bpm *= 2f;
+        while (bpm > maxTempo) bpm /= 2f;
+        return bpm;
+    }
+
+    private static final class ChunkResult {
+        final int firstFrame;
+        final float[] flux;
+        final float[] bass;
+
+        ChunkResult(int firstFrame, float[] flux, float[] bass) {
+            this.firstFrame = firstFrame;
+            this.flux = flux;
+            this.bass = bass;
+        }
+    }
+
+    private static final class ChunkTask implements Callable<ChunkResult> {
+        private final float[] samples;
+        private final int frames;
+        private final int offset;
+        private final boolean first;
+        private final int firstFrame;
+        private final int sampleRate;
+
+        ChunkTask(float[] samples, int frames, int offset, boolean first, int firstFrame, int sampleRate) {
+            this.samples = samples;
+            this.frames = frames;
+            this.offset = offset;
+            this.first = first;
+            this.firstFrame = firstFrame;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public ChunkResult call() {
+            Fft fft = new Fft(WINDOW_SIZE);
+            int bins = WINDOW_SIZE / 2;
+            int bassBins = Math.max(1, Math.min(bins, (int) (BASS_CUTOFF * WINDOW_SIZE / sampleRate)));
+            float[] window = hann(WINDOW_SIZE);
+            float[] re = new float[WINDOW_SIZE];
+            float[] im = new float[WINDOW_SIZE];
+            float[] magnitude = new float[bins];
+            float[] previous = new float[bins];
+
+            float[] flux = new float[frames - offset];
+            float[] bass = new float[frames - offset];
+            for (int frame = 0; frame < frames; frame++) {
+                int start = frame * HOP_SIZE;
+                for (int i = 0; i < WINDOW_SIZE; i++) {
+                    re[i] = samples[start + i] * window[i];
+                    im[i] = 0f;
+                }
+                fft.transform(re, im);
+
+                float sum = 0f, energy = 0f;
+                for (int k = 0; k < bins; k++) {
+                    float power = re[k] * re[k] + im[k] * im[k];
+                    // Log compression keeps loud passages from drowning out quieter onsets
+                    float m = (float) Math.log1p(Math.sqrt(power));
+                    float rise = m - previous[k];
+                    if (rise > 0) sum += rise;
+                    magnitude[k] = m;
+                    if (k >= 1 && k <= bassBins) energy += power;
+                }
+                float[] swap = previous;
+                previous = magnitude;
+                magnitude = swap;
+
+                if (frame < offset) continue;
+                // The very first frame of the song has nothing to compare with
+                flux[frame - offset] = first && frame == 0 ? 0f : sum;
+                bass[frame - offset] = energy;
+            }
+            return new ChunkResult(firstFrame, flux, bass);
+        }
+
+        private static float[] hann(int size) {
+            float[] window = new float[size];
+            for (int i = 0; i < size; i++) {
+                window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (size - 1)));
+            }
+            return window;
+        }
+    }
+}
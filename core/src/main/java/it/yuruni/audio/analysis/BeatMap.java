@@ -0,0 +1,117 @@
+package it.yuruni.audio.analysis;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Result of {@link BeatAnalyzer}: onset and bass hit times of a song, in seconds of song position, ascending.
+ */
+public class BeatMap {
+    static final int MAGIC = 0x4C46424D; // "LFBM"
+    static final int VERSION = 2; // 2: tempo folded into the analyzer's default range
+
+    private final float bpm;
+    private final float duration;
+    private final float[] onsets;
+    private final float[] bassHits;
+
+    public BeatMap(float bpm, float duration, float[] onsets, float[] bassHits) {
+        this.bpm = bpm;
+        this.duration = duration;
+        this.onsets = onsets;
+        this.bassHits = bassHits;
+    }
+
+    /**
+     * @return the estimated tempo, 0 if none could be estimated
+     */
+    public float getBpm() {
+        return bpm;
+    }
+
+    /**
+     * @return the length of the analysed audio in seconds
+     */
+    public float getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the onset times, do not modify
+     */
+    public float[] getOnsets() {
+        return onsets;
+    }
+
+    /**
+     * @return the bass hit times, do not modify
+     */
+    public float[] getBassHits() {
+        return bassHits;
+    }
+
+    /**
+     * @param times one of the time arrays of this map
+     * @param time a song position in seconds
+     * @return the index of the first entry at or after the time, times.length if there is none
+     */
+    public static int indexAtOrAfter(float[] times, float time) {
+        int low = 0, high = times.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeFloat(bpm);
+        out.writeFloat(duration);
+        writeTimes(out, onsets);
+        writeTimes(out, bassHits);
+    }
+
+    private static void writeTimes(DataOutputStream out, float[] times) throws IOException {
+        out.writeInt(times.length);
+        for (float time : times) out.writeFloat(time);
+    }
+
+    /**
+     * @param bytes a complete file written by {@link #write(DataOutputStream)}
+     * @return the map
+     * @throws GdxRuntimeException if the data is not a beat map of the current version
+     */
+    static BeatMap read(byte[] bytes) {
+        // DataOutputStream writes big endian
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) throw new GdxRuntimeException("Not a beat map file.");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new GdxRuntimeException("Unsupported beat map version " + version);
+            float bpm = buffer.getFloat();
+            float duration = buffer.getFloat();
+            float[] onsets = readTimes(buffer);
+            float[] bassHits = readTimes(buffer);
+            return new BeatMap(bpm, duration, onsets, bassHits);
+        } catch (RuntimeException e) {
+            if (e instanceof GdxRuntimeException) throw e;
+            throw new GdxRuntimeException("Truncated beat map file.", e);
+        }
+    }
+
+    private static float[] readTimes(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count * 4L > buffer.remaining()) throw new GdxRuntimeException("Corrupt beat map file.");
+        float[] times = new float[count];
+        buffer.asFloatBuffer().get(times);
+        buffer.position(buffer.position() + count * 4);
+        return times;
+    }
+}
@@ -0,0 +1,107 @@
+package it.yuruni.audio.analysis;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Consumer;
+
+/**
+ * Beat maps stored in the local storage under {@code cache/beatmaps/<sha1 of the song>.lfb}.
+ * Keying by content means renamed or re-exported songs are handled without bookkeeping; a cached map
+ * costs one hash pass over the song and one read of the small map file.
+ */
+public final class BeatMapCache {
+    public static final String DIRECTORY = "cache/beatmaps/";
+    private static final String EXTENSION = ".lfb";
+
+    private BeatMapCache() {
+    }
+
+    /**
+     * Returns the cached beat map of a song, analysing and caching it first if needed. Blocks, so call it off
+     * the render thread or use {@link #loadAsync(FileHandle, Consumer)}.
+     * @param song the MP3 file
+     * @return the beat map
+     */
+    public static BeatMap load(FileHandle song) {
+        FileHandle cacheFile = Gdx.files.local(DIRECTORY + hash(song) + EXTENSION);
+        if (cacheFile.exists()) {
+            try {
+                return BeatMap.read(cacheFile.readBytes());
+            } catch (GdxRuntimeException e) {
+                Gdx.app.log("BeatMapCache", "Re-analysing " + song.name() + ": " + e.getMessage());
+            }
+        }
+
+        BeatMap map = new BeatAnalyzer().analyze(song);
+        write(map, cacheFile);
+        return map;
+    }
+
+    /**
+     * Loads a beat map on a background thread and hands it to the callback on the render thread.
+     * Failures are logged and the callback is not called.
+     * @param song the MP3 file
+     * @param callback receives the map on the render thread
+     */
+    public static void loadAsync(FileHandle song, Consumer<BeatMap> callback) {
+        Thread thread = new Thread(() -> {
+            try {
+                BeatMap map = load(song);
+                Gdx.app.postRunnable(() -> callback.accept(map));
+            } catch (RuntimeException e) {
+                Gdx.app.error("BeatMapCache", "Could not analyse " + song.name(), e);
+            }
+        }, "BeatMapLoader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void write(BeatMap map, FileHandle cacheFile) {
+        // Written next to the target and moved, so a crash never leaves a half written map behind
+        FileHandle temp = cacheFile.sibling(cacheFile.name() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(temp.write(false)))) {
+            map.write(out);
+        } catch (IOException e) {
+            Gdx.app.error("BeatMapCache", "Could not write " + cacheFile.path(), e);
+            temp.delete();
+            return;
+        }
+        temp.moveTo(cacheFile);
+    }
+
+    /**
+     * @param file any file
+     * @return the hex SHA-1 of its content
+     */
+    static String hash(FileHandle file) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GdxRuntimeException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = file.read()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Could not read " + file, e);
+        }
+
+        StringBuilder hex = new StringBuilder(40);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
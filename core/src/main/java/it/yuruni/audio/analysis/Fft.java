@@ -0,0 +1,67 @@
+package it.yuruni.audio.analysis;
+
+/**
+ * In-place iterative radix-2 FFT with precomputed twiddles and bit reversal.
+ * One instance per thread, the transform works on caller supplied arrays but shares no scratch state.
+ */
+final class Fft {
+    private final int size;
+    private final int[] reversed;
+    private final float[] cos;
+    private final float[] sin;
+
+    Fft(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        this.size = size;
+
+        int bits = Integer.numberOfTrailingZeros(size);
+        reversed = new int[size];
+        for (int i = 0; i < size; i++) {
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        cos = new float[size / 2];
+        sin = new float[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            double angle = -2 * Math.PI * i / size;
+            cos[i] = (float) Math.cos(angle);
+            sin[i] = (float) Math.sin(angle);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Transforms re + i*im in place.
+     */
+    void transform(float[] re, float[] im) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                float t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+
+        for (int half = 1, step = size >>> 1; half < size; half <<= 1, step >>>= 1) {
+            for (int start = 0; start < size; start += half << 1) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    int a = start + k;
+                    int b = a + half;
+                    float wr = cos[t], wi = sin[t];
+                    float xr = re[b] * wr - im[b] * wi;
+                    float xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package it.yuruni.audio.analysis;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.BitstreamException;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.MP3Decoder;
+import javazoom.jl.decoder.OutputBuffer;
+
+import java.io.Closeable;
+
+/**
+ * Decodes an MP3 file frame by frame into mono float samples in [-1, 1], so a whole song never has to be
+ * held in memory as PCM.
+ */
+class Mp3PcmStream implements Closeable {
+    private final Bitstream bitstream;
+    private final MP3Decoder decoder = new MP3Decoder();
+    private final OutputBuffer outputBuffer;
+    private final int channels;
+    private final int sampleRate;
+
+    // Samples of the last decoded frame that were not read yet
+    private float[] pending = new float[2304];
+    private int pendingStart;
+    private int pendingEnd;
+    private boolean finished;
+
+    Mp3PcmStream(FileHandle file) {
+        bitstream = new Bitstream(file.read());
+        try {
+            Header header = bitstream.readFrame();
+            if (header == null) throw new GdxRuntimeException("Empty MP3 file: " + file);
+            channels = header.mode() == Header.SINGLE_CHANNEL ? 1 : 2;
+            sampleRate = header.getSampleRate();
+            outputBuffer = new OutputBuffer(channels, false);
+            decoder.setOutputBuffer(outputBuffer);
+            // The first header is decoded by the first read
+            bitstream.unreadFrame();
+        } catch (BitstreamException e) {
+            throw new GdxRuntimeException("Could not read MP3 file: " + file, e);
+        }
+    }
+
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param samples the array to fill with mono samples
+     * @param offset the first index to write
+     * @param length the maximum number of samples to read
+     * @return the number of samples read, less than length only at the end of the stream
+     */
+    int read(float[] samples, int offset, int length) {
+        int read = 0;
+        while (read < length) {
+            if (pendingStart == pendingEnd && !decodeFrame()) break;
+            int count = Math.min(length - read, pendingEnd - pendingStart);
+            System.arraycopy(pending, pendingStart, samples, offset + read, count);
+            pendingStart += count;
+            read += count;
+        }
+        return read;
+    }
+
+    private boolean decodeFrame() {
+        if (finished) return false;
+        try {
+            Header header = bitstream.readFrame();
+            if (header == null) {
+                finished = true;
+                return false;
+            }
+            try {
+                decoder.decodeFrame(header, bitstream);
+            } catch (Exception ignored) {
+                // A corrupt frame only loses its own samples, like the music backends do
+            }
+            bitstream.closeFrame();
+        } catch (BitstreamException e) {
+            finished = true;
+            return false;
+        }
+
+        // 16 bit little endian, interleaved when stereo
+        int bytes = outputBuffer.reset();
+        byte[] buffer = outputBuffer.getBuffer();
+        int frames = bytes / (2 * channels);
+        if (pending.length < frames) pending = new float[frames];
+        for (int i = 0, b = 0; i < frames; i++) {
+            int sum = 0;
+            for (int c = 0; c < channels; c++, b += 2) {
+                sum += (short) ((buffer[b] & 0xFF) | (buffer[b + 1] << 8));
+            }
+            pending[i] = sum / (32768f * channels);
+        }
+        pendingStart = 0;
+        pendingEnd = frames;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            bitstream.close();
+        } catch (BitstreamException ignored) {
+        }
+    }
+}
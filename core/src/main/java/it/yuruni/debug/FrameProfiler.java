@@ -0,0 +1,286 @@
+package it.yuruni.debug;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import it.yuruni.jobs.JobSystem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Times each phase of a frame with {@link System#nanoTime()} into ring buffers, together with the
+ * draw calls and texture bindings counted by {@link GLProfiler} and the SpriteBatch render calls.
+ * Nothing is recorded while the profiler is disabled.
+ * <p>
+ * The work of a step that runs on the {@link JobSystem} is timed per job, under the job's name, as a listener of
+ * the job system. The {@link Phase#JOBS} phase is the wall time of the whole graph; jobs run side by side, so
+ * their times can add up to more.
+ */
+public class FrameProfiler implements JobSystem.TimingListener {
+    public enum Phase {
+        FRAME("frame"),
+        EVENTS("events"),
+        AUDIO("audio"),
+        PARALLAX("parallax"),
+        UI("ui"),
+        TWEENS("tweens"),
+        GLYPHS("glyphs"),
+        PARTICLES("particles"),
+        JOBS("jobs"),
+        POST_PROCESS("post process");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final int capacity;
+    private final long[][] phaseNanos;
+    private final long[] phaseStarts = new long[PHASES.length];
+    private final int[] drawCalls;
+    private final int[] textureBindings;
+    private final int[] shaderSwitches;
+    private final int[] renderCalls;
+    private final int[] drawnGlyphs;
+    private final int[] culledGlyphs;
+    private final long[] scratch;
+    // One ring buffer per job name, in the order the names were first seen
+    private final Array<String> jobNames = new Array<>();
+    private final Array<long[]> jobNanos = new Array<>();
+    private final ObjectIntMap<String> jobColumns = new ObjectIntMap<>();
+
+    private final GLProfiler glProfiler;
+    private boolean enabled = false;
+    private int frame = -1; // ring index of the frame being recorded
+    private int recorded;
+
+    /**
+     * @param capacity how many frames the ring buffers keep
+     */
+    public FrameProfiler(int capacity) {
+        this.capacity = capacity;
+        this.phaseNanos = new long[PHASES.length][capacity];
+        this.drawCalls = new int[capacity];
+        this.textureBindings = new int[capacity];
+        this.shaderSwitches = new int[capacity];
+        this.renderCalls = new int[capacity];
+        this.drawnGlyphs = new int[capacity];
+        this.culledGlyphs = new int[capacity];
+        this.scratch = new long[capacity];
+        this.glProfiler = new GLProfiler(Gdx.graphics);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled whether frames are recorded; GL call counting is only hooked in while enabled
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) return;
+        this.enabled = enabled;
+        if (enabled) {
+            glProfiler.enable();
+        } else {
+            glProfiler.disable();
+        }
+        frame = -1;
+        recorded = 0;
+    }
+
+    public void beginFrame() {
+        if (!enabled) return;
+
+        frame = (frame + 1) % capacity;
+        for (long[] nanos : phaseNanos) {
+            nanos[frame] = 0;
+        }
+        for (long[] nanos : jobNanos) {
+            nanos[frame] = 0;
+        }
+        renderCalls[frame] = 0;
+        drawnGlyphs[frame] = 0;
+        culledGlyphs[frame] = 0;
+        glProfiler.reset();
+        begin(Phase.FRAME);
+    }
+
+    public void endFrame() {
+        if (!enabled || frame < 0) return;
+
+        end(Phase.FRAME);
+        drawCalls[frame] = glProfiler.getDrawCalls();
+        textureBindings[frame] = glProfiler.getTextureBindings();
+        shaderSwitches[frame] = glProfiler.getShaderSwitches();
+        if (recorded < capacity) recorded++;
+    }
+
+    public void begin(Phase phase) {
+        if (!enabled) return;
+        phaseStarts[phase.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the matching {@link #begin(Phase)}; a phase may run several times per frame.
+     */
+    public void end(Phase phase) {
+        if (!enabled || frame < 0) return;
+        phaseNanos[phase.ordinal()][frame] += System.nanoTime() - phaseStarts[phase.ordinal()];
+    }
+
+    /**
+     * Adds the time of a job to the frame; a job may run in several steps per frame.
+     */
+    @Override
+    public void jobTimed(String name, long nanos) {
+        if (!enabled || frame < 0) return;
+        int column = jobColumns.get(name, -1);
+        if (column < 0) {
+            // New names show up in the first frames only, the jobs of a step are the same every step
+            column = jobNames.size;
+            jobNames.add(name);
+            jobNanos.add(new long[capacity]);
+            jobColumns.put(name, column);
+        }
+        jobNanos.get(column)[frame] += nanos;
+    }
+
+    /**
+     * @param calls the value of {@code SpriteBatch.renderCalls} read right after {@code batch.end()}
+     */
+    public void addRenderCalls(int calls) {
+        if (!enabled || frame < 0) return;
+        renderCalls[frame] += calls;
+    }
+
+    /**
+     * @param drawn glyphs submitted to the batch
+     * @param culled glyphs skipped because they were off screen or fully transparent
+     */
+    public void addGlyphCounts(int drawn, int culled) {
+        if (!enabled || frame < 0) return;
+        drawnGlyphs[frame] += drawn;
+        culledGlyphs[frame] += culled;
+    }
+
+    public int getRecordedFrames() {
+        return recorded;
+    }
+
+    /**
+     * @param phase the phase
+     * @param percentile the percentile, from 0 to 100
+     * @return the phase time at that percentile over the recorded frames, in milliseconds
+     */
+    public float getPercentileMillis(Phase phase, float percentile) {
+        return percentileMillis(phaseNanos[phase.ordinal()], percentile);
+    }
+
+    /**
+     * @return how many jobs were timed, see {@link #getJobName(int)}
+     */
+    public int getJobCount() {
+        return jobNames.size;
+    }
+
+    /**
+     * @param job the index of the job, from 0 to {@link #getJobCount()}
+     * @return the job's name
+     */
+    public String getJobName(int job) {
+        return jobNames.get(job);
+    }
+
+    /**
+     * @param job the index of the job, from 0 to {@link #getJobCount()}
+     * @param percentile the percentile, from 0 to 100
+     * @return the job's time at that percentile over the recorded frames, in milliseconds
+     */
+    public float getJobPercentileMillis(int job, float percentile) {
+        return percentileMillis(jobNanos.get(job), percentile);
+    }
+
+    private float percentileMillis(long[] nanos, float percentile) {
+        if (recorded == 0) return 0f;
+
+        System.arraycopy(nanos, 0, scratch, 0, recorded);
+        Arrays.sort(scratch, 0, recorded);
+        int rank = (int) Math.ceil(percentile / 100f * recorded) - 1;
+        rank = Math.max(0, Math.min(recorded - 1, rank));
+        return scratch[rank] / 1_000_000f;
+    }
+
+    public int getLastDrawCalls() {
+        return frame < 0 ? 0 : drawCalls[lastCompleteFrame()];
+    }
+
+    public int getLastTextureBindings() {
+        return frame < 0 ? 0 : textureBindings[lastCompleteFrame()];
+    }
+
+    public int getLastShaderSwitches() {
+        return frame < 0 ? 0 : shaderSwitches[lastCompleteFrame()];
+    }
+
+    public int getLastRenderCalls() {
+        return frame < 0 ? 0 : renderCalls[lastCompleteFrame()];
+    }
+
+    public int getLastDrawnGlyphs() {
+        return frame < 0 ? 0 : drawnGlyphs[lastCompleteFrame()];
+    }
+
+    public int getLastCulledGlyphs() {
+        return frame < 0 ? 0 : culledGlyphs[lastCompleteFrame()];
+    }
+
+    private int lastCompleteFrame() {
+        return (frame - 1 + capacity) % capacity;
+    }
+
+    /**
+     * Writes every recorded frame, oldest first, as CSV with one column per phase and one per job in milliseconds.
+     * @param file the file to write
+     */
+    public void writeCsv(FileHandle file) throws IOException {
+        try (Writer writer = file.writer(false, "UTF-8")) {
+            writer.write("frame");
+            for (Phase phase : PHASES) {
+                writer.write(',');
+                writer.write(phase.name().toLowerCase());
+                writer.write("_ms");
+            }
+            for (String name : jobNames) {
+                writer.write(",job_");
+                writer.write(name.replace(' ', '_'));
+                writer.write("_ms");
+            }
+            writer.write(",draw_calls,texture_bindings,shader_switches,batch_render_calls,glyphs_drawn,glyphs_culled\n");
+
+            int oldest = recorded < capacity ? 0 : (frame + 1) % capacity;
+            for (int n = 0; n < recorded; n++) {
+                int i = (oldest + n) % capacity;
+                writer.write(Integer.toString(n));
+                for (long[] nanos : phaseNanos) {
+                    writer.write(',');
+                    writer.write(Float.toString(nanos[i] / 1_000_000f));
+                }
+                for (long[] nanos : jobNanos) {
+                    writer.write(',');
+                    writer.write(Float.toString(nanos[i] / 1_000_000f));
+                }
+                writer.write(',' + Integer.toString(drawCalls[i]) + ',' + textureBindings[i] + ','
+                        + shaderSwitches[i] + ',' + renderCalls[i] + ',' + drawnGlyphs[i] + ',' + culledGlyphs[i] + '\n');
+            }
+        }
+    }
+}
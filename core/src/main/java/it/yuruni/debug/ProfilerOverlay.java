@@ -0,0 +1,123 @@
+package it.yuruni.debug;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.TimeUtils;
+import it.yuruni.jobs.JobSystem;
+
+import java.io.IOException;
+
+/**
+ * On-screen view of a {@link FrameProfiler}. F3 toggles the overlay and profiling, F4 dumps the recorded
+ * frames to a CSV file in the local storage, F5 switches the {@link JobSystem} between parallel and serial.
+ */
+public class ProfilerOverlay {
+    private static final int REFRESH_FRAMES = 30; // Percentiles are re-sorted twice a second at 60 fps
+
+    private final FrameProfiler profiler;
+    private final JobSystem jobs;
+    private final SpriteBatch batch;
+    private final BitmapFont font;
+    private final OrthographicCamera camera;
+    private final StringBuilder text = new StringBuilder();
+    private int framesSinceRefresh = REFRESH_FRAMES;
+
+    /**
+     * @param jobs the job system F5 switches to serial mode and back
+     */
+    public ProfilerOverlay(FrameProfiler profiler, JobSystem jobs) {
+        this.profiler = profiler;
+        this.jobs = jobs;
+        this.batch = new SpriteBatch();
+        this.font = new BitmapFont();
+        this.font.setColor(Color.LIME);
+        this.camera = new OrthographicCamera();
+        this.camera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    }
+
+    /**
+     * Handles the toggle, dump and job mode keys. Call once per frame.
+     */
+    public void handleInput() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            profiler.setEnabled(!profiler.isEnabled());
+            framesSinceRefresh = REFRESH_FRAMES;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4) && profiler.isEnabled()) {
+            String name = "profiler/frames-" + TimeUtils.millis() + ".csv";
+            try {
+                profiler.writeCsv(Gdx.files.local(name));
+                Gdx.app.log("FrameProfiler", "Wrote " + profiler.getRecordedFrames() + " frames to " + name);
+            } catch (IOException e) {
+                Gdx.app.error("FrameProfiler", "Could not write " + name, e);
+            }
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F5) && profiler.isEnabled()) {
+            jobs.setSerial(!jobs.isSerial());
+            framesSinceRefresh = REFRESH_FRAMES;
+        }
+    }
+
+    public void render() {
+        if (!profiler.isEnabled()) return;
+
+        if (++framesSinceRefresh >= REFRESH_FRAMES) {
+            framesSinceRefresh = 0;
+            rebuildText();
+        }
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        font.draw(batch, text, 10, camera.viewportHeight - 10);
+        batch.end();
+    }
+
+    private void rebuildText() {
+        text.setLength(0);
+        text.append("FPS ").append(Gdx.graphics.getFramesPerSecond())
+                .append("   frames ").append(profiler.getRecordedFrames()).append("   F4: dump CSV\n");
+        text.append("jobs ").append(jobs.isSerial() ? "serial" : "parallel").append(" on ")
+                .append(jobs.getParallelism()).append(" threads   F5: switch\n");
+        for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+            text.append(phase.label).append("  p50 ");
+            appendMillis(profiler.getPercentileMillis(phase, 50));
+            text.append("  p99 ");
+            appendMillis(profiler.getPercentileMillis(phase, 99));
+            text.append('\n');
+        }
+        for (int job = 0; job < profiler.getJobCount(); job++) {
+            text.append("  job ").append(profiler.getJobName(job)).append("  p50 ");
+            appendMillis(profiler.getJobPercentileMillis(job, 50));
+            text.append("  p99 ");
+            appendMillis(profiler.getJobPercentileMillis(job, 99));
+            text.append('\n');
+        }
+        text.append("draw calls ").append(profiler.getLastDrawCalls())
+                .append("   texture binds ").append(profiler.getLastTextureBindings())
+                .append("   shader switches ").append(profiler.getLastShaderSwitches())
+                .append("   batch flushes ").append(profiler.getLastRenderCalls()).append('\n');
+        text.append("glyphs drawn ").append(profiler.getLastDrawnGlyphs())
+                .append("   culled ").append(profiler.getLastCulledGlyphs());
+    }
+
+    private void appendMillis(float millis) {
+        int hundredths = Math.round(millis * 100);
+        text.append(hundredths / 100).append('.');
+        int fraction = hundredths % 100;
+        if (fraction < 10) text.append('0');
+        text.append(fraction).append(" ms");
+    }
+
+    public void resize(int width, int height) {
+        camera.setToOrtho(false, width, height);
+    }
+
+    public void dispose() {
+        batch.dispose();
+        font.dispose();
+    }
+}
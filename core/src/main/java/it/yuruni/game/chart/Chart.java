@@ -0,0 +1,119 @@
+package it.yuruni.game.chart;
+
+/**
+ * The notes of a level: one note per character to type, sorted by time.
+ * Notes are stored as parallel primitive arrays, and the words they belong to as one shared character array,
+ * so a chart of any size is a handful of objects. Use {@link ChartLoader} to read one.
+ */
+public final class Chart {
+    private final String title;
+    private final float bpm;
+    private final float offset;
+
+    final float[] times;
+    final char[] characters;
+    final byte[] lanes;
+    final int[] wordIds;
+    final int[] wordStarts; // wordCount + 1 entries, word i is wordChars[wordStarts[i], wordStarts[i + 1])
+    final char[] wordChars;
+
+    Chart(String title, float bpm, float offset, float[] times, char[] characters, byte[] lanes, int[] wordIds,
+          int[] wordStarts, char[] wordChars) {
+        this.title = title;
+        this.bpm = bpm;
+        this.offset = offset;
+        this.times = times;
+        this.characters = characters;
+        this.lanes = lanes;
+        this.wordIds = wordIds;
+        this.wordStarts = wordStarts;
+        this.wordChars = wordChars;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return the tempo the chart was written against, 0 if it uses plain seconds only
+     */
+    public float getBpm() {
+        return bpm;
+    }
+
+    /**
+     * @return the song position of beat 0 in seconds
+     */
+    public float getOffset() {
+        return offset;
+    }
+
+    public int getNoteCount() {
+        return times.length;
+    }
+
+    public int getWordCount() {
+        return wordStarts.length - 1;
+    }
+
+    /**
+     * @param note the note index
+     * @return the song position of the note in seconds
+     */
+    public float getTime(int note) {
+        return times[note];
+    }
+
+    /**
+     * @param note the note index
+     * @return the character to type
+     */
+    public char getCharacter(int note) {
+        return characters[note];
+    }
+
+    public int getLane(int note) {
+        return lanes[note];
+    }
+
+    /**
+     * @param note the note index
+     * @return the id of the word the note belongs to
+     */
+    public int getWordId(int note) {
+        return wordIds[note];
+    }
+
+    /**
+     * @param wordId a word id
+     * @return the word, allocated on each call
+     */
+    public String getWord(int wordId) {
+        return new String(wordChars, wordStarts[wordId], wordStarts[wordId + 1] - wordStarts[wordId]);
+    }
+
+    /**
+     * @param time a song position in seconds
+     * @return the index of the first note at or after the time, {@link #getNoteCount()} if there is none
+     */
+    public int firstNoteAtOrAfter(float time) {
+        int low = 0, high = times.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * The notes in [from, to) are the indices [firstNoteAtOrAfter(from), firstNoteAtOrAfter(to)).
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the number of notes in the range
+     */
+    public int countNotes(float from, float to) {
+        if (to <= from) return 0;
+        return firstNoteAtOrAfter(to) - firstNoteAtOrAfter(from);
+    }
+}
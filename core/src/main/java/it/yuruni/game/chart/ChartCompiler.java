@@ -0,0 +1,221 @@
+package it.yuruni.game.chart;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Turns chart sources into {@link Chart}s and the binary form {@link ChartLoader} maps.
+ * <p>
+ * A source is a text file with one entry per line; # starts a comment.
+ * <pre>
+ * title: SECRET BOSS
+ * bpm: 220            # needed for beat times
+ * offset: 18.0        # song position of beat 0 in seconds
+ * spacing: b0.5       # time between the characters of a word, default 0.1 seconds
+ * 18.0 hello          # a word at 18 seconds, each character is one note
+ * b4 world 1          # a word on beat 4, in lane 1
+ * </pre>
+ * Times are seconds of song position, or beats when prefixed with b. Headers apply to the lines after them.
+ * <p>
+ * Binary layout, little endian: magic "LFCH", version, bpm, offset, title length, note count, word count,
+ * word character count, then the arrays times (float), word ids (int), word starts (int), characters (char),
+ * word characters (char), lanes (byte) and the title (char).
+ */
+public final class ChartCompiler {
+    public static final String SOURCE_EXTENSION = "lfc";
+    public static final String BINARY_EXTENSION = "lfcb";
+    static final int MAGIC = 0x4C464348; // "LFCH"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final float DEFAULT_SPACING = 0.1f;
+
+    private ChartCompiler() {
+    }
+
+    /**
+     * Compiles every chart source in the given directories. Used by the {@code compileCharts} Gradle task.
+     * @param args directories holding .lfc files
+     */
+    public static void main(String[] args) {
+        for (String directory : args) {
+            File[] sources = new File(directory).listFiles((dir, name) -> name.endsWith("." + SOURCE_EXTENSION));
+            if (sources == null) continue;
+            for (File source : sources) {
+                FileHandle sourceFile = new FileHandle(source);
+                FileHandle binaryFile = sourceFile.sibling(sourceFile.nameWithoutExtension() + "." + BINARY_EXTENSION);
+                Chart chart = compile(sourceFile, binaryFile);
+                System.out.println("Compiled " + source.getName() + ": " + chart.getNoteCount() + " notes, "
+                        + chart.getWordCount() + " words");
+            }
+        }
+    }
+
+    /**
+     * @param source the chart source
+     * @param target where to write the binary chart
+     * @return the parsed chart
+     */
+    public static Chart compile(FileHandle source, FileHandle target) {
+        Chart chart = parse(source.readString("UTF-8"));
+        target.writeBytes(toBytes(chart), false);
+        return chart;
+    }
+
+    /**
+     * @param source the text of a chart source
+     * @return the chart
+     * @throws GdxRuntimeException on a malformed line, with its line number
+     */
+    public static Chart parse(String source) {
+        String title = "";
+        float bpm = 0f, offset = 0f, spacing = DEFAULT_SPACING;
+        boolean spacingInBeats = false;
+
+        // Unsorted notes while parsing
+        int noteCount = 0;
+        float[] times = new float[256];
+        char[] characters = new char[256];
+        byte[] lanes = new byte[256];
+        int[] wordIds = new int[256];
+        int wordCount = 0;
+        int[] wordStarts = new int[65];
+        StringBuilder wordChars = new StringBuilder();
+
+        String[] lines = source.split("\n");
+        for (int lineNumber = 1; lineNumber <= lines.length; lineNumber++) {
+            String line = lines[lineNumber - 1];
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            try {
+                int colon = line.indexOf(':');
+                if (colon > 0 && isHeaderKey(line, colon)) {
+                    String key = line.substring(0, colon).trim();
+                    String value = line.substring(colon + 1).trim();
+                    switch (key) {
+                        case "title" -> title = value;
+                        case "bpm" -> bpm = Float.parseFloat(value);
+                        case "offset" -> offset = Float.parseFloat(value);
+                        case "spacing" -> {
+                            spacingInBeats = value.startsWith("b");
+                            spacing = Float.parseFloat(spacingInBeats ? value.substring(1) : value);
+                        }
+                        default -> throw new GdxRuntimeException("Unknown header " + key);
+                    }
+                    continue;
+                }
+
+                String[] parts = line.split("\\s+");
+                if (parts.length < 2 || parts.length > 3) throw new GdxRuntimeException("Expected <time> <word> [lane]");
+                float time = parseTime(parts[0], bpm, offset);
+                String word = parts[1];
+                int lane = parts.length == 3 ? Integer.parseInt(parts[2]) : 0;
+                if (lane < 0 || lane > Byte.MAX_VALUE) throw new GdxRuntimeException("Lane out of range: " + lane);
+                float step = spacingInBeats ? beatsToSeconds(spacing, bpm) : spacing;
+
+                if (noteCount + word.length() > times.length) {
+                    int capacity = Math.max(times.length << 1, noteCount + word.length());
+                    times = Arrays.copyOf(times, capacity);
+                    characters = Arrays.copyOf(characters, capacity);
+                    lanes = Arrays.copyOf(lanes, capacity);
+                    wordIds = Arrays.copyOf(wordIds, capacity);
+                }
+                for (int i = 0; i < word.length(); i++, noteCount++) {
+                    times[noteCount] = time + i * step;
+                    characters[noteCount] = word.charAt(i);
+                    lanes[noteCount] = (byte) lane;
+                    wordIds[noteCount] = wordCount;
+                }
+                if (wordCount + 2 > wordStarts.length) wordStarts = Arrays.copyOf(wordStarts, wordStarts.length << 1);
+                wordStarts[wordCount] = wordChars.length();
+                wordChars.append(word);
+                wordCount++;
+            } catch (NumberFormatException e) {
+                throw new GdxRuntimeException("Chart line " + lineNumber + ": bad number in \"" + line + "\"", e);
+            } catch (GdxRuntimeException e) {
+                throw new GdxRuntimeException("Chart line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        wordStarts[wordCount] = wordChars.length();
+
+        // Sort notes by time, words listed out of order are fine; the index in the low bits keeps it stable
+        long[] order = new long[noteCount];
+        for (int i = 0; i < noteCount; i++) {
+            int bits = Float.floatToIntBits(times[i]);
+            bits ^= (bits >> 31) & 0x7FFFFFFF; // Make negative floats order correctly as signed ints
+            order[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(order);
+
+        float[] sortedTimes = new float[noteCount];
+        char[] sortedCharacters = new char[noteCount];
+        byte[] sortedLanes = new byte[noteCount];
+        int[] sortedWordIds = new int[noteCount];
+        for (int i = 0; i < noteCount; i++) {
+            int from = (int) order[i];
+            sortedTimes[i] = times[from];
+            sortedCharacters[i] = characters[from];
+            sortedLanes[i] = lanes[from];
+            sortedWordIds[i] = wordIds[from];
+        }
+
+        char[] allWordChars = new char[wordChars.length()];
+        wordChars.getChars(0, allWordChars.length, allWordChars, 0);
+        return new Chart(title, bpm, offset, sortedTimes, sortedCharacters, sortedLanes, sortedWordIds,
+                Arrays.copyOf(wordStarts, wordCount + 1), allWordChars);
+    }
+
+    private static boolean isHeaderKey(String line, int end) {
+        for (int i = 0; i < end; i++) {
+            if (!Character.isLetter(line.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static float parseTime(String value, float bpm, float offset) {
+        if (value.startsWith("b")) return offset + beatsToSeconds(Float.parseFloat(value.substring(1)), bpm);
+        return Float.parseFloat(value);
+    }
+
+    private static float beatsToSeconds(float beats, float bpm) {
+        if (bpm <= 0) throw new GdxRuntimeException("Beat times need a bpm header first");
+        return beats * 60f / bpm;
+    }
+
+    /**
+     * @param chart a chart
+     * @return the binary form
+     */
+    public static byte[] toBytes(Chart chart) {
+        int notes = chart.getNoteCount();
+        int words = chart.getWordCount();
+        String title = chart.getTitle();
+        int size = HEADER_BYTES + notes * 4 * 2 + (words + 1) * 4 + notes * 2 + chart.wordChars.length * 2 + notes
+                + title.length() * 2;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putFloat(chart.getBpm()).putFloat(chart.getOffset())
+                .putInt(title.length()).putInt(notes).putInt(words).putInt(chart.wordChars.length);
+
+        buffer.asFloatBuffer().put(chart.times);
+        buffer.position(buffer.position() + notes * 4);
+        buffer.asIntBuffer().put(chart.wordIds);
+        buffer.position(buffer.position() + notes * 4);
+        buffer.asIntBuffer().put(chart.wordStarts);
+        buffer.position(buffer.position() + (words + 1) * 4);
+        buffer.asCharBuffer().put(chart.characters);
+        buffer.position(buffer.position() + notes * 2);
+        buffer.asCharBuffer().put(chart.wordChars);
+        buffer.position(buffer.position() + chart.wordChars.length * 2);
+        buffer.put(chart.lanes);
+        buffer.asCharBuffer().put(title);
+        return buffer.array();
+    }
+}
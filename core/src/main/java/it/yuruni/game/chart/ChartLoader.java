@@ -0,0 +1,95 @@
+package it.yuruni.game.chart;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads binary charts. Files on disk are memory mapped and bulk copied straight into the chart's arrays;
+ * handles that are not plain files, such as classpath resources, are read into memory first.
+ */
+public final class ChartLoader {
+    private ChartLoader() {
+    }
+
+    /**
+     * Loads the compiled chart next to a chart source if there is one, otherwise parses the source.
+     * @param source the .lfc source file
+     * @return the chart
+     */
+    public static Chart loadOrCompile(FileHandle source) {
+        FileHandle binary = source.sibling(source.nameWithoutExtension() + "." + ChartCompiler.BINARY_EXTENSION);
+        if (binary.exists()) return load(binary);
+        return ChartCompiler.parse(source.readString("UTF-8"));
+    }
+
+    /**
+     * @param file a binary chart
+     * @return the chart
+     * @throws GdxRuntimeException if the file is not a chart of the current version
+     */
+    public static Chart load(FileHandle file) {
+        File onDisk = file.type() == Files.FileType.Classpath ? null : file.file();
+        if (onDisk == null || !onDisk.isFile()) {
+            return read(ByteBuffer.wrap(file.readBytes()), file);
+        }
+        try (FileChannel channel = FileChannel.open(onDisk.toPath(), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Could not read chart " + file, e);
+        }
+    }
+
+    private static Chart read(ByteBuffer buffer, FileHandle file) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != ChartCompiler.MAGIC) throw new GdxRuntimeException(file + " is not a chart.");
+            int version = buffer.getInt();
+            if (version != ChartCompiler.VERSION) throw new GdxRuntimeException("Unsupported chart version " + version + " in " + file);
+            float bpm = buffer.getFloat();
+            float offset = buffer.getFloat();
+            int titleLength = buffer.getInt();
+            int notes = buffer.getInt();
+            int words = buffer.getInt();
+            int wordCharCount = buffer.getInt();
+            long expected = ChartCompiler.HEADER_BYTES + notes * 8L + (words + 1) * 4L + notes * 2L
+                    + wordCharCount * 2L + notes + titleLength * 2L;
+            if (titleLength < 0 || notes < 0 || words < 0 || wordCharCount < 0 || expected > buffer.limit()) {
+                throw new GdxRuntimeException("Truncated chart " + file);
+            }
+
+            float[] times = new float[notes];
+            int[] wordIds = new int[notes];
+            int[] wordStarts = new int[words + 1];
+            char[] characters = new char[notes];
+            char[] wordChars = new char[wordCharCount];
+            byte[] lanes = new byte[notes];
+            char[] title = new char[titleLength];
+
+            buffer.asFloatBuffer().get(times);
+            buffer.position(buffer.position() + notes * 4);
+            buffer.asIntBuffer().get(wordIds);
+            buffer.position(buffer.position() + notes * 4);
+            buffer.asIntBuffer().get(wordStarts);
+            buffer.position(buffer.position() + (words + 1) * 4);
+            buffer.asCharBuffer().get(characters);
+            buffer.position(buffer.position() + notes * 2);
+            buffer.asCharBuffer().get(wordChars);
+            buffer.position(buffer.position() + wordCharCount * 2);
+            buffer.get(lanes);
+            buffer.asCharBuffer().get(title);
+
+            return new Chart(new String(title), bpm, offset, times, characters, lanes, wordIds, wordStarts, wordChars);
+        } catch (RuntimeException e) {
+            if (e instanceof GdxRuntimeException) throw e;
+            throw new GdxRuntimeException("Corrupt chart " + file, e);
+        }
+    }
+}
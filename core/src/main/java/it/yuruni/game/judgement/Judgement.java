@@ -0,0 +1,17 @@
+package it.yuruni.game.judgement;
+
+/**
+ * Grade of a single note.
+ */
+public enum Judgement {
+    PERFECT(1f),
+    GREAT(0.7f),
+    MISS(0f);
+
+    /** Contribution to the accuracy, 1 being a perfect hit. */
+    public final float weight;
+
+    Judgement(float weight) {
+        this.weight = weight;
+    }
+}
@@ -0,0 +1,191 @@
+package it.yuruni.game.judgement;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.utils.Array;
+import it.yuruni.audio.SongClock;
+import it.yuruni.game.chart.Chart;
+
+/**
+ * Judges typed characters against a {@link Chart}.
+ * As an input processor it stamps every typed character with the time the event arrived, converted to song
+ * position by the {@link SongClock}, so judgement does not depend on the frame rate and no key press is lost.
+ * {@link #submit(char, float)} takes the same path with an explicit song time, for replays and headless tests.
+ * <p>
+ * A character hits the pending note with that character closest to the input time inside the great window, so a
+ * late press for one note doesn't steal the next one it is nearer to; the candidates are found by binary search
+ * over the sorted note times. {@link #update()} turns notes the song has passed into misses.
+ */
+public class JudgementEngine extends InputAdapter {
+    private static final byte PENDING = 0;
+    private static final byte JUDGED = 1;
+
+    private final Chart chart;
+    private final JudgementWindows windows;
+    private final SongClock clock;
+    private final byte[] state;
+    private final Array<JudgementListener> listeners = new Array<>();
+
+    private int firstPending; // Every note before this one is judged or skipped
+    private int skipped;
+    private final int[] counts = new int[Judgement.values().length];
+    private int judged;
+    private float weightSum;
+    private int combo;
+    private int maxCombo;
+    private int strayInputs;
+
+    /**
+     * @param chart the notes to judge
+     * @param windows the timing windows, usually {@link JudgementWindows#forDifficulty(int)} of the level
+     * @param clock the clock input timestamps are converted with, may be null when only {@link #submit} is used
+     */
+    public JudgementEngine(Chart chart, JudgementWindows windows, SongClock clock) {
+        this.chart = chart;
+        this.windows = windows;
+        this.clock = clock;
+        this.state = new byte[chart.getNoteCount()];
+    }
+
+    public void addListener(JudgementListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(JudgementListener listener) {
+        listeners.removeValue(listener, true);
+    }
+
+    @Override
+    public boolean keyTyped(char character) {
+        if (clock == null || Character.isISOControl(character)) return false;
+        submit(character, clock.songTimeAtNanos(Gdx.input.getCurrentEventTime()));
+        return true;
+    }
+
+    /**
+     * Judges a typed character.
+     * @param character the typed character, compared case insensitively
+     * @param songTime the song position the character was typed at
+     * @return the judgement, or null if no pending note could be hit
+     */
+    public Judgement submit(char character, float songTime) {
+        float great = windows.getGreat();
+        int note = Math.max(firstPending, chart.firstNoteAtOrAfter(songTime - great));
+        int count = chart.getNoteCount();
+        char wanted = Character.toLowerCase(character);
+
+        int closest = -1;
+        float closestDistance = Float.POSITIVE_INFINITY;
+        for (; note < count && chart.getTime(note) <= songTime + great; note++) {
+            if (state[note] != PENDING || Character.toLowerCase(chart.getCharacter(note)) != wanted) continue;
+
+            // Notes are sorted, so on a tie the earlier note wins
+            float distance = Math.abs(songTime - chart.getTime(note));
+            if (distance < closestDistance) {
+                closest = note;
+                closestDistance = distance;
+            }
+        }
+
+        Judgement judgement = closest < 0 ? null : windows.judge(songTime - chart.getTime(closest));
+        if (judgement == null) {
+            strayInputs++;
+            return null;
+        }
+        judge(closest, judgement, songTime - chart.getTime(closest));
+        return judgement;
+    }
+
+    /**
+     * Leaves the notes that can no longer be hit at a song position out of the judgement, without counting them as
+     * misses; for play that starts partway into the song. Call before anything is judged.
+     * @param songTime the song position play starts at
+     */
+    public void startAt(float songTime) {
+        if (judged > 0) throw new IllegalStateException("Notes have already been judged.");
+        int first = Math.max(firstPending, chart.firstNoteAtOrAfter(songTime - windows.getGreat()));
+        for (int note = firstPending; note < first; note++) {
+            state[note] = JUDGED;
+        }
+        skipped += first - firstPending;
+        firstPending = first;
+    }
+
+    /**
+     * Misses every pending note the clock has moved past the great window of. Call once per frame.
+     */
+    public void update() {
+        update(clock.getSongTime());
+    }
+
+    /**
+     * @param songTime the current song position
+     */
+    public void update(float songTime) {
+        float lastHittable = songTime - windows.getGreat();
+        int count = chart.getNoteCount();
+        while (firstPending < count) {
+            if (state[firstPending] == PENDING) {
+                if (chart.getTime(firstPending) >= lastHittable) break;
+                judge(firstPending, Judgement.MISS, Float.NaN);
+            }
+            firstPending++;
+        }
+    }
+
+    private void judge(int note, Judgement judgement, float offset) {
+        state[note] = JUDGED;
+        counts[judgement.ordinal()]++;
+        judged++;
+        weightSum += judgement.weight;
+        if (judgement == Judgement.MISS) {
+            combo = 0;
+        } else {
+            maxCombo = Math.max(maxCombo, ++combo);
+        }
+        for (int i = 0; i < listeners.size; i++) {
+            listeners.get(i).onJudgement(note, judgement, offset);
+        }
+    }
+
+    /**
+     * @return the running accuracy over the judged notes, from 0 to 1; 1 before anything is judged
+     */
+    public float getAccuracy() {
+        return judged == 0 ? 1f : weightSum / judged;
+    }
+
+    /**
+     * @param judgement a grade
+     * @return how many notes got that grade
+     */
+    public int getCount(Judgement judgement) {
+        return counts[judgement.ordinal()];
+    }
+
+    public int getJudgedCount() {
+        return judged;
+    }
+
+    public int getCombo() {
+        return combo;
+    }
+
+    public int getMaxCombo() {
+        return maxCombo;
+    }
+
+    /**
+     * @return characters that matched no note
+     */
+    public int getStrayInputs() {
+        return strayInputs;
+    }
+
+    /**
+     * @return whether every note has been judged or skipped
+     */
+    public boolean isFinished() {
+        return judged + skipped == chart.getNoteCount();
+    }
+}
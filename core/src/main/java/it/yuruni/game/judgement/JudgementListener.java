@@ -0,0 +1,13 @@
+package it.yuruni.game.judgement;
+
+/**
+ * Receives every judgement a {@link JudgementEngine} makes, on the thread that feeds the engine.
+ */
+public interface JudgementListener {
+    /**
+     * @param note the note index in the chart
+     * @param judgement the grade
+     * @param offset hit time minus note time in seconds, NaN for misses
+     */
+    void onJudgement(int note, Judgement judgement, float offset);
+}
@@ -0,0 +1,48 @@
+package it.yuruni.game.judgement;
+
+/**
+ * Timing windows in seconds, each the largest distance from the note time that still earns the grade.
+ * Anything further than the great window cannot hit the note; once the song passes it the note is a miss.
+ */
+public final class JudgementWindows {
+    private final float perfect;
+    private final float great;
+
+    public JudgementWindows(float perfect, float great) {
+        if (perfect <= 0 || great < perfect) throw new IllegalArgumentException("Windows must be positive and perfect <= great.");
+        this.perfect = perfect;
+        this.great = great;
+    }
+
+    /**
+     * Windows that narrow as the difficulty rises, from 50/110 ms at 1 down to 23/56 ms at 10, either side of the note.
+     * @param difficulty a {@link it.yuruni.game.level.Level} difficulty, 1 to 10
+     * @return the windows
+     */
+    public static JudgementWindows forDifficulty(int difficulty) {
+        if (difficulty < 1 || difficulty > 10) {
+            throw new IllegalArgumentException("Difficulty must be between 1 and 10 (inclusive).");
+        }
+        int step = difficulty - 1;
+        return new JudgementWindows(0.050f - step * 0.003f, 0.110f - step * 0.006f);
+    }
+
+    public float getPerfect() {
+        return perfect;
+    }
+
+    public float getGreat() {
+        return great;
+    }
+
+    /**
+     * @param offset hit time minus note time in seconds
+     * @return the grade, or null if the hit is outside every window
+     */
+    public Judgement judge(float offset) {
+        float distance = Math.abs(offset);
+        if (distance <= perfect) return Judgement.PERFECT;
+        if (distance <= great) return Judgement.GREAT;
+        return null;
+    }
+}
@@ -1,19 +1,23 @@
 package it.yuruni.game.level;
 
-import com.badlogic.gdx.graphics.Texture;
-
 public class Level {
     private final String name;
     private final int difficulty;
-    private final Texture background; //TODO: Use a path cuz textures are large and loaded dynamically
+    private final String backgroundPath; // Loaded on demand through the TextureCache, backgrounds are large
+    private final String chartPath;
+
+    public Level(String name, int difficulty, String backgroundPath) {
+        this(name, difficulty, backgroundPath, null);
+    }
 
-    public Level(String name, int difficulty, Texture background) {
+    public Level(String name, int difficulty, String backgroundPath, String chartPath) {
         if (difficulty < 1 || difficulty > 10) {
             throw new IllegalArgumentException("Difficulty must be between 1 and 10 (inclusive).");
         }
         this.name = name;
         this.difficulty = difficulty;
-        this.background = background;
+        this.backgroundPath = backgroundPath;
+        this.chartPath = chartPath;
     }
 
     public String getName() {
@@ -24,13 +28,17 @@ public class Level {
         return difficulty;
     }
 
-    public Texture getBackground() {
-        return background;
+    /**
+     * @return the internal path of the background image, or null if the level has none
+     */
+    public String getBackgroundPath() {
+        return backgroundPath;
     }
 
-    public void dispose() {
-        if (background != null) {
-            background.dispose();
-        }
+    /**
+     * @return the internal path of the chart source, see {@link it.yuruni.game.chart.ChartLoader#loadOrCompile}; null if the level has none
+     */
+    public String getChartPath() {
+        return chartPath;
     }
 }
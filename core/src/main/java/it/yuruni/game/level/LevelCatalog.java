@@ -0,0 +1,138 @@
+package it.yuruni.game.level;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import it.yuruni.assets.TextureCache;
+
+/**
+ * The installed levels and the current selection. Levels only store asset paths; the background of the
+ * selected level is pinned in the {@link TextureCache} and the backgrounds of its neighbours are requested
+ * ahead of time, so moving through the list rarely waits on a texture while memory stays bounded by the
+ * cache budget however many levels there are.
+ */
+public class LevelCatalog {
+    public static final int DEFAULT_PREFETCH_RADIUS = 2;
+
+    private final Array<Level> levels = new Array<>();
+    private final TextureCache textures;
+    private int prefetchRadius = DEFAULT_PREFETCH_RADIUS;
+    private int selected = -1;
+
+    /**
+     * @param textures the cache backgrounds are streamed through, null to leave them out
+     */
+    public LevelCatalog(TextureCache textures) {
+        this.textures = textures;
+    }
+
+    /**
+     * Reads a catalog file, a JSON array of objects with "name", "difficulty" and optionally "background" and "chart".
+     * @param file the catalog file
+     * @param textures the cache backgrounds are streamed through, null to leave them out
+     * @return the catalog, nothing is selected yet
+     */
+    public static LevelCatalog load(FileHandle file, TextureCache textures) {
+        LevelCatalog catalog = new LevelCatalog(textures);
+        for (JsonValue entry : new JsonReader().parse(file)) {
+            catalog.add(new Level(entry.getString("name"), entry.getInt("difficulty"), entry.getString("background", null),
+                    entry.getString("chart", null)));
+        }
+        return catalog;
+    }
+
+    public void add(Level level) {
+        levels.add(level);
+    }
+
+    public int size() {
+        return levels.size;
+    }
+
+    public Level get(int index) {
+        return levels.get(index);
+    }
+
+    /**
+     * Selects a level, pins its background and prefetches the backgrounds around it.
+     * @param index the level index
+     */
+    public void select(int index) {
+        if (index < 0 || index >= levels.size) throw new IllegalArgumentException("No level at index " + index);
+        if (index == selected) return;
+
+        // Pin the new background before releasing the old one, they may be the same image
+        String path = background(levels.get(index));
+        if (path != null) textures.acquire(path);
+        if (selected >= 0) {
+            String previous = background(levels.get(selected));
+            if (previous != null) textures.release(previous);
+        }
+        selected = index;
+
+        // Nearest neighbours last, so they are the most recently used and evicted last
+        for (int distance = prefetchRadius; distance >= 1; distance--) {
+            prefetch(index + distance);
+            prefetch(index - distance);
+        }
+    }
+
+    public void selectNext() {
+        if (levels.size > 0) select(selected < 0 ? 0 : (selected + 1) % levels.size);
+    }
+
+    public void selectPrevious() {
+        if (levels.size > 0) select(selected <= 0 ? levels.size - 1 : selected - 1);
+    }
+
+    private void prefetch(int index) {
+        if (levels.size <= 1) return;
+        String path = background(levels.get(Math.floorMod(index, levels.size)));
+        if (path != null) textures.request(path);
+    }
+
+    /**
+     * @return the selected level, or null if nothing is selected
+     */
+    public Level getSelected() {
+        return selected < 0 ? null : levels.get(selected);
+    }
+
+    public int getSelectedIndex() {
+        return selected;
+    }
+
+    /**
+     * @return the selected level's background, or null while it is still loading or if it has none
+     */
+    public Texture getSelectedBackground() {
+        Level level = getSelected();
+        String path = level == null ? null : background(level);
+        return path == null ? null : textures.get(path);
+    }
+
+    /**
+     * @param prefetchRadius how many levels on each side of the selection to prefetch
+     */
+    public void setPrefetchRadius(int prefetchRadius) {
+        if (prefetchRadius < 0) throw new IllegalArgumentException("Prefetch radius cannot be negative.");
+        this.prefetchRadius = prefetchRadius;
+    }
+
+    // The background streamed for a level; null if it has none or there is no cache to stream it through
+    private String background(Level level) {
+        return textures == null ? null : level.getBackgroundPath();
+    }
+
+    /**
+     * Releases the selected background.
+     */
+    public void clearSelection() {
+        if (selected < 0) return;
+        String path = background(levels.get(selected));
+        if (path != null) textures.release(path);
+        selected = -1;
+    }
+}
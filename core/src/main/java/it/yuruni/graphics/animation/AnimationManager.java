@@ -1,274 +1,230 @@
 package it.yuruni.graphics.animation;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Pool;
 import it.yuruni.Main;
-import it.yuruni.Utils;
-import it.yuruni.graphics.animation.Easing;
+import it.yuruni.graphics.render.InstancedGlyphRenderer;
+import it.yuruni.jobs.JobSystem;
 
 public class AnimationManager {
+    private static final int GLYPH_GRAIN = 512; // Glyphs updated or hit tested per parallel range
+
+    private final TweenEngine engine = new TweenEngine();
+    private final Array<Sequence> sequences = new Array<>();
+    private final JobSystem jobs;
+    private final Rectangle bounds = new Rectangle();
+    private int drawnGlyphs;
+    private int culledGlyphs;
+    private Glyph[] rangeGlyphs; // draw order of the running parallel loop, read by its ranges
+    private float glyphDelta;
+    private final JobSystem.RangeTask glyphUpdate = this::updateGlyphs;
+    private final JobSystem.RangeTask hitboxRefresh = this::refreshHitboxes;
 
-    private final Array<Animation> animations = new Array<>();
-    private final Pool<Animation> animationPool = new Pool<Animation>() {
-        @Override
-        protected Animation newObject() {
-            return new Animation();
-        }
-    };
+    /**
+     * Runs everything on the calling thread.
+     */
+    public AnimationManager() {
+        this(JobSystem.SERIAL);
+    }
+
+    /**
+     * @param jobs splits tween evaluation, glyph updates and hitbox refreshes over the cores
+     */
+    public AnimationManager(JobSystem jobs) {
+        this.jobs = jobs;
+    }
 
+    /**
+     * Advances the tweens, spread over disjoint sets of glyphs, then the playing sequences, which win over tweens
+     * on the properties their tracks drive.
+     * @param delta the step length in seconds
+     */
     public void update(float delta) {
-        for (int i = animations.size - 1; i >= 0; i--) {
-            Animation anim = animations.get(i);
-            if (anim.isFinished()) {
-                animations.removeIndex(i);
-                animationPool.free(anim);
-            } else {
-                anim.update(delta);
-            }
+        engine.update(delta, jobs);
+        for (int i = 0; i < sequences.size; i++) {
+            Sequence sequence = sequences.get(i);
+            sequence.update(delta);
+            // Done playing forward; one played backwards or paused stays until it is stopped
+            if (sequence.getSpeed() > 0f && sequence.isFinished()) sequences.removeIndex(i--);
         }
     }
 
-    public void updateAndRenderGlyphs(float delta, SpriteBatch batch) {
-        for (Glyph glyph : Main.glyphs) {
-            glyph.update(delta);
-            glyph.render(batch);
+    /**
+     * Saves the transform of every queued glyph as its previous state. Call at the start of a simulation step.
+     */
+    public void savePreviousGlyphStates() {
+        Array<Glyph> glyphs = Main.renderQueue.getDrawOrder();
+        for (int i = 0; i < glyphs.size; i++) {
+            glyphs.items[i].savePreviousState();
         }
     }
 
-    public void animateMove(Glyph target, float toX, float toY, float duration, Easing easing) {
-        Animation anim = animationPool.obtain();
-        anim.initMove(target, toX, toY, duration, easing);
-        animations.add(anim);
+    /**
+     * Updates every queued glyph by one simulation step, spread over the cores.
+     * @param delta the step length in seconds
+     */
+    public void updateGlyphs(float delta) {
+        Array<Glyph> glyphs = Main.renderQueue.getDrawOrder();
+        rangeGlyphs = glyphs.items;
+        glyphDelta = delta;
+        jobs.parallelFor(glyphs.size, GLYPH_GRAIN, glyphUpdate);
     }
 
-    public void animateFade(Glyph target, float toOpacity, float duration, Easing easing) {
-        Animation anim = animationPool.obtain();
-        anim.initFade(target, toOpacity, duration, easing);
-        animations.add(anim);
+    private void updateGlyphs(int from, int to) {
+        Glyph[] glyphs = rangeGlyphs;
+        for (int i = from; i < to; i++) {
+            glyphs[i].update(glyphDelta);
+        }
     }
 
-    public void animateScale(Glyph target, float toScaleX, float toScaleY, float duration, Easing easing) {
-        Animation anim = animationPool.obtain();
-        anim.initScale(target, toScaleX, toScaleY, duration, easing);
-        animations.add(anim);
+    /**
+     * Brings the hitbox of every queued glyph up to date, in parallel, so that hit tests only read. The state
+     * glyphs share, like their parents' world transforms, is updated first on the calling thread.
+     */
+    public void refreshHitboxes() {
+        Array<Glyph> glyphs = Main.renderQueue.getDrawOrder();
+        for (int i = 0; i < glyphs.size; i++) {
+            glyphs.items[i].prepareHitboxRefresh();
+        }
+        rangeGlyphs = glyphs.items;
+        jobs.parallelFor(glyphs.size, GLYPH_GRAIN, hitboxRefresh);
     }
 
-    public void animateRotation(Glyph target, float toRotation, float duration, Easing easing) {
-        Animation anim = animationPool.obtain();
-        anim.initRotation(target, toRotation, duration, easing);
-        animations.add(anim);
+    private void refreshHitboxes(int from, int to) {
+        Glyph[] glyphs = rangeGlyphs;
+        for (int i = from; i < to; i++) {
+            glyphs[i].getHitbox();
+        }
     }
 
-    public void animatePulse(Glyph target, float bpm, float magnitude) {
-        Animation anim = animationPool.obtain();
-        anim.initPulse(target, bpm, magnitude);
-        animations.add(anim);
+    /**
+     * Draws every queued glyph in render order.
+     * @param batch the started batch
+     * @param interpolation the blend between the previous and the current simulated state, see {@link Glyph#render(SpriteBatch, float)}
+     */
+    public void renderGlyphs(SpriteBatch batch, float interpolation) {
+        renderGlyphs(batch, interpolation, null);
     }
 
     /**
-     * Immediately stops and removes all animations running on the specified glyph.
-     * @param target The glyph whose animations should be stopped.
+     * Draws the queued glyphs that can be seen in render order. Hidden and fully transparent glyphs and glyphs
+     * outside the view are skipped before any vertices are generated.
+     * @param batch the started batch
+     * @param interpolation the blend between the previous and the current simulated state, see {@link Glyph#render(SpriteBatch, float)}
+     * @param view the world area on screen, see {@link it.yuruni.graphics.effects.CameraManager#getViewBounds(Rectangle)}; null draws everything visible
      */
-    public void stopAllAnimations(Glyph target) {
-        for (int i = animations.size - 1; i >= 0; i--) {
-            Animation anim = animations.get(i);
-            if (anim.getAnimatedGlyph() == target) {
-                animations.removeIndex(i);
-                animationPool.free(anim);
+    public void renderGlyphs(SpriteBatch batch, float interpolation, Rectangle view) {
+        drawnGlyphs = 0;
+        culledGlyphs = 0;
+        Array<Glyph> glyphs = Main.renderQueue.getDrawOrder();
+        for (int i = 0; i < glyphs.size; i++) {
+            Glyph glyph = glyphs.items[i];
+            if (!glyph.isVisibleInHierarchy() || glyph.getDrawAlpha(interpolation) <= 0f
+                    || view != null && !glyph.getDrawBounds(interpolation, bounds).overlaps(view)) {
+                culledGlyphs++;
+                continue;
             }
+            glyph.render(batch, interpolation);
+            drawnGlyphs++;
         }
     }
 
-    private static class Animation implements Pool.Poolable {
-        private Glyph target; // Changed from AnimatedGlyph
-        private Easing easing;
-        private float duration;
-        private float time;
-
-        // Position
-        private float startX, startY;
-        private float toX, toY;
-
-        // Opacity
-        private float startOpacity, toOpacity;
-
-        // Scale
-        private float startScaleX, startScaleY;
-        private float toScaleX, toScaleY;
-
-        // Rotation
-        private float startRotation, toRotation;
-
-        // Pulse
-        private boolean isPulseAnimation = false;
-        private float bpm;
-        private float magnitude;
-
-
-        public void initMove(Glyph target, float toX, float toY, float duration, Easing easing) { // Changed from AnimatedGlyph
-            this.target = target;
-            this.duration = duration;
-            this.easing = easing;
-            this.time = 0;
-
-            this.startX = target.getX();
-            this.startY = target.getY();
-            this.toX = toX;
-            this.toY = toY;
-
-            this.toOpacity = Float.NaN;
-            this.toScaleX = Float.NaN;
-            this.toScaleY = Float.NaN;
-            this.toRotation = Float.NaN;
-        }
-
-        public void initFade(Glyph target, float toOpacity, float duration, Easing easing) { // Changed from AnimatedGlyph
-            this.target = target;
-            this.duration = duration;
-            this.easing = easing;
-            this.time = 0;
-
-            this.startOpacity = target.getAlpha();
-            this.toOpacity = toOpacity;
-
-            this.toX = Float.NaN;
-            this.toY = Float.NaN;
-            this.toScaleX = Float.NaN;
-            this.toScaleY = Float.NaN;
-            this.toRotation = Float.NaN;
-        }
-
-        public void initScale(Glyph target, float toScaleX, float toScaleY, float duration, Easing easing) { // Changed from AnimatedGlyph
-            this.target = target;
-            this.duration = duration;
-            this.easing = easing;
-            this.time = 0;
-
-            this.startScaleX = target.getScaleX();
-            this.startScaleY = target.getScaleY();
-            this.toScaleX = toScaleX;
-            this.toScaleY = toScaleY;
-
-            this.toX = Float.NaN;
-            this.toY = Float.NaN;
-            this.toOpacity = Float.NaN;
-            this.toRotation = Float.NaN;
-        }
-
-        public void initPulse(Glyph target, float bpm, float magnitude) {
-            this.target = target;
-            this.duration = Float.POSITIVE_INFINITY; // Makes it run indefinitely
-            this.easing = null; // Easing is not used for pulsing
-            this.time = 0;
-
-            this.startScaleX = target.getScaleX();
-            this.startScaleY = target.getScaleY();
-            this.bpm = bpm;
-            this.magnitude = magnitude;
-
-            this.isPulseAnimation = true;
-
-            // Invalidate other animation types
-            this.toX = Float.NaN;
-            this.toY = Float.NaN;
-            this.toOpacity = Float.NaN;
-            this.toRotation = Float.NaN;
-            this.toScaleX = Float.NaN; // This is important to distinguish from a regular scale
-            this.toScaleY = Float.NaN;
-        }
-
-        public void initRotation(Glyph target, float toRotation, float duration, Easing easing) { // Changed from AnimatedGlyph
-            this.target = target;
-            this.duration = duration;
-            this.easing = easing;
-            this.time = 0;
-
-            this.startRotation = target.getRotation();
-            this.toRotation = toRotation;
+    /**
+     * Draws the queued glyphs that can be seen in render order, like {@link #renderGlyphs(SpriteBatch, float, Rectangle)},
+     * with their transforms done on the GPU. Glyphs the renderer can't draw, such as text, go through the batch
+     * in between, so the order is kept.
+     * @param renderer the started renderer
+     * @param batch a batch with the same projection that is not started; it is started and ended as needed
+     * @param interpolation the blend between the previous and the current simulated state, see {@link Glyph#render(SpriteBatch, float)}
+     * @param view the world area on screen; null draws everything visible
+     */
+    public void renderGlyphs(InstancedGlyphRenderer renderer, SpriteBatch batch, float interpolation, Rectangle view) {
+        drawnGlyphs = 0;
+        culledGlyphs = 0;
+        Array<Glyph> glyphs = Main.renderQueue.getDrawOrder();
+        for (int i = 0; i < glyphs.size; i++) {
+            Glyph glyph = glyphs.items[i];
+            if (!glyph.isVisibleInHierarchy() || glyph.getDrawAlpha(interpolation) <= 0f
+                    || view != null && !glyph.getDrawBounds(interpolation, bounds).overlaps(view)) {
+                culledGlyphs++;
+                continue;
+            }
+            drawnGlyphs++;
+            if (batch.isDrawing()) batch.end(); // Batched glyphs come before anything queued next
+            if (glyph.renderInstanced(renderer, interpolation)) continue;
 
-            this.toX = Float.NaN;
-            this.toY = Float.NaN;
-            this.toScaleX = Float.NaN;
-            this.toScaleY = Float.NaN;
-            this.toOpacity = Float.NaN;
+            renderer.flush(); // Glyphs queued on the renderer come first
+            batch.begin();
+            glyph.render(batch, interpolation);
         }
+        if (batch.isDrawing()) batch.end();
+    }
 
-        public void update(float delta) {
-            if (isFinished()) return;
-
-            time += delta;
-
-            if (isPulseAnimation) {
-                float beatDuration = 60f / bpm;
-                float timeInBeat = time % beatDuration;
-                float beatProgress = timeInBeat / beatDuration;
-
-                // A sine wave gives a smooth 0 -> 1 -> 0 pulse over the beat duration
-                float pulseProgress = (float) Math.sin(beatProgress * Math.PI);
-
-                float pulseAmountX = (startScaleX * magnitude) - startScaleX;
-                float pulseAmountY = (startScaleY * magnitude) - startScaleY;
+    /**
+     * @return how many glyphs the last {@link #renderGlyphs} call drew
+     */
+    public int getDrawnGlyphCount() {
+        return drawnGlyphs;
+    }
 
-                target.setScaleX(startScaleX + pulseAmountX * pulseProgress);
-                target.setScaleY(startScaleY + pulseAmountY * pulseProgress);
-                return; // Pulse animation is done for this frame
-            }
+    /**
+     * @return how many glyphs the last {@link #renderGlyphs} call skipped
+     */
+    public int getCulledGlyphCount() {
+        return culledGlyphs;
+    }
 
-            float progress = Math.min(1f, time / duration);
-            float easedProgress = Utils.applyEasing(progress, this.easing);
+    public void animateMove(Glyph target, float toX, float toY, float duration, Easing easing) {
+        engine.addMove(target, toX, toY, duration, easing);
+    }
 
-            if (!Float.isNaN(toX)) {
-                target.setX(startX + (toX - startX) * easedProgress);
-            }
-            if (!Float.isNaN(toY)) {
-                target.setY(startY + (toY - startY) * easedProgress);
-            }
-            if (!Float.isNaN(toOpacity)) {
-                target.setAlpha(startOpacity + (toOpacity - startOpacity) * easedProgress);
-            }
-            if (!Float.isNaN(toScaleX)) {
-                target.setScaleX(startScaleX + (toScaleX - startScaleX) * easedProgress);
-            }
-            if (!Float.isNaN(toScaleY)) {
-                target.setScaleY(startScaleY + (toScaleY - startScaleY) * easedProgress);
-            }
-            if (!Float.isNaN(toRotation)) {
-                target.setRotation(startRotation + (toRotation - startRotation) * easedProgress);
-            }
+    public void animateFade(Glyph target, float toOpacity, float duration, Easing easing) {
+        engine.addFade(target, toOpacity, duration, easing);
+    }
 
-            if (progress >= 1f) {
-                time = duration; // Ensure time is exactly duration when finished
-            }
-        }
+    public void animateScale(Glyph target, float toScaleX, float toScaleY, float duration, Easing easing) {
+        engine.addScale(target, toScaleX, toScaleY, duration, easing);
+    }
 
-        public boolean isFinished() {
-            if (isPulseAnimation) {
-                return false; // Pulse animations run indefinitely by default
-            }
-            return time >= duration;
-        }
+    public void animateRotation(Glyph target, float toRotation, float duration, Easing easing) {
+        engine.addRotation(target, toRotation, duration, easing);
+    }
 
-        public Glyph getAnimatedGlyph() { // Changed from AnimatedGlyph
-            return target;
-        }
+    public void animatePulse(Glyph target, float bpm, float magnitude) {
+        engine.addPulse(target, bpm, magnitude);
+    }
 
+    /**
+     * Plays a sequence at its own speed from its current time, updated with the tweens until it ends.
+     * Sequences that follow a clock instead are driven with {@link Sequence#playTo(float)} and not played here.
+     * @param sequence the sequence
+     */
+    public void play(Sequence sequence) {
+        if (!sequences.contains(sequence, true)) sequences.add(sequence);
+    }
 
-        @Override
-        public void reset() {
-            target = null;
-            easing = Easing.LINEAR;
-            duration = 0;
-            time = 0;
+    /**
+     * Stops updating a sequence; its properties keep their current values.
+     * @param sequence the sequence
+     * @return true if the sequence was playing
+     */
+    public boolean stop(Sequence sequence) {
+        return sequences.removeValue(sequence, true);
+    }
 
-            startX = startY = toX = toY = Float.NaN;
-            startOpacity = toOpacity = Float.NaN;
-            startScaleX = startScaleY = toScaleX = toScaleY = Float.NaN;
-            startRotation = toRotation = Float.NaN;
+    /**
+     * Immediately stops and removes all animations running on the specified glyph.
+     * @param target The glyph whose animations should be stopped.
+     */
+    public void stopAllAnimations(Glyph target) {
+        engine.removeAll(target);
+    }
 
-            isPulseAnimation = false;
-            bpm = 0;
-            magnitude = 0;
-        }
+    /**
+     * @return the number of tweens and pulses currently running
+     */
+    public int getActiveAnimationCount() {
+        return engine.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package it.yuruni.graphics.animation;
+
+import it.yuruni.Utils;
+
+/**
+ * Precomputed lookup tables for every {@link Easing}, evaluated with linear interpolation.
+ * {@link Utils#applyEasing(float, Easing)} stays the exact reference; the tables are sampled from it.
+ * Oscillating curves share a single one-period table indexed by phase, so even
+ * {@link Easing#EASE_OSCILLATE_INFINITE} keeps full precision without a huge table.
+ * The circular curves have an infinite slope at one end that no table resolves well; they only need
+ * a square root, so they are evaluated directly.
+ * <p>
+ * At {@link #DEFAULT_RESOLUTION} every curve stays within {@link #DEFAULT_MAX_ERROR} of the exact one. The
+ * largest errors are at the kinks of the bounce curves and the steps of the expo curves at 0 and 1; the
+ * smooth curves are within 1e-5.
+ */
+public final class EasingTable {
+    public static final int DEFAULT_RESOLUTION = 1024;
+    /** The largest difference from the exact curves at {@link #DEFAULT_RESOLUTION}. */
+    public static final float DEFAULT_MAX_ERROR = 2e-3f;
+
+    private static final Easing[] EASINGS = Easing.values();
+    // Cycles over t in [0, 1] for the oscillating curves, 0 for everything else
+    private static final int[] CYCLES = new int[EASINGS.length];
+
+    private static final boolean[] DIRECT = new boolean[EASINGS.length];
+
+    static {
+        DIRECT[Easing.EASE_IN_CIRC.ordinal()] = true;
+        DIRECT[Easing.EASE_OUT_CIRC.ordinal()] = true;
+        DIRECT[Easing.EASE_IN_OUT_CIRC.ordinal()] = true;
+
+        CYCLES[Easing.EASE_OSCILLATE_1.ordinal()] = 1;
+        CYCLES[Easing.EASE_OSCILLATE_3.ordinal()] = 3;
+        CYCLES[Easing.EASE_OSCILLATE_5.ordinal()] = 5;
+        CYCLES[Easing.EASE_OSCILLATE_INFINITE.ordinal()] = 9999;
+    }
+
+    // Published whole by setResolution; readers take the reference once, so a rebuild while tweens are
+    // evaluated on other threads never mixes two resolutions
+    private static volatile Tables tables = new Tables(DEFAULT_RESOLUTION);
+    private static volatile boolean exact = false;
+
+    private EasingTable() {
+    }
+
+    /**
+     * Rebuilds the tables. Higher resolutions are more accurate and use more memory
+     * (one float per sample per curve). Safe to call while other threads evaluate curves; they
+     * switch to the new tables as a whole.
+     *
+     * @param samples the number of intervals each curve is split into
+     */
+    public static void setResolution(int samples) {
+        if (samples < 2) throw new IllegalArgumentException("Resolution must be at least 2.");
+        tables = new Tables(samples);
+    }
+
+    public static int getResolution() {
+        return tables.resolution;
+    }
+
+    /**
+     * @param exact if true, {@link #apply} evaluates the curves exactly instead of reading the tables
+     */
+    public static void setExact(boolean exact) {
+        EasingTable.exact = exact;
+    }
+
+    public static boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @param t the progress, from 0 to 1
+     * @param easing the easing curve
+     * @return the eased progress
+     */
+    public static float apply(float t, Easing easing) {
+        return apply(t, easing.ordinal());
+    }
+
+    /**
+     * @param t the progress, from 0 to 1
+     * @param easingId the ordinal of the easing curve
+     * @return the eased progress
+     */
+    public static float apply(float t, int easingId) {
+        // Out of range progress is rare, the exact path keeps overshooting callers correct
+        if (exact || !(t >= 0f && t <= 1f)) return Utils.applyEasing(t, EASINGS[easingId]);
+        return tables.apply(t, easingId);
+    }
+
+    private static float circ(float t, int easingId) {
+        if (easingId == Easing.EASE_IN_CIRC.ordinal()) return 1 - (float) Math.sqrt(1 - t * t);
+        if (easingId == Easing.EASE_OUT_CIRC.ordinal()) return (float) Math.sqrt(1 - (t - 1) * (t - 1));
+
+        if (t < 0.5f) return (1 - (float) Math.sqrt(1 - 4 * t * t)) / 2;
+        float u = -2 * t + 2;
+        return ((float) Math.sqrt(1 - u * u) + 1) / 2;
+    }
+
+    /**
+     * Measures the largest difference between the table and the exact curve.
+     *
+     * @param easing the easing curve
+     * @param samples how many evenly spaced points to compare
+     * @return the maximum absolute error
+     */
+    public static float maxError(Easing easing, int samples) {
+        Tables tables = EasingTable.tables;
+        float maxError = 0f;
+        for (int i = 0; i <= samples; i++) {
+            float t = i / (float) samples;
+            float error = Math.abs(tables.apply(t, easing.ordinal()) - Utils.applyEasing(t, easing));
+            if (error > maxError) maxError = error;
+        }
+        return maxError;
+    }
+
+    /**
+     * @return one line per easing curve with its maximum error at the current resolution
+     */
+    public static String accuracyReport() {
+        int resolution = getResolution();
+        int samples = Math.max(100_000, resolution * 64);
+        StringBuilder report = new StringBuilder("Easing table accuracy, resolution ")
+                .append(resolution).append(", ").append(samples).append(" samples per curve\n");
+        for (Easing easing : EASINGS) {
+            report.append(String.format("%-24s max error %.3e%n", easing, maxError(easing, samples)));
+        }
+        return report.toString();
+    }
+
+    // The sampled curves at one resolution, never changed once built
+    private static final class Tables {
+        final int resolution;
+        final float[][] curves;
+        final float[] period;
+
+        Tables(int samples) {
+            curves = new float[EASINGS.length][];
+            for (Easing easing : EASINGS) {
+                if (CYCLES[easing.ordinal()] > 0 || DIRECT[easing.ordinal()]) continue;
+
+                float[] table = new float[samples + 1];
+                for (int i = 0; i <= samples; i++) {
+                    table[i] = Utils.applyEasing(i / (float) samples, easing);
+                }
+                curves[easing.ordinal()] = table;
+            }
+
+            period = new float[samples + 1];
+            for (int i = 0; i <= samples; i++) {
+                period[i] = (1 - (float) Math.cos(i / (double) samples * 2 * Math.PI)) / 2;
+            }
+            resolution = samples;
+        }
+
+        // t must be in [0, 1]
+        float apply(float t, int easingId) {
+            if (DIRECT[easingId]) return circ(t, easingId);
+
+            int cycles = CYCLES[easingId];
+            if (cycles > 0) {
+                double phase = t * (double) cycles;
+                return lookup(period, (float) (phase - Math.floor(phase)));
+            }
+            return lookup(curves[easingId], t);
+        }
+
+        private float lookup(float[] table, float t) {
+            float x = t * resolution;
+            int i = (int) x;
+            if (i >= resolution) return table[resolution];
+
+            float a = table[i];
+            return a + (table[i + 1] - a) * (x - i);
+        }
+    }
+}
@@ -1,23 +1,57 @@
 package it.yuruni.graphics.animation;
 
-public class Event {
-    private final float triggerTime;
-    private final Runnable action;
-    private boolean hasBeenTriggered = false;
+import com.badlogic.gdx.utils.Pool;
+
+public class Event implements Pool.Poolable {
+    float triggerTime;
+    Runnable action;
+    boolean hasBeenTriggered = false;
+
+    // Timeline bookkeeping, owned by EventManager
+    int handle;
+    long order;
+    int heapIndex = -1;
+    boolean pooled;
+
+    /**
+     * Creates an empty event; used by the {@link EventManager} pool.
+     */
+    Event() {
+    }
 
     public Event(float triggerTime, Runnable action) {
         this.triggerTime = triggerTime;
         this.action = action;
     }
 
+    void init(float triggerTime, Runnable action) {
+        this.triggerTime = triggerTime;
+        this.action = action;
+        this.hasBeenTriggered = false;
+    }
+
     public void trigger(float currentTime) {
         if (!hasBeenTriggered && currentTime >= triggerTime) {
-            action.run();
             hasBeenTriggered = true;
+            action.run();
         }
     }
 
     public boolean hasBeenTriggered() {
         return hasBeenTriggered;
     }
-}
\ No newline at end of file
+
+    public float getTriggerTime() {
+        return triggerTime;
+    }
+
+    @Override
+    public void reset() {
+        triggerTime = 0;
+        action = null;
+        hasBeenTriggered = false;
+        handle = 0;
+        order = 0;
+        heapIndex = -1;
+    }
+}
@@ -1,17 +1,197 @@
 package it.yuruni.graphics.animation;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.Pool;
 
+/**
+ * Time-ordered event timeline backed by a binary min-heap.
+ * Only events that are due are popped each update; fired and cancelled events leave the
+ * timeline immediately, so the per-frame cost depends on how many events are due rather
+ * than on how many were ever scheduled. Not thread safe, use it from the render thread.
+ */
 public class EventManager {
-    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    /** Handle value that never refers to a scheduled event. */
+    public static final int NO_HANDLE = 0;
 
-    public void addEvent(Event event) {
-        events.add(event);
+    private Event[] heap = new Event[64];
+    private int size;
+    private long nextOrder;
+    private int nextHandle = 1;
+
+    private final IntMap<Event> scheduled = new IntMap<>();
+    private final Pool<Event> eventPool = new Pool<Event>() {
+        @Override
+        protected Event newObject() {
+            return new Event();
+        }
+    };
+
+    /**
+     * Adds an event that was created by the caller. The event is not pooled. An event is in the timeline at most
+     * once; it can be added again once it fired or was cancelled.
+     * @param event the event to schedule
+     * @return a handle that can be passed to {@link #cancel(int)}
+     * @throws IllegalArgumentException if the event is already scheduled
+     */
+    public int addEvent(Event event) {
+        if (event.heapIndex >= 0) throw new IllegalArgumentException("Event is already scheduled.");
+        event.pooled = false;
+        event.hasBeenTriggered = false; // Fires again if it fired before
+        return push(event);
+    }
+
+    /**
+     * Schedules an action using a pooled {@link Event}.
+     * @param triggerTime the timeline time at which the action runs
+     * @param action the action to run
+     * @return a handle that can be passed to {@link #cancel(int)}
+     */
+    public int schedule(float triggerTime, Runnable action) {
+        Event event = eventPool.obtain();
+        event.init(triggerTime, action);
+        event.pooled = true;
+        return push(event);
+    }
+
+    /**
+     * Cancels a scheduled event. Handles of events that already fired or were cancelled are ignored.
+     * @param handle the handle returned when the event was scheduled
+     * @return true if an event was removed from the timeline
+     */
+    public boolean cancel(int handle) {
+        Event event = scheduled.remove(handle);
+        if (event == null) return false;
+
+        removeAt(event.heapIndex);
+        release(event);
+        return true;
+    }
+
+    /**
+     * @param handle the handle returned when the event was scheduled
+     * @return whether the event is still waiting to fire
+     */
+    public boolean isScheduled(int handle) {
+        return scheduled.containsKey(handle);
     }
 
+    /**
+     * Fires every event whose trigger time is at or before the given time, in time order.
+     * Events scheduled by a firing action run in the same update if they are already due.
+     * @param timePassed the current timeline time
+     */
     public void update(float timePassed) {
-        for (Event event : events) {
+        while (size > 0 && heap[0].triggerTime <= timePassed) {
+            Event event = heap[0];
+            removeAt(0);
+            scheduled.remove(event.handle);
+
             event.trigger(timePassed);
+            release(event);
+        }
+    }
+
+    /**
+     * Removes every scheduled event without firing it.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].heapIndex = -1;
+            release(heap[i]);
+            heap[i] = null;
+        }
+        size = 0;
+        scheduled.clear();
+    }
+
+    /**
+     * @return the number of events waiting to fire
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the trigger time of the next event, or {@link Float#POSITIVE_INFINITY} if none is scheduled
+     */
+    public float peekNextTime() {
+        return size > 0 ? heap[0].triggerTime : Float.POSITIVE_INFINITY;
+    }
+
+    private int push(Event event) {
+        int handle = nextHandle++;
+        if (nextHandle == NO_HANDLE) nextHandle = 1;
+
+        event.handle = handle;
+        event.order = nextOrder++;
+        scheduled.put(handle, event);
+
+        if (size == heap.length) {
+            Event[] grown = new Event[size << 1];
+            System.arraycopy(heap, 0, grown, 0, size);
+            heap = grown;
+        }
+        heap[size] = event;
+        event.heapIndex = size;
+        siftUp(size++);
+        return handle;
+    }
+
+    private void removeAt(int index) {
+        Event removed = heap[index];
+        int last = --size;
+        if (index != last) {
+            Event moved = heap[last];
+            heap[index] = moved;
+            moved.heapIndex = index;
+            heap[last] = null;
+            siftDown(index);
+            if (heap[index] == moved) siftUp(index);
+        } else {
+            heap[last] = null;
+        }
+        removed.heapIndex = -1;
+    }
+
+    private void release(Event event) {
+        // Not in the heap any more, unless its action added it again
+        if (event.pooled) eventPool.free(event);
+    }
+
+    private void siftUp(int index) {
+        Event event = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Event parentEvent = heap[parent];
+            if (!before(event, parentEvent)) break;
+            heap[index] = parentEvent;
+            parentEvent.heapIndex = index;
+            index = parent;
         }
+        heap[index] = event;
+        event.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Event event = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) child = right;
+            Event childEvent = heap[child];
+            if (!before(childEvent, event)) break;
+            heap[index] = childEvent;
+            childEvent.heapIndex = index;
+            index = child;
+        }
+        heap[index] = event;
+        event.heapIndex = index;
+    }
+
+    // Earlier trigger time first, insertion order breaks ties so same-time events keep their scheduling order
+    private static boolean before(Event a, Event b) {
+        if (a.triggerTime != b.triggerTime) return a.triggerTime < b.triggerTime;
+        return a.order < b.order;
     }
-}
\ No newline at end of file
+}
@@ -3,14 +3,29 @@ package it.yuruni.graphics.animation;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
 import it.yuruni.Main;
+import it.yuruni.graphics.render.InstancedGlyphRenderer;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A textured sprite with a position, alpha, scale and rotation, simulated in fixed steps and drawn interpolated.
+ * <p>
+ * Glyphs can be nested with {@link #addChild(Glyph)}. A child's transform is then local to its parent's frame, in
+ * the parent's unscaled pixels with the origin at its bottom-left corner, and its alpha is multiplied by the
+ * parent's, so one tween on the parent moves the whole group. World transforms are recomputed lazily: a change
+ * only marks the glyph and its descendants dirty, and each dirty glyph recomputes its matrix once, when it is next
+ * drawn or hit tested.
+ */
 public class Glyph {
     protected Texture texture;
+    protected TextureRegion region;
     protected List<Texture> textures;
     protected float x;
     protected float y;
@@ -18,13 +33,40 @@ public class Glyph {
     protected float scaleX = 1f;
     protected float scaleY = 1f;
     protected float rotation = 0f;
+    // State at the start of the current simulation step, drawn blended with the current one
+    protected float previousX;
+    protected float previousY;
+    protected float previousAlpha = 1f;
+    protected float previousScaleX = 1f;
+    protected float previousScaleY = 1f;
+    protected float previousRotation = 0f;
     protected Rectangle hitbox;
+    private int hitboxVersion; // Bumped whenever the hitbox changes, lets spatial indexes skip unmoved glyphs
+    protected boolean hitboxDirty = true; // Set by anything the hitbox depends on, it is recomputed on the next read
     protected boolean isVisible;
+    // Hierarchy, see addChild
+    private Glyph parent;
+    private Array<Glyph> children;
+    private boolean worldDirty = true; // World transform or alpha out of date
+    private boolean transformDirty = true; // World transform out of date, descendants' hitboxes are marked
+    private Affine2 worldTransform; // Allocated on first use, only parented glyphs and parents need it
+    private float worldAlpha = 1f;
+    private Affine2 previousWorldTransform;
+    private float previousWorldAlpha = 1f;
+    private Affine2 drawTransform; // scratch for the interpolated world transform
+    private TextureRegion textureRegion; // wraps a whole texture to draw it through a transform
+    private final Rectangle hitboxBounds = new Rectangle(); // scratch, compared against the hitbox before setting it
     private float frameTime = 0.1f;
     private float animationTimer = 0f;
     private int currentFrame = 0;
     protected String glyphID; // New field
 
+    // Draw order, managed by RenderQueue
+    int layer;
+    double zIndex;
+    long queueOrder;
+    boolean queued;
+
     /**
      *
      * @param texture the texture of the glyph
@@ -33,7 +75,7 @@ public class Glyph {
      * @param addToQueue if true, the glyph will be automatically added to the global glyph list
      */
     public Glyph(Texture texture, float x, float y, boolean addToQueue) {
-        this(null, texture, x, y, addToQueue); // Call new primary constructor with null glyphID
+        this((String) null, texture, x, y, addToQueue); // Call new primary constructor with null glyphID
     }
 
     /**
@@ -50,25 +92,85 @@ public class Glyph {
         this.textures = new ArrayList<>();
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
         this.isVisible = true;
         this.hitbox = new Rectangle();
-        updateHitbox();
-        if (addToQueue) Main.glyphs.add(this);
+        if (addToQueue) Main.renderQueue.add(this);
     }
 
+    /**
+     * Creates a glyph that draws a region of a shared texture, such as a {@link it.yuruni.graphics.atlas.GlyphAtlas} page.
+     * The region's texture is not disposed with the glyph.
+     *
+     * @param region the texture region of the glyph
+     * @param x the x-coordinate of the glyph
+     * @param y the y-coordinate of the glyph
+     * @param addToQueue if true, the glyph will be automatically added to the global glyph list
+     */
+    public Glyph(TextureRegion region, float x, float y, boolean addToQueue) {
+        this(null, region, x, y, addToQueue);
+    }
 
     /**
      *
+     * @param glyphID the unique identifier for this glyph (optional)
+     * @param region the texture region of the glyph
+     * @param x the x-coordinate of the glyph
+     * @param y the y-coordinate of the glyph
+     * @param addToQueue if true, the glyph will be automatically added to the global glyph list
+     */
+    public Glyph(String glyphID, TextureRegion region, float x, float y, boolean addToQueue) {
+        this(glyphID, (Texture) null, x, y, false);
+        this.region = region;
+        if (addToQueue) Main.renderQueue.add(this);
+    }
+
+
+    /**
+     * Draws the current state.
      * @param batch the SpriteBatch used for rendering
      */
     public void render(SpriteBatch batch) {
+        render(batch, 1f);
+    }
+
+    /**
+     *
+     * @param batch the SpriteBatch used for rendering
+     * @param interpolation how far to blend from the state saved by {@link #savePreviousState()} to the current one
+     */
+    public void render(SpriteBatch batch, float interpolation) {
         if (!isVisible) return;
+        if (parent != null) {
+            renderInParent(batch, interpolation);
+            return;
+        }
+
+        float drawX = lerp(previousX, x, interpolation);
+        float drawY = lerp(previousY, y, interpolation);
+        float drawAlpha = lerp(previousAlpha, alpha, interpolation);
+        float drawScaleX = lerp(previousScaleX, scaleX, interpolation);
+        float drawScaleY = lerp(previousScaleY, scaleY, interpolation);
+        float drawRotation = lerp(previousRotation, rotation, interpolation);
+        if (drawAlpha <= 0f) return;
+
+        Color originalColor = batch.getColor();
+        float r = originalColor.r, g = originalColor.g, b = originalColor.b, a = originalColor.a;
+
+        if (region != null) {
+            batch.setColor(r, g, b, drawAlpha);
+            float width = region.getRegionWidth();
+            float height = region.getRegionHeight();
+            batch.draw(region, drawX, drawY, width / 2f, height / 2f, width, height, drawScaleX, drawScaleY, drawRotation);
+            batch.setColor(r, g, b, a);
+            return;
+        }
 
         Texture currentTexture = (textures != null && !textures.isEmpty()) ? textures.get(currentFrame) : texture;
         if (currentTexture == null) return;
 
-        Color originalColor = batch.getColor();
-        batch.setColor(originalColor.r, originalColor.g, originalColor.b, alpha);
+        batch.setColor(r, g, b, drawAlpha);
 
         float width = currentTexture.getWidth();
         float height = currentTexture.getHeight();
@@ -76,15 +178,317 @@ public class Glyph {
         float originY = height / 2f;
 
         batch.draw(currentTexture,
-                x, y,
+                drawX, drawY,
                 originX, originY,
                 width, height,
-                scaleX, scaleY,
-                rotation,
+                drawScaleX, drawScaleY,
+                drawRotation,
                 0, 0, (int) width, (int) height,
                 false, false);
 
-        batch.setColor(originalColor);
+        batch.setColor(r, g, b, a);
+    }
+
+    private void renderInParent(SpriteBatch batch, float interpolation) {
+        float drawAlpha = getDrawAlpha(interpolation);
+        if (drawAlpha <= 0f) return;
+
+        TextureRegion drawn = region;
+        if (drawn == null) {
+            Texture currentTexture = (textures != null && !textures.isEmpty()) ? textures.get(currentFrame) : texture;
+            if (currentTexture == null) return;
+            if (textureRegion == null) textureRegion = new TextureRegion();
+            textureRegion.setRegion(currentTexture);
+            drawn = textureRegion;
+        }
+
+        Color originalColor = batch.getColor();
+        float r = originalColor.r, g = originalColor.g, b = originalColor.b, a = originalColor.a;
+        batch.setColor(r, g, b, drawAlpha);
+        batch.draw(drawn, drawn.getRegionWidth(), drawn.getRegionHeight(), getDrawTransform(interpolation));
+        batch.setColor(r, g, b, a);
+    }
+
+    /**
+     * Queues the glyph on a renderer that transforms it in the vertex shader, see {@link #render(SpriteBatch, float)}.
+     * A glyph whose world transform is sheared, from a non-uniformly scaled parent, can't be described that way.
+     * @param renderer the started renderer
+     * @param interpolation how far to blend from the state saved by {@link #savePreviousState()} to the current one
+     * @return false if the glyph must be drawn with {@link #render(SpriteBatch, float)} instead
+     */
+    public boolean renderInstanced(InstancedGlyphRenderer renderer, float interpolation) {
+        if (!isVisible) return true;
+
+        Texture drawnTexture;
+        float u = 0f, v = 0f, u2 = 1f, v2 = 1f;
+        if (region != null) {
+            drawnTexture = region.getTexture();
+            u = region.getU();
+            v = region.getV();
+            u2 = region.getU2();
+            v2 = region.getV2();
+        } else {
+            drawnTexture = (textures != null && !textures.isEmpty()) ? textures.get(currentFrame) : texture;
+            if (drawnTexture == null) return true;
+        }
+        float width = getLocalWidth();
+        float height = getLocalHeight();
+
+        if (parent == null) {
+            float drawAlpha = lerp(previousAlpha, alpha, interpolation);
+            if (drawAlpha <= 0f) return true;
+            renderer.draw(drawnTexture, lerp(previousX, x, interpolation), lerp(previousY, y, interpolation), width, height,
+                    lerp(previousScaleX, scaleX, interpolation), lerp(previousScaleY, scaleY, interpolation),
+                    lerp(previousRotation, rotation, interpolation), drawAlpha, u, v, u2, v2);
+            return true;
+        }
+
+        float drawAlpha = getDrawAlpha(interpolation);
+        if (drawAlpha <= 0f) return true;
+        return renderer.draw(drawnTexture, getDrawTransform(interpolation), width, height, drawAlpha, u, v, u2, v2);
+    }
+
+    /**
+     * Computes the axis aligned area the glyph covers when drawn, including scale and rotation, for culling.
+     * @param interpolation the blend between the previous and the current state, as passed to {@link #render(SpriteBatch, float)}
+     * @param out receives the bounds
+     * @return out
+     */
+    public Rectangle getDrawBounds(float interpolation, Rectangle out) {
+        float width = getLocalWidth();
+        float height = getLocalHeight();
+        if (parent != null) return transformBounds(getDrawTransform(interpolation), 0, 0, width, height, out);
+
+        // Scale and rotation happen around the centre
+        float centerX = lerp(previousX, x, interpolation) + width / 2f;
+        float centerY = lerp(previousY, y, interpolation) + height / 2f;
+        float halfWidth = Math.abs(width * lerp(previousScaleX, scaleX, interpolation)) / 2f;
+        float halfHeight = Math.abs(height * lerp(previousScaleY, scaleY, interpolation)) / 2f;
+        float drawRotation = lerp(previousRotation, rotation, interpolation);
+        if (drawRotation != 0f) {
+            float cos = Math.abs(MathUtils.cosDeg(drawRotation));
+            float sin = Math.abs(MathUtils.sinDeg(drawRotation));
+            float rotatedHalfWidth = halfWidth * cos + halfHeight * sin;
+            halfHeight = halfWidth * sin + halfHeight * cos;
+            halfWidth = rotatedHalfWidth;
+        }
+        return out.set(centerX - halfWidth, centerY - halfHeight, halfWidth * 2f, halfHeight * 2f);
+    }
+
+    /**
+     * @param interpolation the blend between the previous and the current state
+     * @return the alpha the glyph is drawn with
+     */
+    public float getDrawAlpha(float interpolation) {
+        if (parent == null) return lerp(previousAlpha, alpha, interpolation);
+
+        updateWorldTransform();
+        return lerp(previousWorldAlpha, worldAlpha, interpolation);
+    }
+
+    /**
+     * Blends the world transform saved by {@link #savePreviousState()} with the current one. Only meaningful for
+     * glyphs with a parent; the returned matrix is reused by the next call.
+     */
+    protected Affine2 getDrawTransform(float interpolation) {
+        updateWorldTransform();
+        if (drawTransform == null) drawTransform = new Affine2();
+        Affine2 from = previousWorldTransform, to = worldTransform, out = drawTransform;
+        out.m00 = lerp(from.m00, to.m00, interpolation);
+        out.m01 = lerp(from.m01, to.m01, interpolation);
+        out.m02 = lerp(from.m02, to.m02, interpolation);
+        out.m10 = lerp(from.m10, to.m10, interpolation);
+        out.m11 = lerp(from.m11, to.m11, interpolation);
+        out.m12 = lerp(from.m12, to.m12, interpolation);
+        return out;
+    }
+
+    /**
+     * Computes the axis aligned bounds of a local rectangle after a transform.
+     * @return out
+     */
+    protected static Rectangle transformBounds(Affine2 transform, float x0, float y0, float x1, float y1, Rectangle out) {
+        // The bounds of an affine image of a box: centre mapped, half extents through the absolute linear part
+        float centerX = (x0 + x1) / 2f, centerY = (y0 + y1) / 2f;
+        float halfX = (x1 - x0) / 2f, halfY = (y1 - y0) / 2f;
+        float worldX = transform.m00 * centerX + transform.m01 * centerY + transform.m02;
+        float worldY = transform.m10 * centerX + transform.m11 * centerY + transform.m12;
+        float extentX = Math.abs(transform.m00) * halfX + Math.abs(transform.m01) * halfY;
+        float extentY = Math.abs(transform.m10) * halfX + Math.abs(transform.m11) * halfY;
+        return out.set(worldX - extentX, worldY - extentY, extentX * 2f, extentY * 2f);
+    }
+
+    protected static float lerp(float previous, float current, float interpolation) {
+        return previous + (current - previous) * interpolation;
+    }
+
+    /**
+     * Remembers the current transform as the previous state. Called for every queued glyph at the start of each
+     * simulation step; call it after moving a glyph that should jump instead of sliding there.
+     */
+    public void savePreviousState() {
+        previousX = x;
+        previousY = y;
+        previousAlpha = alpha;
+        previousScaleX = scaleX;
+        previousScaleY = scaleY;
+        previousRotation = rotation;
+        if (parent != null) savePreviousWorldState();
+    }
+
+    private void savePreviousWorldState() {
+        updateWorldTransform();
+        previousWorldTransform.set(worldTransform);
+        previousWorldAlpha = worldAlpha;
+    }
+
+    /**
+     * Attaches a glyph to this one. From now on its position, scale and rotation are relative to this glyph's frame
+     * and its alpha is multiplied by this glyph's; it is moved here from its previous parent if it had one. The
+     * child stays in the render queue on its own, so draw order is still set per glyph.
+     * @param child the glyph to attach
+     * @throws IllegalArgumentException if the child is this glyph or one of its ancestors
+     */
+    public void addChild(Glyph child) {
+        for (Glyph ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == child) throw new IllegalArgumentException("A glyph cannot be attached to itself or its descendants.");
+        }
+        if (child.parent == this) return;
+        if (child.parent != null) child.parent.removeChild(child);
+
+        if (children == null) children = new Array<>(false, 4, Glyph[]::new);
+        children.add(child);
+        child.parent = this;
+        child.transformChanged();
+        // Attaching is a jump, don't slide in from the unparented transform
+        child.savePreviousWorldState();
+    }
+
+    /**
+     * Detaches a child. Its local transform becomes its world transform, so it jumps unless moved.
+     * @param child the glyph to detach
+     * @return true if it was a child of this glyph
+     */
+    public boolean removeChild(Glyph child) {
+        if (children == null || !children.removeValue(child, true)) return false;
+
+        child.parent = null;
+        child.transformChanged();
+        child.savePreviousState();
+        return true;
+    }
+
+    /**
+     * @return the glyph this one is attached to, or null
+     */
+    public Glyph getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the attached glyphs, or null if there are none; do not modify it
+     */
+    public Array<Glyph> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return whether the glyph and all of its ancestors are visible
+     */
+    public boolean isVisibleInHierarchy() {
+        for (Glyph glyph = this; glyph != null; glyph = glyph.parent) {
+            if (!glyph.isVisible) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Brings the world transform up to date, after the parent's. Only does work after a change to this glyph or an
+     * ancestor.
+     */
+    private void updateWorldTransform() {
+        if (!worldDirty) return;
+
+        if (worldTransform == null) {
+            worldTransform = new Affine2();
+            previousWorldTransform = new Affine2();
+        }
+        // Scale and rotation happen around the centre, like for a glyph drawn on its own
+        float halfWidth = getLocalWidth() / 2f;
+        float halfHeight = getLocalHeight() / 2f;
+        worldTransform.setToTrnRotScl(x + halfWidth, y + halfHeight, rotation, scaleX, scaleY).translate(-halfWidth, -halfHeight);
+        worldAlpha = alpha;
+        if (parent != null) {
+            parent.updateWorldTransform();
+            worldTransform.preMul(parent.worldTransform);
+            worldAlpha *= parent.worldAlpha;
+        }
+        worldDirty = false;
+        transformDirty = false;
+    }
+
+    /**
+     * @return the world transform, mapping the glyph's unscaled pixels to world coordinates; do not modify it
+     */
+    public Affine2 getWorldTransform() {
+        updateWorldTransform();
+        return worldTransform;
+    }
+
+    /**
+     * @return the alpha including every ancestor's
+     */
+    public float getWorldAlpha() {
+        updateWorldTransform();
+        return worldAlpha;
+    }
+
+    /**
+     * Marks the world transform and hitbox of this glyph and its descendants for recomputation.
+     */
+    private void transformChanged() {
+        hitboxDirty = true;
+        if (transformDirty) return; // descendants were marked when this glyph was
+        transformDirty = true;
+        worldDirty = true;
+        if (children == null) return;
+
+        Glyph[] items = children.items;
+        for (int i = 0, n = children.size; i < n; i++) {
+            items[i].transformChanged();
+        }
+    }
+
+    /**
+     * Marks the world alpha of this glyph and its descendants for recomputation; their hitboxes stay valid.
+     */
+    private void alphaChanged() {
+        if (worldDirty) return; // descendants were marked when this glyph was
+        worldDirty = true;
+        if (children == null) return;
+
+        Glyph[] items = children.items;
+        for (int i = 0, n = children.size; i < n; i++) {
+            items[i].alphaChanged();
+        }
+    }
+
+    /**
+     * @return the unscaled width the transform scales and rotates around, 0 without a texture
+     */
+    protected float getLocalWidth() {
+        if (region != null) return region.getRegionWidth();
+        Texture currentTexture = (textures != null && !textures.isEmpty()) ? textures.get(currentFrame) : texture;
+        return currentTexture == null ? 0 : currentTexture.getWidth();
+    }
+
+    /**
+     * @return the unscaled height the transform scales and rotates around, 0 without a texture
+     */
+    protected float getLocalHeight() {
+        if (region != null) return region.getRegionHeight();
+        Texture currentTexture = (textures != null && !textures.isEmpty()) ? textures.get(currentFrame) : texture;
+        return currentTexture == null ? 0 : currentTexture.getHeight();
     }
 
     /**
@@ -92,25 +496,45 @@ public class Glyph {
      * @param delta the time elapsed since the last update
      */
     public void update(float delta) {
-        updateHitbox();
-
         if (textures != null && !textures.isEmpty() && frameTime > 0) {
             animationTimer += delta;
             if (animationTimer > frameTime) {
                 animationTimer = 0f;
+                Texture previous = textures.get(currentFrame);
                 currentFrame++;
 
                 if (currentFrame >= textures.size()) currentFrame = 0;
+                hitboxDirty = true; // The hitbox is the current frame's
+                Texture next = textures.get(currentFrame);
+                if (next.getWidth() != previous.getWidth() || next.getHeight() != previous.getHeight()) {
+                    // A new size also moves the pivot the children hang off; this only sets flags read after the update
+                    transformChanged();
+                }
             }
         }
     }
 
+    /**
+     * Recomputes the hitbox from the transform and the texture. Only called while {@link #hitboxDirty} is set.
+     */
     protected void updateHitbox() {
-        Texture currentTexture = getTexture();
-        if (currentTexture == null) return;
+        if (parent != null) {
+            setHitbox(getWorldTransform(), 0, 0, getLocalWidth(), getLocalHeight());
+            return;
+        }
 
-        float unscaledWidth = currentTexture.getWidth();
-        float unscaledHeight = currentTexture.getHeight();
+        float unscaledWidth;
+        float unscaledHeight;
+        if (region != null) {
+            unscaledWidth = region.getRegionWidth();
+            unscaledHeight = region.getRegionHeight();
+        } else {
+            Texture currentTexture = getTexture();
+            if (currentTexture == null) return;
+
+            unscaledWidth = currentTexture.getWidth();
+            unscaledHeight = currentTexture.getHeight();
+        }
 
         float visualWidth = unscaledWidth * scaleX;
         float visualHeight = unscaledHeight * scaleY;
@@ -119,15 +543,59 @@ public class Glyph {
         float visualX = this.x + (unscaledWidth / 2f) * (1 - scaleX);
         float visualY = this.y + (unscaledHeight / 2f) * (1 - scaleY);
 
-        hitbox.set(visualX, visualY, visualWidth, visualHeight);
+        setHitbox(visualX, visualY, visualWidth, visualHeight);
+    }
+
+    /**
+     * Updates the state the hitbox refresh reads but doesn't own, so that {@link #getHitbox()} can then run on any
+     * thread alongside other glyphs. Here that is the parent's world transform, which every child reads.
+     */
+    protected void prepareHitboxRefresh() {
+        if (hitboxDirty && parent != null) parent.updateWorldTransform();
+    }
+
+    private void refreshHitbox() {
+        if (!hitboxDirty) return;
+        hitboxDirty = false;
+        updateHitbox();
+    }
+
+    /**
+     * Sets the hitbox, counting the change if it moved or resized.
+     */
+    protected void setHitbox(float x, float y, float width, float height) {
+        if (hitbox.x == x && hitbox.y == y && hitbox.width == width && hitbox.height == height) return;
+        hitbox.set(x, y, width, height);
+        hitboxVersion++;
+    }
+
+    /**
+     * Sets the hitbox to the bounds of a local rectangle after a transform, like the world transform.
+     */
+    protected void setHitbox(Affine2 transform, float x0, float y0, float x1, float y1) {
+        transformBounds(transform, x0, y0, x1, y1, hitboxBounds);
+        setHitbox(hitboxBounds.x, hitboxBounds.y, hitboxBounds.width, hitboxBounds.height);
+    }
+
+    /**
+     * @return a counter that changes every time the hitbox does
+     */
+    public int getHitboxVersion() {
+        refreshHitbox();
+        return hitboxVersion;
     }
 
     public void dispose() {
+        if (parent != null) parent.removeChild(this);
+        if (children != null) {
+            // Children outlive their parent, they are placed as if they had never been attached
+            while (children.size > 0) removeChild(children.peek());
+        }
         if (texture != null) texture.dispose();
 
         if (textures != null) for (Texture texture : textures) texture.dispose();
 
-        Main.glyphs.remove(this);
+        Main.renderQueue.remove(this);
     }
 
     /**
@@ -147,12 +615,20 @@ public class Glyph {
     }
 
     public Texture getTexture() {
-        if (texture == null && textures.isEmpty()) return null;
-        if (textures.isEmpty()) return texture;
+        if (region != null) return region.getTexture();
+        if (textures == null || textures.isEmpty()) return texture;
 
         return textures.get(0);
     }
 
+    /**
+     *
+     * @return the texture region of the glyph, or null if it draws a whole texture
+     */
+    public TextureRegion getRegion() {
+        return region;
+    }
+
     /**
      *
      * @return the x-coordinate of the glyph
@@ -198,7 +674,9 @@ public class Glyph {
      * @param x the new x-coordinate of the glyph
      */
     public void setX(float x) {
+        if (this.x == x) return;
         this.x = x;
+        transformChanged();
     }
 
     /**
@@ -206,15 +684,21 @@ public class Glyph {
      * @param y the new y-coordinate of the glyph
      */
     public void setY(float y) {
+        if (this.y == y) return;
         this.y = y;
+        transformChanged();
     }
 
     public void setAlpha(float alpha) {
+        if (this.alpha == alpha) return;
         this.alpha = alpha;
+        alphaChanged();
     }
 
     public void setScaleX(float scaleX) {
+        if (this.scaleX == scaleX) return;
         this.scaleX = scaleX;
+        transformChanged();
     }
 
     /**
@@ -222,11 +706,15 @@ public class Glyph {
      * @param scaleY the new y-scale of the glyph
      */
     public void setScaleY(float scaleY) {
+        if (this.scaleY == scaleY) return;
         this.scaleY = scaleY;
+        transformChanged();
     }
 
     public void setRotation(float rotation) {
+        if (this.rotation == rotation) return;
         this.rotation = rotation;
+        transformChanged();
     }
 
     /**
@@ -235,7 +723,20 @@ public class Glyph {
      */
     public void setTexture(Texture texture) {
         this.texture = texture;
+        this.region = null;
+        this.textures = null;
+        transformChanged();
+    }
+
+    /**
+     *
+     * @param region the new texture region of the glyph, its texture is not owned by the glyph
+     */
+    public void setRegion(TextureRegion region) {
+        this.region = region;
+        this.texture = null;
         this.textures = null;
+        transformChanged();
     }
 
     /**
@@ -245,8 +746,10 @@ public class Glyph {
     public void setTextures(List<Texture> textures) {
         this.textures = textures;
         this.texture = null;
+        this.region = null;
         this.currentFrame = 0;
         this.animationTimer = 0;
+        transformChanged();
     }
 
     /**
@@ -267,9 +770,10 @@ public class Glyph {
 
     /**
      *
-     * @return the hitbox of the glyph
+     * @return the hitbox of the glyph, brought up to date first; do not modify it
      */
     public Rectangle getHitbox() {
+        refreshHitbox();
         return hitbox;
     }
 
@@ -279,23 +783,41 @@ public class Glyph {
      * @return true if this glyph collides with the other glyph, false otherwise
      */
     public boolean collidesWith(Glyph other) {
-        return this.hitbox.overlaps(other.getHitbox());
+        return getHitbox().overlaps(other.getHitbox());
     }
 
 
     public float getWidth() {
-        return this.texture.getWidth();
+        if (region != null) return region.getRegionWidth();
+        return this.texture == null ? 0f : this.texture.getWidth();
     }
 
 
     public float getHeight() {
-        return this.texture.getHeight();
+        if (region != null) return region.getRegionHeight();
+        return this.texture == null ? 0f : this.texture.getHeight();
     }
 
     public float centerAxis(float objectAxis, float parentAxis) {
         return objectAxis - (parentAxis / 2F);
     }
 
+    /**
+     *
+     * @return the render layer of the glyph, see {@link RenderQueue}
+     */
+    public int getLayer() {
+        return layer;
+    }
+
+    /**
+     *
+     * @return the z-index of the glyph inside its render layer
+     */
+    public double getZIndex() {
+        return zIndex;
+    }
+
     public void setGlyphID(String glyphID) {
         this.glyphID = glyphID;
     }
@@ -0,0 +1,35 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.graphics.Texture;
+
+/**
+ * An invisible glyph that only carries a transform for its children, for composites with no natural parent sprite.
+ * Tweening the group moves, fades, scales or rotates every child at once. Its frame has the origin at (x, y) and
+ * scales and rotates around it. It is not added to the render queue; the children are queued as usual.
+ */
+public class GlyphGroup extends Glyph {
+
+    /**
+     * @param x the x-coordinate of the group's origin
+     * @param y the y-coordinate of the group's origin
+     */
+    public GlyphGroup(float x, float y) {
+        this(null, x, y);
+    }
+
+    /**
+     * @param glyphID the unique identifier for this group (optional)
+     * @param x the x-coordinate of the group's origin
+     * @param y the y-coordinate of the group's origin
+     */
+    public GlyphGroup(String glyphID, float x, float y) {
+        super(glyphID, (Texture) null, x, y, false);
+    }
+
+    /**
+     * Attaches several glyphs at once, see {@link #addChild(Glyph)}.
+     */
+    public void addChildren(Glyph... glyphs) {
+        for (Glyph glyph : glyphs) addChild(glyph);
+    }
+}
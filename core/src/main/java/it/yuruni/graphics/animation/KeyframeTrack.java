@@ -0,0 +1,149 @@
+package it.yuruni.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * A value over time, defined by keyframes kept sorted by time. Between two keyframes the value moves from the
+ * first to the second along the second one's easing; before the first keyframe and after the last it holds.
+ * Two keyframes at the same time make the value jump there.
+ * <p>
+ * Evaluating any time is a binary search for the surrounding keyframes and one interpolation, so seeking costs
+ * the same as playing. The last segment found is remembered and checked first, so playback in either direction
+ * usually skips the search. Not thread safe, use one track from one thread.
+ */
+public class KeyframeTrack {
+    private float[] times = new float[4];
+    private float[] values = new float[4];
+    private int[] easings = new int[4]; // Ordinals, the easing into each keyframe
+    private int size;
+    private int hint = -1; // Segment of the last lookup, see segmentAt
+
+    /**
+     * Adds a keyframe reached linearly from the one before.
+     * @param time the time in seconds
+     * @param value the value at that time
+     * @return this track, for chaining
+     */
+    public KeyframeTrack key(float time, float value) {
+        return key(time, value, Easing.LINEAR);
+    }
+
+    /**
+     * Adds a keyframe. A keyframe at the time of existing ones goes after them, so adding two in a row at the
+     * same time makes a jump.
+     * @param time the time in seconds
+     * @param value the value at that time
+     * @param easing the curve from the keyframe before to this one
+     * @return this track, for chaining
+     */
+    public KeyframeTrack key(float time, float value, Easing easing) {
+        if (Float.isNaN(time)) throw new IllegalArgumentException("Keyframe time cannot be NaN.");
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+            easings = Arrays.copyOf(easings, capacity);
+        }
+
+        int index = upperBound(time);
+        System.arraycopy(times, index, times, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        System.arraycopy(easings, index, easings, index + 1, size - index);
+        times[index] = time;
+        values[index] = value;
+        easings[index] = easing.ordinal();
+        size++;
+        hint = -1;
+        return this;
+    }
+
+    /**
+     * @param time the time in seconds
+     * @return the value at that time
+     * @throws IllegalStateException if the track has no keyframes
+     */
+    public float evaluate(float time) {
+        if (size == 0) throw new IllegalStateException("Track has no keyframes.");
+        int i = segmentAt(time);
+        if (i < 0) return values[0];
+        if (i == size - 1) return values[i];
+
+        // The next keyframe is later than the time, so the segment has a length
+        float start = times[i];
+        float progress = (time - start) / (times[i + 1] - start);
+        float from = values[i];
+        return from + (values[i + 1] - from) * EasingTable.apply(progress, easings[i + 1]);
+    }
+
+    /**
+     * @param from one end of the span, excluded
+     * @param to the other end, included
+     * @return whether the value jumps anywhere between the two times, in either order
+     */
+    public boolean jumpsBetween(float from, float to) {
+        if (size < 2 || from == to) return false;
+        int first = segmentAt(Math.min(from, to));
+        int last = segmentAt(Math.max(from, to));
+        for (int i = Math.max(first + 1, 1); i <= last; i++) {
+            if (times[i] == times[i - 1]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param time the time in seconds
+     * @return the index of the last keyframe at or before the time, -1 before the first
+     */
+    public int segmentAt(float time) {
+        int i = hint;
+        if (fits(i, time)) return i;
+        if (fits(i + 1, time)) return hint = i + 1; // Playing forward
+        if (fits(i - 1, time)) return hint = i - 1; // Playing backward
+        return hint = upperBound(time) - 1;
+    }
+
+    private boolean fits(int segment, float time) {
+        if (segment < -1 || segment >= size) return false;
+        return (segment < 0 || times[segment] <= time) && (segment + 1 == size || time < times[segment + 1]);
+    }
+
+    // Index of the first keyframe later than the time
+    private int upperBound(float time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the time of the first keyframe
+     * @throws IllegalStateException if the track has no keyframes
+     */
+    public float getStartTime() {
+        if (size == 0) throw new IllegalStateException("Track has no keyframes.");
+        return times[0];
+    }
+
+    /**
+     * @return the time of the last keyframe
+     * @throws IllegalStateException if the track has no keyframes
+     */
+    public float getEndTime() {
+        if (size == 0) throw new IllegalStateException("Track has no keyframes.");
+        return times[size - 1];
+    }
+
+    /**
+     * @return the number of keyframes
+     */
+    public int size() {
+        return size;
+    }
+}
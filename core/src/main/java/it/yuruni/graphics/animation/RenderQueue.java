@@ -0,0 +1,274 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntSet;
+import com.badlogic.gdx.utils.Sort;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * Draw order of the glyphs on screen. Glyphs are drawn by layer, then by z-index, then by the order
+ * they were queued in. Moves and reorders are O(log n); the flat draw list is rebuilt at most once per
+ * frame, and only after something changed.
+ */
+public class RenderQueue {
+    public static final int DEFAULT_LAYER = 0;
+
+    // Below this gap two neighbouring z-indices can no longer be split, the layer gets renumbered
+    private static final double MIN_GAP = 1e-9;
+
+    private static final Comparator<Glyph> ORDER = (a, b) -> {
+        if (a.layer != b.layer) return Integer.compare(a.layer, b.layer);
+        if (a.zIndex != b.zIndex) return Double.compare(a.zIndex, b.zIndex);
+        return Long.compare(a.queueOrder, b.queueOrder);
+    };
+
+    // Inside texture sorted layers, glyphs sharing a texture are drawn together; the stable sort keeps z order otherwise
+    private static final Comparator<Glyph> BY_TEXTURE = (a, b) ->
+            Integer.compare(textureKey(a), textureKey(b));
+
+    private final TreeSet<Glyph> ordered = new TreeSet<>(ORDER);
+    private final Array<Glyph> drawOrder = new Array<>(Glyph[]::new);
+    private final IntSet textureSortedLayers = new IntSet();
+    private final Glyph probe = new Glyph((Texture) null, 0, 0, false);
+    private long nextOrder;
+    private boolean dirty;
+
+    /**
+     * Queues a glyph on top of the default layer.
+     * @param glyph the glyph to draw
+     */
+    public void add(Glyph glyph) {
+        add(glyph, DEFAULT_LAYER);
+    }
+
+    /**
+     * Queues a glyph on top of a layer. A glyph that is already queued is moved.
+     * @param glyph the glyph to draw
+     * @param layer the layer, higher layers are drawn later
+     */
+    public void add(Glyph glyph, int layer) {
+        if (glyph.queued) ordered.remove(glyph);
+
+        Glyph top = topOf(layer);
+        glyph.layer = layer;
+        glyph.zIndex = top == null ? 0 : Math.floor(top.zIndex) + 1;
+        glyph.queueOrder = nextOrder++;
+        insert(glyph);
+    }
+
+    /**
+     * @param glyph the glyph to stop drawing
+     * @return true if the glyph was queued
+     */
+    public boolean remove(Glyph glyph) {
+        if (!glyph.queued) return false;
+
+        ordered.remove(glyph);
+        glyph.queued = false;
+        dirty = true;
+        return true;
+    }
+
+    public boolean contains(Glyph glyph) {
+        return glyph.queued;
+    }
+
+    /**
+     * Moves a glyph to its own layer, on top of the glyphs already there.
+     * @param glyph the queued glyph
+     * @param layer the new layer
+     */
+    public void setLayer(Glyph glyph, int layer) {
+        if (!glyph.queued || glyph.layer == layer) return;
+        add(glyph, layer);
+    }
+
+    /**
+     * @param glyph the queued glyph
+     * @param zIndex the new z-index inside the glyph's layer, higher values are drawn later
+     */
+    public void setZIndex(Glyph glyph, double zIndex) {
+        if (!glyph.queued) return;
+
+        ordered.remove(glyph);
+        glyph.zIndex = zIndex;
+        insert(glyph);
+    }
+
+    /**
+     * Moves a glyph right before a target glyph, into the target's layer.
+     * Nothing happens if either glyph is not queued.
+     *
+     * @param toMove the glyph to move
+     * @param target the glyph to be placed before
+     */
+    public void putBefore(Glyph toMove, Glyph target) {
+        if (toMove == null || target == null || toMove == target || !toMove.queued || !target.queued) return;
+
+        ordered.remove(toMove);
+        Glyph previous = ordered.lower(target);
+        if (previous == null || previous.layer != target.layer) {
+            toMove.zIndex = target.zIndex - 1;
+        } else {
+            toMove.zIndex = between(previous, target);
+        }
+        toMove.layer = target.layer;
+        insert(toMove);
+    }
+
+    /**
+     * Moves a glyph right after a target glyph, into the target's layer.
+     * Nothing happens if either glyph is not queued.
+     *
+     * @param toMove the glyph to move
+     * @param target the glyph to be placed after
+     */
+    public void putAfter(Glyph toMove, Glyph target) {
+        if (toMove == null || target == null || toMove == target || !toMove.queued || !target.queued) return;
+
+        ordered.remove(toMove);
+        Glyph next = ordered.higher(target);
+        if (next == null || next.layer != target.layer) {
+            toMove.zIndex = target.zIndex + 1;
+        } else {
+            toMove.zIndex = between(target, next);
+        }
+        toMove.layer = target.layer;
+        insert(toMove);
+    }
+
+    /**
+     * @param glyph the queued glyph to draw on top of its layer
+     */
+    public void bringToFront(Glyph glyph) {
+        if (!glyph.queued) return;
+        add(glyph, glyph.layer);
+    }
+
+    /**
+     * @param glyph the queued glyph to draw below everything else in its layer
+     */
+    public void sendToBack(Glyph glyph) {
+        if (!glyph.queued) return;
+
+        ordered.remove(glyph);
+        probe.layer = glyph.layer;
+        probe.zIndex = Double.NEGATIVE_INFINITY;
+        probe.queueOrder = Long.MIN_VALUE;
+        Glyph bottom = ordered.higher(probe);
+        glyph.zIndex = bottom == null || bottom.layer != glyph.layer ? 0 : Math.ceil(bottom.zIndex) - 1;
+        insert(glyph);
+    }
+
+    /**
+     * Lets a layer draw glyphs that share a texture next to each other instead of in z order.
+     * Use it for layers whose glyphs do not overlap, the batch then flushes once per texture.
+     *
+     * @param layer the layer
+     * @param sorted whether the layer may be sorted by texture
+     */
+    public void setTextureSorted(int layer, boolean sorted) {
+        boolean changed = sorted ? textureSortedLayers.add(layer) : textureSortedLayers.remove(layer);
+        if (changed) dirty = true;
+    }
+
+    /**
+     * Compares two glyphs by draw order, ignoring texture sorting. Glyphs that are not queued are drawn by hand,
+     * usually as overlays, and count as drawn after every queued glyph.
+     * @return a negative number if a is drawn before b, a positive one if after, 0 if neither is queued
+     */
+    public int compareDrawOrder(Glyph a, Glyph b) {
+        if (!a.queued || !b.queued) return Boolean.compare(!a.queued, !b.queued);
+        return ORDER.compare(a, b);
+    }
+
+    /**
+     * @return the glyphs in the order they should be drawn; the array is reused, do not modify it
+     */
+    public Array<Glyph> getDrawOrder() {
+        if (dirty) rebuild();
+        return drawOrder;
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public boolean isEmpty() {
+        return ordered.isEmpty();
+    }
+
+    /**
+     * @return the glyph drawn first, or null if the queue is empty
+     */
+    public Glyph first() {
+        return ordered.isEmpty() ? null : ordered.first();
+    }
+
+    private void insert(Glyph glyph) {
+        ordered.add(glyph);
+        glyph.queued = true;
+        dirty = true;
+    }
+
+    private Glyph topOf(int layer) {
+        probe.layer = layer;
+        probe.zIndex = Double.POSITIVE_INFINITY;
+        probe.queueOrder = Long.MAX_VALUE;
+        Glyph top = ordered.lower(probe);
+        return top != null && top.layer == layer ? top : null;
+    }
+
+    private double between(Glyph lower, Glyph upper) {
+        double z = (lower.zIndex + upper.zIndex) / 2;
+        if (upper.zIndex - lower.zIndex < MIN_GAP || z <= lower.zIndex || z >= upper.zIndex) {
+            renumber(lower.layer);
+            z = (lower.zIndex + upper.zIndex) / 2;
+        }
+        return z;
+    }
+
+    /**
+     * Spreads a layer's z-indices back out to whole numbers. Relative order is kept, so the set stays sorted.
+     */
+    private void renumber(int layer) {
+        probe.layer = layer;
+        probe.zIndex = Double.NEGATIVE_INFINITY;
+        probe.queueOrder = Long.MIN_VALUE;
+        int z = 0;
+        for (Glyph glyph : ordered.tailSet(probe)) {
+            if (glyph.layer != layer) break;
+            glyph.zIndex = z++;
+        }
+    }
+
+    private void rebuild() {
+        drawOrder.clear();
+        drawOrder.ensureCapacity(ordered.size());
+        int layerStart = 0;
+        int layer = Integer.MIN_VALUE;
+        for (Glyph glyph : ordered) {
+            if (glyph.layer != layer) {
+                sortByTexture(layer, layerStart, drawOrder.size);
+                layer = glyph.layer;
+                layerStart = drawOrder.size;
+            }
+            drawOrder.add(glyph);
+        }
+        sortByTexture(layer, layerStart, drawOrder.size);
+        dirty = false;
+    }
+
+    private void sortByTexture(int layer, int from, int to) {
+        if (to - from < 2 || !textureSortedLayers.contains(layer)) return;
+        Sort.instance().sort(drawOrder.items, BY_TEXTURE, from, to);
+    }
+
+    private static int textureKey(Glyph glyph) {
+        Texture texture = glyph.getTexture();
+        return texture == null ? 0 : System.identityHashCode(texture);
+    }
+}
@@ -0,0 +1,275 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Arrays;
+
+/**
+ * A timeline of glyph properties driven by {@link KeyframeTrack}s, plus cues that run code at given times.
+ * <p>
+ * Everything the sequence shows is a function of its time, so it can be played at any speed, backwards included,
+ * or moved to any time with {@link #seek(float)} at the cost of one track evaluation per property. A track only
+ * writes its property from its first to its last keyframe, and once when the time leaves that span, so a property
+ * can be handed over to tweens once its track is done.
+ * <p>
+ * Cues are not undone: a cue runs when the time passes it going forward, again if the time went back before it,
+ * and a seek over it runs it only if it was added as one that changes state for good. Not thread safe, use it
+ * from the render thread.
+ */
+public class Sequence {
+    /**
+     * A property of a glyph a track can drive.
+     */
+    public enum Property {
+        X, Y, ALPHA,
+        /** Both scale axes at once */
+        SCALE,
+        SCALE_X, SCALE_Y, ROTATION
+    }
+
+    private final Array<Binding> bindings = new Array<>();
+
+    private float[] cueTimes = new float[8];
+    private Runnable[] cueActions = new Runnable[8];
+    private boolean[] cueOnSeek = new boolean[8];
+    private int cueCount;
+    private int nextCue; // First cue the time has not passed
+
+    private float time;
+    private float speed = 1f;
+
+    /**
+     * Gets the track driving a property, creating it on first use. Keyframes can be added to it any time.
+     * @param target the glyph
+     * @param property the property of the glyph
+     * @return the property's track
+     */
+    public KeyframeTrack track(Glyph target, Property property) {
+        if (target == null) throw new IllegalArgumentException("Target glyph cannot be null.");
+        for (int i = 0; i < bindings.size; i++) {
+            Binding binding = bindings.get(i);
+            if (binding.target == target && binding.property == property) return binding.track;
+        }
+        Binding binding = new Binding(target, property);
+        bindings.add(binding);
+        return binding.track;
+    }
+
+    /**
+     * Adds a cue that also runs when a seek jumps over it; for state the rest of the timeline relies on.
+     * @param time the time in seconds
+     * @param action what to run
+     */
+    public void cue(float time, Runnable action) {
+        cue(time, action, true);
+    }
+
+    /**
+     * Adds a cue. Cues at the same time run in the order they were added. While a cue runs, {@link #getTime()}
+     * already returns the time the sequence moved to, so a cue can tell how late it runs.
+     * @param time the time in seconds
+     * @param action what to run
+     * @param onSeek whether a seek over the cue runs it; false for momentary effects like sounds
+     */
+    public void cue(float time, Runnable action, boolean onSeek) {
+        if (Float.isNaN(time)) throw new IllegalArgumentException("Cue time cannot be NaN.");
+        if (cueCount == cueTimes.length) {
+            int capacity = cueCount * 2;
+            cueTimes = Arrays.copyOf(cueTimes, capacity);
+            cueActions = Arrays.copyOf(cueActions, capacity);
+            cueOnSeek = Arrays.copyOf(cueOnSeek, capacity);
+        }
+
+        int index = cueUpperBound(time);
+        System.arraycopy(cueTimes, index, cueTimes, index + 1, cueCount - index);
+        System.arraycopy(cueActions, index, cueActions, index + 1, cueCount - index);
+        System.arraycopy(cueOnSeek, index, cueOnSeek, index + 1, cueCount - index);
+        cueTimes[index] = time;
+        cueActions[index] = action;
+        cueOnSeek[index] = onSeek;
+        cueCount++;
+        if (index < nextCue) nextCue++; // Already behind the time
+    }
+
+    /**
+     * Plays the sequence at its speed.
+     * @param delta the time passed in seconds
+     */
+    public void update(float delta) {
+        playTo(time + delta * speed);
+    }
+
+    /**
+     * Plays to a time, e.g. one given by a clock the sequence follows. Every cue passed going forward runs, and
+     * properties that jump on the way jump instead of sliding there.
+     * @param time the time in seconds
+     */
+    public void playTo(float time) {
+        float previous = this.time;
+        this.time = time;
+        for (int i = 0; i < bindings.size; i++) {
+            Binding binding = bindings.get(i);
+            binding.apply(time, false);
+            if (binding.track.jumpsBetween(previous, time)) binding.target.savePreviousState();
+        }
+        runCues(previous, time, false);
+    }
+
+    /**
+     * Jumps to a time. Every track is evaluated once and the glyphs jump there; of the cues jumped over going
+     * forward, only those added to run on seeks run.
+     * @param time the time in seconds
+     */
+    public void seek(float time) {
+        float previous = this.time;
+        this.time = time;
+        for (int i = 0; i < bindings.size; i++) {
+            bindings.get(i).apply(time, true);
+        }
+        for (int i = 0; i < bindings.size; i++) {
+            bindings.get(i).target.savePreviousState();
+        }
+        runCues(previous, time, true);
+    }
+
+    /**
+     * Jumps by an amount of time, see {@link #seek(float)}.
+     * @param seconds how far to jump, negative to jump back
+     */
+    public void skip(float seconds) {
+        seek(time + seconds);
+    }
+
+    /**
+     * Jumps back to the start, see {@link #seek(float)}.
+     */
+    public void rewind() {
+        seek(0f);
+    }
+
+    private void runCues(float previous, float time, boolean seeking) {
+        if (time < previous) {
+            // Cues from the new time on run again when it is passed going forward
+            nextCue = cueLowerBound(time);
+            return;
+        }
+        while (nextCue < cueCount && cueTimes[nextCue] <= time) {
+            int cue = nextCue++;
+            if (!seeking || cueOnSeek[cue]) cueActions[cue].run();
+        }
+    }
+
+    // Index of the first cue later than the time
+    private int cueUpperBound(float time) {
+        int low = 0;
+        int high = cueCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cueTimes[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Index of the first cue at or after the time
+    private int cueLowerBound(float time) {
+        int low = 0;
+        int high = cueCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cueTimes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the time in seconds
+     */
+    public float getTime() {
+        return time;
+    }
+
+    /**
+     * @return the time of the last keyframe or cue in seconds
+     */
+    public float getDuration() {
+        float duration = cueCount > 0 ? cueTimes[cueCount - 1] : 0f;
+        for (int i = 0; i < bindings.size; i++) {
+            KeyframeTrack track = bindings.get(i).track;
+            if (track.size() > 0) duration = Math.max(duration, track.getEndTime());
+        }
+        return duration;
+    }
+
+    /**
+     * @return whether the time is at or past the last keyframe or cue
+     */
+    public boolean isFinished() {
+        return time >= getDuration();
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @param speed how many seconds of the sequence play per second; 0 pauses, negative plays backwards
+     */
+    public void setSpeed(float speed) {
+        if (Float.isNaN(speed)) throw new IllegalArgumentException("Speed cannot be NaN.");
+        this.speed = speed;
+    }
+
+    // A track and the property it writes
+    private static final class Binding {
+        final Glyph target;
+        final Property property;
+        final KeyframeTrack track = new KeyframeTrack();
+        int side = Integer.MIN_VALUE; // Where the last written time was: -1 before the track, 0 on it, 1 after
+
+        Binding(Glyph target, Property property) {
+            this.target = target;
+            this.property = property;
+        }
+
+        void apply(float time, boolean force) {
+            if (track.size() == 0) return;
+            int side = time < track.getStartTime() ? -1 : time > track.getEndTime() ? 1 : 0;
+            if (!force && side != 0 && side == this.side) return; // Settled, the property is free for others
+            this.side = side;
+
+            float value = track.evaluate(time);
+            switch (property) {
+                case X:
+                    target.setX(value);
+                    break;
+                case Y:
+                    target.setY(value);
+                    break;
+                case ALPHA:
+                    target.setAlpha(value);
+                    break;
+                case SCALE:
+                    target.setScaleX(value);
+                    target.setScaleY(value);
+                    break;
+                case SCALE_X:
+                    target.setScaleX(value);
+                    break;
+                case SCALE_Y:
+                    target.setScaleY(value);
+                    break;
+                case ROTATION:
+                    target.setRotation(value);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Uniform grid broadphase over glyph hitboxes. Each glyph is bucketed into every cell its hitbox touches; cells
+ * are hashed, so the world has no bounds. {@link #update()} only re-buckets glyphs whose
+ * {@link Glyph#getHitboxVersion() hitbox changed} into a different cell range, and queries only visit the cells
+ * they cover, so their cost follows the local density instead of the glyph count.
+ * <p>
+ * Pick a cell size around the size of a typical glyph. Glyphs covering more than {@link #MAX_CELLS_PER_GLYPH} cells,
+ * like full screen flashes, are kept in a separate list that every query checks. Not thread safe, use it from the
+ * render thread.
+ */
+public class SpatialGrid {
+    public static final int MAX_CELLS_PER_GLYPH = 64;
+
+    /**
+     * Receives overlapping pairs from {@link #forEachOverlappingPair(PairListener)}.
+     */
+    public interface PairListener {
+        void overlap(Glyph a, Glyph b);
+    }
+
+    private final float cellSize;
+    private final LongMap<Array<Entry>> cells = new LongMap<>();
+    private final ObjectMap<Glyph, Entry> entries = new ObjectMap<>();
+    private final Array<Entry> entryList = new Array<>(false, 16, Entry[]::new);
+    private final Array<Entry> oversized = new Array<>(false, 4, Entry[]::new);
+    private int queryStamp;
+
+    private final Pool<Entry> entryPool = new Pool<Entry>() {
+        @Override
+        protected Entry newObject() {
+            return new Entry();
+        }
+    };
+    private final Pool<Array<Entry>> cellPool = new Pool<Array<Entry>>() {
+        @Override
+        protected Array<Entry> newObject() {
+            return new Array<>(false, 4, Entry[]::new);
+        }
+    };
+
+    /**
+     * @param cellSize the width and height of a cell in world units
+     */
+    public SpatialGrid(float cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("Cell size must be positive.");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Indexes a glyph by its current hitbox. Adding a glyph twice does nothing.
+     * @param glyph the glyph
+     */
+    public void add(Glyph glyph) {
+        if (entries.containsKey(glyph)) return;
+
+        Entry entry = entryPool.obtain();
+        entry.glyph = glyph;
+        entry.version = glyph.getHitboxVersion();
+        computeRange(glyph.getHitbox(), entry);
+        entries.put(glyph, entry);
+        entryList.add(entry);
+        insert(entry);
+    }
+
+    /**
+     * @param glyph the glyph to drop from the index
+     * @return true if it was indexed
+     */
+    public boolean remove(Glyph glyph) {
+        Entry entry = entries.remove(glyph);
+        if (entry == null) return false;
+
+        erase(entry);
+        entryList.removeValue(entry, true);
+        entryPool.free(entry);
+        return true;
+    }
+
+    public boolean contains(Glyph glyph) {
+        return entries.containsKey(glyph);
+    }
+
+    public int size() {
+        return entryList.size;
+    }
+
+    /**
+     * Removes every glyph.
+     */
+    public void clear() {
+        for (Array<Entry> cell : cells.values()) {
+            cell.clear();
+            cellPool.free(cell);
+        }
+        cells.clear();
+        entries.clear();
+        entryPool.freeAll(entryList);
+        entryList.clear();
+        oversized.clear();
+    }
+
+    /**
+     * Re-buckets the glyphs that moved since the last update. Call after the hitboxes were updated.
+     */
+    public void update() {
+        Entry[] items = entryList.items;
+        for (int i = 0, n = entryList.size; i < n; i++) {
+            Entry entry = items[i];
+            int version = entry.glyph.getHitboxVersion();
+            if (version == entry.version) continue;
+            entry.version = version;
+
+            Rectangle hitbox = entry.glyph.getHitbox();
+            int minX = cell(hitbox.x), minY = cell(hitbox.y);
+            int maxX = cell(hitbox.x + hitbox.width), maxY = cell(hitbox.y + hitbox.height);
+            if (minX == entry.minX && minY == entry.minY && maxX == entry.maxX && maxY == entry.maxY) continue;
+
+            erase(entry);
+            entry.minX = minX;
+            entry.minY = minY;
+            entry.maxX = maxX;
+            entry.maxY = maxY;
+            insert(entry);
+        }
+    }
+
+    /**
+     * Finds the glyphs whose hitbox contains a point.
+     * @param out receives the glyphs, it is not cleared
+     * @return out
+     */
+    public Array<Glyph> queryPoint(float x, float y, Array<Glyph> out) {
+        for (int i = 0; i < oversized.size; i++) {
+            Glyph glyph = oversized.items[i].glyph;
+            if (glyph.getHitbox().contains(x, y)) out.add(glyph);
+        }
+
+        Array<Entry> cell = cells.get(key(cell(x), cell(y)));
+        if (cell == null) return out;
+
+        for (int i = 0; i < cell.size; i++) {
+            Glyph glyph = cell.items[i].glyph;
+            if (glyph.getHitbox().contains(x, y)) out.add(glyph);
+        }
+        return out;
+    }
+
+    /**
+     * Finds the glyphs whose hitbox overlaps a rectangle, each once.
+     * @param out receives the glyphs, it is not cleared
+     * @return out
+     */
+    public Array<Glyph> queryRect(Rectangle area, Array<Glyph> out) {
+        for (int i = 0; i < oversized.size; i++) {
+            Glyph glyph = oversized.items[i].glyph;
+            if (glyph.getHitbox().overlaps(area)) out.add(glyph);
+        }
+
+        int stamp = ++queryStamp;
+        int minX = cell(area.x), minY = cell(area.y);
+        int maxX = cell(area.x + area.width), maxY = cell(area.y + area.height);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                Array<Entry> cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    Entry entry = cell.items[i];
+                    if (entry.stamp == stamp) continue;
+                    entry.stamp = stamp;
+                    if (entry.glyph.getHitbox().overlaps(area)) out.add(entry.glyph);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reports every pair of indexed glyphs whose hitboxes overlap, each pair once.
+     * @param listener receives the pairs
+     */
+    public void forEachOverlappingPair(PairListener listener) {
+        for (LongMap.Entry<Array<Entry>> bucket : cells.entries()) {
+            Array<Entry> cell = bucket.value;
+            int cx = (int) (bucket.key >> 32);
+            int cy = (int) bucket.key;
+            for (int i = 0; i < cell.size; i++) {
+                Entry a = cell.items[i];
+                for (int j = i + 1; j < cell.size; j++) {
+                    Entry b = cell.items[j];
+                    // A pair sharing several cells is only reported from the lowest one they share
+                    if (Math.max(a.minX, b.minX) != cx || Math.max(a.minY, b.minY) != cy) continue;
+                    if (a.glyph.getHitbox().overlaps(b.glyph.getHitbox())) listener.overlap(a.glyph, b.glyph);
+                }
+            }
+        }
+
+        for (int i = 0; i < oversized.size; i++) {
+            Entry a = oversized.items[i];
+            for (int j = 0; j < entryList.size; j++) {
+                Entry b = entryList.items[j];
+                // Pairs of two oversized glyphs are reported by the first of them
+                if (b == a || b.oversized && oversized.indexOf(b, true) < i) continue;
+                if (a.glyph.getHitbox().overlaps(b.glyph.getHitbox())) listener.overlap(a.glyph, b.glyph);
+            }
+        }
+    }
+
+    private void insert(Entry entry) {
+        entry.oversized = (long) (entry.maxX - entry.minX + 1) * (entry.maxY - entry.minY + 1) > MAX_CELLS_PER_GLYPH;
+        if (entry.oversized) {
+            oversized.add(entry);
+            return;
+        }
+
+        for (int cy = entry.minY; cy <= entry.maxY; cy++) {
+            for (int cx = entry.minX; cx <= entry.maxX; cx++) {
+                long key = key(cx, cy);
+                Array<Entry> cell = cells.get(key);
+                if (cell == null) {
+                    cell = cellPool.obtain();
+                    cells.put(key, cell);
+                }
+                cell.add(entry);
+            }
+        }
+    }
+
+    private void erase(Entry entry) {
+        if (entry.oversized) {
+            oversized.removeValue(entry, true);
+            return;
+        }
+
+        for (int cy = entry.minY; cy <= entry.maxY; cy++) {
+            for (int cx = entry.minX; cx <= entry.maxX; cx++) {
+                long key = key(cx, cy);
+                Array<Entry> cell = cells.get(key);
+                if (cell == null) continue;
+
+                cell.removeValue(entry, true);
+                if (cell.size == 0) cellPool.free(cells.remove(key));
+            }
+        }
+    }
+
+    private void computeRange(Rectangle hitbox, Entry entry) {
+        entry.minX = cell(hitbox.x);
+        entry.minY = cell(hitbox.y);
+        entry.maxX = cell(hitbox.x + hitbox.width);
+        entry.maxY = cell(hitbox.y + hitbox.height);
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static final class Entry implements Pool.Poolable {
+        Glyph glyph;
+        int version;
+        int minX, minY, maxX, maxY;
+        int stamp;
+        boolean oversized;
+
+        @Override
+        public void reset() {
+            glyph = null;
+            stamp = 0;
+        }
+    }
+}
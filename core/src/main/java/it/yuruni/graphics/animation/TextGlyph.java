@@ -1,15 +1,35 @@
 package it.yuruni.graphics.animation;
 
-import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Rectangle;
 import it.yuruni.Main;
-
+import it.yuruni.graphics.render.InstancedGlyphRenderer;
+
+/**
+ * A glyph that draws a line of text. The unscaled layout is only redone when the text or the font changes, and
+ * the vertices are kept in a {@link BitmapFontCache} that is rebuilt only when the scale or the font colour
+ * changes; moving or fading static text just offsets or recolours the cached vertices.
+ * <p>
+ * Attached to a parent, the text takes its world position and scale from the parent's frame, with (x, y) as the
+ * origin the text hangs down from; rotation is still ignored.
+ */
 public class TextGlyph extends Glyph {
     private String text;
     private BitmapFont font;
     private final GlyphLayout layout = new GlyphLayout(); //for calculating text dimensions
+    private boolean layoutDirty = true;
+
+    private BitmapFontCache cache;
+    private boolean cacheDirty = true;
+    private float cacheScaleX;
+    private float cacheScaleY;
+    private float cacheColor; // packed font colour the cache was built with
+    private float cacheAlpha;
 
     /**
      * Creates a new Glyph that renders text instead of a texture.
@@ -20,29 +40,68 @@ public class TextGlyph extends Glyph {
      * @param addToQueue If true, the glyph will be automatically added to the global glyph list for rendering.
      */
     public TextGlyph(String text, BitmapFont font, float x, float y, boolean addToQueue) {
-        super(null, x, y, addToQueue);
+        super((Texture) null, x, y, addToQueue);
         this.font = font;
         this.text = text;
-        updateHitbox();
     }
 
     @Override
-    public void render(SpriteBatch batch) {
+    public void render(SpriteBatch batch, float interpolation) {
         if (!isVisible || font == null || text == null || text.isEmpty()) return;
 
-        Color originalColor = font.getColor().cpy();
-        float originalScaleX = font.getScaleX();
-        float originalScaleY = font.getScaleY();
+        float drawX, drawY, drawScaleX, drawScaleY;
+        if (getParent() == null) {
+            drawX = lerp(previousX, x, interpolation);
+            drawY = lerp(previousY, y, interpolation);
+            drawScaleX = lerp(previousScaleX, scaleX, interpolation);
+            drawScaleY = lerp(previousScaleY, scaleY, interpolation);
+        } else {
+            Affine2 transform = getDrawTransform(interpolation);
+            drawX = transform.m02;
+            drawY = transform.m12;
+            drawScaleX = (float) Math.sqrt(transform.m00 * transform.m00 + transform.m10 * transform.m10);
+            drawScaleY = (float) Math.sqrt(transform.m01 * transform.m01 + transform.m11 * transform.m11);
+        }
+        float fontColor = font.getColor().toFloatBits();
+        if (cacheDirty || drawScaleX != cacheScaleX || drawScaleY != cacheScaleY || fontColor != cacheColor) {
+            rebuildCache(drawScaleX, drawScaleY, fontColor);
+        }
 
-        font.setColor(originalColor.r, originalColor.g, originalColor.b, this.alpha);
-        font.getData().setScale(this.scaleX, this.scaleY);
+        float drawAlpha = getDrawAlpha(interpolation);
+        if (drawAlpha <= 0f) return;
+        if (drawAlpha != cacheAlpha) {
+            cache.setAlphas(drawAlpha);
+            cacheAlpha = drawAlpha;
+        }
 
         //TODO: Fix rotation
-        font.draw(batch, text, x, y);
+        cache.setPosition(drawX, drawY);
+        cache.draw(batch);
+    }
+
+    /**
+     * Text is drawn from a font cache, never through the glyph shader.
+     * @return false
+     */
+    @Override
+    public boolean renderInstanced(InstancedGlyphRenderer renderer, float interpolation) {
+        return false;
+    }
 
-        //restore to original
-        font.setColor(originalColor);
+    private void rebuildCache(float scaleX, float scaleY, float fontColor) {
+        if (cache == null || cache.getFont() != font) cache = new BitmapFontCache(font, font.usesIntegerPositions());
+
+        float originalScaleX = font.getScaleX();
+        float originalScaleY = font.getScaleY();
+        font.getData().setScale(scaleX, scaleY);
+        cache.setText(text, 0, 0);
         font.getData().setScale(originalScaleX, originalScaleY);
+
+        cacheDirty = false;
+        cacheScaleX = scaleX;
+        cacheScaleY = scaleY;
+        cacheColor = fontColor;
+        cacheAlpha = Float.NaN; // setText took the font colour's alpha
     }
 
     /**
@@ -51,15 +110,15 @@ public class TextGlyph extends Glyph {
     @Override
     protected void updateHitbox() {
         if (font == null || text == null) {
-            hitbox.set(0, 0, 0, 0);
+            setHitbox(0, 0, 0, 0);
             return;
         }
 
-        float originalScaleX = font.getScaleX();
-        float originalScaleY = font.getScaleY();
-        font.getData().setScale(1.0f, 1.0f);
-        layout.setText(font, text);
-        font.getData().setScale(originalScaleX, originalScaleY);
+        updateLayout();
+        if (getParent() != null) {
+            setHitbox(getWorldTransform(), 0, -layout.height, layout.width, 0);
+            return;
+        }
 
         float unscaledWidth = layout.width;
         float unscaledHeight = layout.height;
@@ -70,7 +129,47 @@ public class TextGlyph extends Glyph {
         float visualX = this.x + (unscaledWidth / 2f) * (1 - scaleX);
         float visualY = this.y + (unscaledHeight / 2f) * (1 - scaleY);
 
-        hitbox.set(visualX, visualY, visualWidth, visualHeight);
+        setHitbox(visualX, visualY, visualWidth, visualHeight);
+    }
+
+    // Laying out goes through the shared font
+    @Override
+    protected void prepareHitboxRefresh() {
+        super.prepareHitboxRefresh();
+        if (hitboxDirty && font != null && text != null) updateLayout();
+    }
+
+    private void updateLayout() {
+        if (!layoutDirty) return;
+
+        float originalScaleX = font.getScaleX();
+        float originalScaleY = font.getScaleY();
+        font.getData().setScale(1.0f, 1.0f);
+        layout.setText(font, text);
+        font.getData().setScale(originalScaleX, originalScaleY);
+        layoutDirty = false;
+    }
+
+    /**
+     * Text is drawn down from its y-coordinate; the bounds reach a line height past the layout on both sides to
+     * cover ascenders and descenders. Rotation is ignored, like when drawing.
+     */
+    @Override
+    public Rectangle getDrawBounds(float interpolation, Rectangle out) {
+        if (font == null || text == null) return out.set(x, y, 0, 0);
+        updateLayout();
+        if (getParent() != null) {
+            float pad = font.getLineHeight();
+            return transformBounds(getDrawTransform(interpolation), 0, -layout.height - pad, layout.width, pad, out);
+        }
+
+        float drawScaleX = Math.abs(lerp(previousScaleX, scaleX, interpolation));
+        float drawScaleY = Math.abs(lerp(previousScaleY, scaleY, interpolation));
+        float width = layout.width * drawScaleX;
+        float height = layout.height * drawScaleY;
+        float pad = font.getLineHeight() * drawScaleY;
+        float drawY = lerp(previousY, y, interpolation);
+        return out.set(lerp(previousX, x, interpolation), drawY - height - pad, width, height + pad * 2f);
     }
 
     public String getText() {
@@ -78,12 +177,13 @@ public class TextGlyph extends Glyph {
     }
 
     /**
-     * Sets the text for this glyph and updates its hitbox.
+     * Sets the text for this glyph; the layout is redone when it is next needed.
      * @param text The new text to display.
      */
     public void setText(String text) {
+        if (text == null ? this.text == null : text.equals(this.text)) return;
         this.text = text;
-        updateHitbox();
+        textChanged();
     }
 
     public BitmapFont getFont() {
@@ -91,13 +191,31 @@ public class TextGlyph extends Glyph {
     }
 
     public void setFont(BitmapFont font) {
+        if (this.font == font) return;
         this.font = font;
-        updateHitbox();
+        textChanged();
+    }
+
+    // Text scales around the point it is drawn from, not around a centre
+    @Override
+    protected float getLocalWidth() {
+        return 0;
+    }
+
+    @Override
+    protected float getLocalHeight() {
+        return 0;
+    }
+
+    private void textChanged() {
+        layoutDirty = true;
+        cacheDirty = true;
+        hitboxDirty = true;
     }
 
     // Override to prevent null pointer exceptions, as this glyph has no texture.
     @Override
-    public com.badlogic.gdx.graphics.Texture getTexture() {
+    public Texture getTexture() {
         return null;
     }
 }
@@ -0,0 +1,434 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import it.yuruni.jobs.JobSystem;
+
+import java.util.Arrays;
+
+/**
+ * Data-oriented tween storage behind {@link AnimationManager}.
+ * Every property channel keeps its tweens in parallel primitive arrays and is advanced,
+ * eased and written back in tight loops. Glyphs are referenced through slot indices so
+ * the hot loops never touch a per-tween object.
+ * <p>
+ * Updates can be spread over a {@link JobSystem}: progress and easing are split by tween, and the write back is
+ * split into disjoint ranges of glyph slots, so every glyph is written by one thread, in the same order as serially.
+ * The tweens are grouped by slot once per update, so a range only visits its own tweens.
+ */
+final class TweenEngine {
+    static final int MOVE = 0;
+    static final int FADE = 1;
+    static final int SCALE = 2;
+    static final int ROTATION = 3;
+
+    private final TweenChannel move = new TweenChannel(MOVE, 2);
+    private final TweenChannel fade = new TweenChannel(FADE, 1);
+    private final TweenChannel scale = new TweenChannel(SCALE, 2);
+    private final TweenChannel rotation = new TweenChannel(ROTATION, 1);
+    private final TweenChannel[] channels = {move, fade, scale, rotation};
+    private final PulseChannel pulse = new PulseChannel();
+    private static final int TWEEN_GRAIN = 1024; // Tweens eased per range
+    private static final int SLOT_GRAIN = 256; // Glyph slots written per range
+
+    private final JobSystem.RangeTask writeBack = this::writeBack;
+
+    // Glyph slot registry, slots are shared by every tween on the same glyph
+    private Glyph[] slots = new Glyph[64];
+    private int[] slotRefs = new int[64];
+    private int slotCount;
+    private final IntArray freeSlots = new IntArray();
+    private final ObjectIntMap<Glyph> slotOf = new ObjectIntMap<>();
+
+    void update(float delta) {
+        update(delta, JobSystem.SERIAL);
+    }
+
+    /**
+     * @param jobs runs the parallel parts; the setters of the tweened glyphs must only touch the glyph and its
+     *             descendants' dirty flags
+     */
+    void update(float delta, JobSystem jobs) {
+        pulse.advance(delta);
+        pulse.bySlot.build(pulse.target, pulse.size, slotCount);
+        for (TweenChannel channel : channels) {
+            channel.advance(delta, jobs);
+            channel.bySlot.build(channel.target, channel.size, slotCount);
+        }
+        jobs.parallelFor(slotCount, SLOT_GRAIN, writeBack);
+    }
+
+    private void writeBack(int fromSlot, int toSlot) {
+        // Pulses first so that an explicit scale tween wins while it runs
+        pulse.write(fromSlot, toSlot);
+        for (TweenChannel channel : channels) {
+            channel.write(fromSlot, toSlot);
+        }
+    }
+
+    void addMove(Glyph target, float toX, float toY, float duration, Easing easing) {
+        move.add(acquireSlot(target), target.getX(), toX, target.getY(), toY, duration, easing);
+    }
+
+    void addFade(Glyph target, float toAlpha, float duration, Easing easing) {
+        fade.add(acquireSlot(target), target.getAlpha(), toAlpha, 0, 0, duration, easing);
+    }
+
+    void addScale(Glyph target, float toScaleX, float toScaleY, float duration, Easing easing) {
+        scale.add(acquireSlot(target), target.getScaleX(), toScaleX, target.getScaleY(), toScaleY, duration, easing);
+    }
+
+    void addRotation(Glyph target, float toRotation, float duration, Easing easing) {
+        rotation.add(acquireSlot(target), target.getRotation(), toRotation, 0, 0, duration, easing);
+    }
+
+    void addPulse(Glyph target, float bpm, float magnitude) {
+        pulse.add(acquireSlot(target), target.getScaleX(), target.getScaleY(), 60f / bpm, magnitude);
+    }
+
+    void removeAll(Glyph target) {
+        int slot = slotOf.get(target, -1);
+        if (slot < 0) return;
+
+        pulse.removeSlot(slot);
+        for (TweenChannel channel : channels) {
+            channel.removeSlot(slot);
+        }
+    }
+
+    int size() {
+        int total = pulse.size;
+        for (TweenChannel channel : channels) {
+            total += channel.size;
+        }
+        return total;
+    }
+
+    private int acquireSlot(Glyph glyph) {
+        int slot = slotOf.get(glyph, -1);
+        if (slot < 0) {
+            if (freeSlots.size > 0) {
+                slot = freeSlots.pop();
+            } else {
+                if (slotCount == slots.length) {
+                    slots = Arrays.copyOf(slots, slotCount << 1);
+                    slotRefs = Arrays.copyOf(slotRefs, slotCount << 1);
+                }
+                slot = slotCount++;
+            }
+            slots[slot] = glyph;
+            slotOf.put(glyph, slot);
+        }
+        slotRefs[slot]++;
+        return slot;
+    }
+
+    private void releaseSlot(int slot) {
+        if (--slotRefs[slot] > 0) return;
+
+        slotOf.remove(slots[slot], -1);
+        slots[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    /**
+     * One property channel. Tweens are stored in insertion order; when several tweens drive
+     * the same property of the same glyph the oldest one is written last and wins.
+     */
+    private final class TweenChannel {
+        private final int property;
+        private final boolean twoComponents;
+        private int size;
+
+        private int[] target = new int[16];
+        private int[] easing = new int[16];
+        private float[] time = new float[16];
+        private float[] duration = new float[16];
+        private float[] start0 = new float[16];
+        private float[] end0 = new float[16];
+        private float[] start1;
+        private float[] end1;
+        private float[] eased = new float[16]; // scratch, eased progress of the current update
+        private float delta; // of the current update, read by the ranges of advance
+        private final JobSystem.RangeTask advance = this::advance;
+        private final SlotPartition bySlot = new SlotPartition();
+
+        TweenChannel(int property, int components) {
+            this.property = property;
+            this.twoComponents = components == 2;
+            if (twoComponents) {
+                start1 = new float[16];
+                end1 = new float[16];
+            }
+        }
+
+        void add(int slot, float from0, float to0, float from1, float to1, float duration, Easing easing) {
+            if (size == target.length) grow(size << 1);
+            int i = size++;
+            this.target[i] = slot;
+            this.easing[i] = easing.ordinal();
+            this.time[i] = 0;
+            this.duration[i] = duration;
+            start0[i] = from0;
+            end0[i] = to0;
+            if (twoComponents) {
+                start1[i] = from1;
+                end1[i] = to1;
+            }
+        }
+
+        /**
+         * Drops finished tweens, then advances time and eases the rest. Nothing is written to the glyphs yet.
+         */
+        void advance(float delta, JobSystem jobs) {
+            compactFinished();
+            this.delta = delta;
+            jobs.parallelFor(size, TWEEN_GRAIN, advance);
+        }
+
+        private void advance(int from, int to) {
+            // Advance time and compute raw progress
+            final float delta = this.delta;
+            final float[] time = this.time;
+            final float[] duration = this.duration;
+            final float[] eased = this.eased;
+            for (int i = from; i < to; i++) {
+                float d = duration[i];
+                float t = time[i] + delta;
+                if (t >= d) {
+                    time[i] = d; // Ensure time is exactly duration when finished
+                    eased[i] = 1f;
+                } else {
+                    time[i] = t;
+                    eased[i] = t / d;
+                }
+            }
+
+            // Ease
+            final int[] easing = this.easing;
+            for (int i = from; i < to; i++) {
+                eased[i] = EasingTable.apply(eased[i], easing[i]);
+            }
+        }
+
+        /**
+         * Writes the eased values of the tweens on glyphs in a slot range.
+         */
+        void write(int fromSlot, int toSlot) {
+            // Write back, newest first so the oldest tween on a property has the final say
+            final int[] order = bySlot.order;
+            final int first = bySlot.start[fromSlot];
+            final int end = bySlot.start[toSlot];
+            final int[] target = this.target;
+            final float[] eased = this.eased;
+            final Glyph[] glyphs = slots;
+            final float[] start0 = this.start0;
+            final float[] end0 = this.end0;
+            switch (property) {
+                case MOVE:
+                    for (int k = first; k < end; k++) {
+                        int i = order[k];
+                        int slot = target[i];
+                        Glyph glyph = glyphs[slot];
+                        float e = eased[i];
+                        glyph.setX(start0[i] + (end0[i] - start0[i]) * e);
+                        glyph.setY(start1[i] + (end1[i] - start1[i]) * e);
+                    }
+                    break;
+                case FADE:
+                    for (int k = first; k < end; k++) {
+                        int i = order[k];
+                        int slot = target[i];
+                        glyphs[slot].setAlpha(start0[i] + (end0[i] - start0[i]) * eased[i]);
+                    }
+                    break;
+                case SCALE:
+                    for (int k = first; k < end; k++) {
+                        int i = order[k];
+                        int slot = target[i];
+                        Glyph glyph = glyphs[slot];
+                        float e = eased[i];
+                        glyph.setScaleX(start0[i] + (end0[i] - start0[i]) * e);
+                        glyph.setScaleY(start1[i] + (end1[i] - start1[i]) * e);
+                    }
+                    break;
+                case ROTATION:
+                    for (int k = first; k < end; k++) {
+                        int i = order[k];
+                        int slot = target[i];
+                        glyphs[slot].setRotation(start0[i] + (end0[i] - start0[i]) * eased[i]);
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * Drops tweens that reached their duration on a previous update, keeping insertion order.
+         */
+        private void compactFinished() {
+            int w = 0;
+            for (int i = 0; i < size; i++) {
+                if (time[i] >= duration[i]) {
+                    releaseSlot(target[i]);
+                } else {
+                    if (w != i) copy(i, w);
+                    w++;
+                }
+            }
+            size = w;
+        }
+
+        void removeSlot(int slot) {
+            int w = 0;
+            for (int i = 0; i < size; i++) {
+                if (target[i] == slot) {
+                    releaseSlot(slot);
+                } else {
+                    if (w != i) copy(i, w);
+                    w++;
+                }
+            }
+            size = w;
+        }
+
+        private void copy(int from, int to) {
+            target[to] = target[from];
+            easing[to] = easing[from];
+            time[to] = time[from];
+            duration[to] = duration[from];
+            start0[to] = start0[from];
+            end0[to] = end0[from];
+            if (twoComponents) {
+                start1[to] = start1[from];
+                end1[to] = end1[from];
+            }
+        }
+
+        private void grow(int capacity) {
+            target = Arrays.copyOf(target, capacity);
+            easing = Arrays.copyOf(easing, capacity);
+            time = Arrays.copyOf(time, capacity);
+            duration = Arrays.copyOf(duration, capacity);
+            start0 = Arrays.copyOf(start0, capacity);
+            end0 = Arrays.copyOf(end0, capacity);
+            eased = Arrays.copyOf(eased, capacity);
+            if (twoComponents) {
+                start1 = Arrays.copyOf(start1, capacity);
+                end1 = Arrays.copyOf(end1, capacity);
+            }
+        }
+    }
+
+    /**
+     * Beat pulses. They run until the glyph's animations are stopped.
+     */
+    private final class PulseChannel {
+        private int size;
+        private int[] target = new int[8];
+        private float[] time = new float[8];
+        private float[] beatDuration = new float[8];
+        private float[] magnitude = new float[8];
+        private float[] baseScaleX = new float[8];
+        private float[] baseScaleY = new float[8];
+        private float[] amount = new float[8]; // scratch, pulse of the current update
+        private final SlotPartition bySlot = new SlotPartition();
+
+        void add(int slot, float scaleX, float scaleY, float beatDuration, float magnitude) {
+            if (size == target.length) grow(size << 1);
+            int i = size++;
+            this.target[i] = slot;
+            this.time[i] = 0;
+            this.beatDuration[i] = beatDuration;
+            this.magnitude[i] = magnitude;
+            baseScaleX[i] = scaleX;
+            baseScaleY[i] = scaleY;
+        }
+
+        void advance(float delta) {
+            for (int i = 0; i < size; i++) {
+                float t = time[i] + delta;
+                time[i] = t;
+
+                float beat = beatDuration[i];
+                float beatProgress = (t % beat) / beat;
+
+                // A sine wave gives a smooth 0 -> 1 -> 0 pulse over the beat duration
+                float pulseProgress = (float) Math.sin(beatProgress * Math.PI);
+                amount[i] = (magnitude[i] - 1f) * pulseProgress;
+            }
+        }
+
+        void write(int fromSlot, int toSlot) {
+            final Glyph[] glyphs = slots;
+            final int[] order = bySlot.order;
+            for (int k = bySlot.start[fromSlot], end = bySlot.start[toSlot]; k < end; k++) {
+                int i = order[k];
+                Glyph glyph = glyphs[target[i]];
+                glyph.setScaleX(baseScaleX[i] + baseScaleX[i] * amount[i]);
+                glyph.setScaleY(baseScaleY[i] + baseScaleY[i] * amount[i]);
+            }
+        }
+
+        void removeSlot(int slot) {
+            int w = 0;
+            for (int i = 0; i < size; i++) {
+                if (target[i] == slot) {
+                    releaseSlot(slot);
+                } else {
+                    if (w != i) {
+                        target[w] = target[i];
+                        time[w] = time[i];
+                        beatDuration[w] = beatDuration[i];
+                        magnitude[w] = magnitude[i];
+                        baseScaleX[w] = baseScaleX[i];
+                        baseScaleY[w] = baseScaleY[i];
+                    }
+                    w++;
+                }
+            }
+            size = w;
+        }
+
+        private void grow(int capacity) {
+            target = Arrays.copyOf(target, capacity);
+            time = Arrays.copyOf(time, capacity);
+            beatDuration = Arrays.copyOf(beatDuration, capacity);
+            magnitude = Arrays.copyOf(magnitude, capacity);
+            baseScaleX = Arrays.copyOf(baseScaleX, capacity);
+            baseScaleY = Arrays.copyOf(baseScaleY, capacity);
+            amount = Arrays.copyOf(amount, capacity);
+        }
+    }
+
+    /**
+     * The tweens of a channel grouped by glyph slot, newest first within a slot, so the tweens on a range of slots
+     * are a range of {@link #order}.
+     */
+    private static final class SlotPartition {
+        int[] order = new int[16]; // tween indices
+        int[] start = new int[65]; // where each slot's tweens start in order, the entry after the last slot is the end
+
+        void build(int[] target, int size, int slotCount) {
+            if (order.length < size) order = new int[Math.max(size, order.length << 1)];
+            if (start.length <= slotCount) start = new int[Math.max(slotCount + 1, start.length << 1)];
+            int[] start = this.start;
+            Arrays.fill(start, 0, slotCount + 1, 0);
+
+            // Count per slot, then turn the counts into start offsets
+            for (int i = 0; i < size; i++) {
+                start[target[i] + 1]++;
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                start[slot + 1] += start[slot];
+            }
+            // Place newest first; every slot's offset moves on to the next slot's start, shift them back after
+            for (int i = size - 1; i >= 0; i--) {
+                order[start[target[i]]++] = i;
+            }
+            for (int slot = slotCount - 1; slot > 0; slot--) {
+                start[slot] = start[slot - 1];
+            }
+            start[0] = 0;
+        }
+    }
+}
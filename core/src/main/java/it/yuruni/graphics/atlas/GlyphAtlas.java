@@ -0,0 +1,238 @@
+package it.yuruni.graphics.atlas;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Packs glyph images into shared texture pages so the SpriteBatch only flushes when a page changes.
+ * Images are either packed at load time from a list of asset paths, or read from an atlas that
+ * the {@code packGlyphAtlas} Gradle task produced at build time from the same list.
+ */
+public class GlyphAtlas implements Disposable {
+    public static final int DEFAULT_PAGE_SIZE = 2048;
+    private static final int PADDING = 2;
+
+    private final int pageSize;
+    private final Array<PendingImage> pending = new Array<>();
+    private PixmapPacker packer; // Packed pages waiting for their upload, see pack()
+    private TextureAtlas atlas;
+    private final boolean ownsPages; // False when an AssetManager loaded the pages and unloads them
+
+    public GlyphAtlas() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param pageSize the width and height of each atlas page, every image must fit in one page
+     */
+    public GlyphAtlas(int pageSize) {
+        this.pageSize = pageSize;
+        this.ownsPages = true;
+    }
+
+    GlyphAtlas(TextureAtlas atlas, boolean ownsPages) {
+        this.pageSize = 0;
+        this.atlas = atlas;
+        this.ownsPages = ownsPages;
+    }
+
+    /**
+     * Loads an atlas that was packed at build time.
+     * @param packFile the .atlas file
+     * @return a built atlas
+     */
+    public static GlyphAtlas load(FileHandle packFile) {
+        return new GlyphAtlas(new TextureAtlas(packFile), true);
+    }
+
+    /**
+     * Uses the prebuilt atlas next to the list file if there is one, otherwise packs the listed images now.
+     * The list holds one asset path per line, relative to the asset root; blank lines and lines starting with # are ignored.
+     * Regions are named after their path without the extension, e.g. "logo/shortLogo".
+     * @param listFile the image list, e.g. atlas/glyphs.txt
+     * @return a built atlas
+     */
+    public static GlyphAtlas loadOrPack(FileHandle listFile) {
+        FileHandle packFile = packFile(listFile);
+        if (packFile.exists()) return load(packFile);
+
+        GlyphAtlas glyphAtlas = new GlyphAtlas();
+        for (String path : readList(listFile)) {
+            glyphAtlas.add(regionName(path), Gdx.files.getFileHandle(path, listFile.type()));
+        }
+        glyphAtlas.build();
+        return glyphAtlas;
+    }
+
+    /**
+     * Queues the atlas of a list file on a manager that was made by {@link it.yuruni.assets.Assets#createManager()},
+     * see {@link GlyphAtlasLoader}. Images are decoded and packed on the manager's loader thread and the pages
+     * uploaded as one of its render thread steps, so loading stays inside the frame budget given to
+     * {@link AssetManager#update(int)}.
+     * @param assets the manager to queue on
+     * @param listFile the image list, an internal file
+     */
+    public static void queue(AssetManager assets, FileHandle listFile) {
+        assets.load(listFile.path(), GlyphAtlas.class);
+    }
+
+    /**
+     * Gets an atlas queued with {@link #queue(AssetManager, FileHandle)} once the manager has loaded it.
+     * The manager owns the atlas: unload the list file's path instead of disposing it.
+     * @param assets the manager the atlas was queued on
+     * @param listFile the same list file that was queued
+     * @return a built atlas
+     */
+    public static GlyphAtlas fromAssets(AssetManager assets, FileHandle listFile) {
+        return assets.get(listFile.path(), GlyphAtlas.class);
+    }
+
+    /**
+     * @param listFile the image list
+     * @return the atlas the {@code packGlyphAtlas} task writes for that list, which may not exist
+     */
+    public static FileHandle packFile(FileHandle listFile) {
+        return listFile.sibling(listFile.nameWithoutExtension() + ".atlas");
+    }
+
+    /**
+     * Reads an image list file.
+     * @param listFile the list file
+     * @return the asset paths in the list
+     */
+    public static Array<String> readList(FileHandle listFile) {
+        Array<String> paths = new Array<>();
+        for (String line : listFile.readString("UTF-8").split("\n")) {
+            String path = line.trim();
+            if (path.isEmpty() || path.startsWith("#")) continue;
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * @param path an asset path such as "ui/menuRect.png"
+     * @return the region name used for that image, e.g. "ui/menuRect"
+     */
+    public static String regionName(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot < 0 ? path : path.substring(0, dot);
+    }
+
+    /**
+     * Queues an image file to be packed by {@link #build()}.
+     * @param name the region name
+     * @param file the image file
+     */
+    public void add(String name, FileHandle file) {
+        add(name, new Pixmap(file));
+    }
+
+    /**
+     * Queues a pixmap to be packed by {@link #build()}. The atlas takes ownership of the pixmap.
+     * @param name the region name
+     * @param pixmap the image
+     */
+    public void add(String name, Pixmap pixmap) {
+        enqueue(name, pixmap, true);
+    }
+
+    private void enqueue(String name, Pixmap pixmap, boolean owned) {
+        if (atlas != null || packer != null) throw new IllegalStateException("Atlas has already been packed.");
+        if (pixmap.getWidth() + PADDING * 2 > pageSize || pixmap.getHeight() + PADDING * 2 > pageSize) {
+            if (owned) pixmap.dispose();
+            throw new IllegalArgumentException("Image " + name + " does not fit in a " + pageSize + "px atlas page.");
+        }
+        pending.add(new PendingImage(name, pixmap, owned));
+    }
+
+    /**
+     * Packs every queued image into pages without touching the GPU, so it can run on any thread.
+     * {@link #build()} uploads the pages afterwards.
+     */
+    public void pack() {
+        if (atlas != null || packer != null) return;
+
+        // Tallest first packs noticeably tighter with the skyline strategy
+        pending.sort((a, b) -> Integer.compare(b.pixmap.getHeight(), a.pixmap.getHeight()));
+
+        packer = new PixmapPacker(pageSize, pageSize, Pixmap.Format.RGBA8888, PADDING, true,
+                new PixmapPacker.SkylineStrategy());
+        for (PendingImage image : pending) {
+            packer.pack(image.name, image.pixmap);
+            image.dispose();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Packs every queued image into pages, unless {@link #pack()} already did, and uploads them.
+     * Call on the render thread.
+     * @return the packed atlas
+     */
+    public TextureAtlas build() {
+        if (atlas != null) return atlas;
+
+        pack();
+        atlas = packer.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        // Pages are already on the GPU; the desktop backend never loses its context, so the CPU copies can go
+        packer.dispose();
+        packer = null;
+        return atlas;
+    }
+
+    /**
+     * @param name the region name
+     * @return the packed region
+     */
+    public TextureRegion findRegion(String name) {
+        if (atlas == null) throw new IllegalStateException("Atlas has not been built yet.");
+        TextureRegion region = atlas.findRegion(name);
+        if (region == null) throw new IllegalArgumentException("No region named " + name + " in the glyph atlas.");
+        return region;
+    }
+
+    /**
+     * @return the number of texture pages, which is the number of draw calls a full scene needs at best
+     */
+    public int getPageCount() {
+        return atlas == null ? 0 : atlas.getTextures().size;
+    }
+
+    @Override
+    public void dispose() {
+        for (PendingImage image : pending) {
+            image.dispose();
+        }
+        pending.clear();
+        if (packer != null) {
+            packer.dispose();
+            packer = null;
+        }
+        if (atlas != null && ownsPages) atlas.dispose();
+    }
+
+    private static class PendingImage {
+        final String name;
+        final Pixmap pixmap;
+        final boolean owned;
+
+        PendingImage(String name, Pixmap pixmap, boolean owned) {
+            this.name = name;
+            this.pixmap = pixmap;
+            this.owned = owned;
+        }
+
+        void dispose() {
+            if (owned) pixmap.dispose();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package it.yuruni.graphics.atlas;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads a {@link GlyphAtlas} from its image list file. With a prebuilt atlas next to the list, the manager loads
+ * that as a dependency and the glyph atlas only wraps it. Otherwise the listed images are decoded and packed on
+ * the loader thread and only the page upload runs on the render thread.
+ */
+public class GlyphAtlasLoader extends AsynchronousAssetLoader<GlyphAtlas, GlyphAtlasLoader.GlyphAtlasParameter> {
+    private GlyphAtlas packed; // Packed by loadAsync, uploaded by loadSync
+
+    public GlyphAtlasLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, GlyphAtlasParameter parameter) {
+        FileHandle packFile = GlyphAtlas.packFile(file);
+        if (!packFile.exists()) return null;
+
+        Array<AssetDescriptor> dependencies = new Array<>();
+        dependencies.add(new AssetDescriptor<>(packFile, TextureAtlas.class));
+        return dependencies;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, GlyphAtlasParameter parameter) {
+        packed = null;
+        if (GlyphAtlas.packFile(file).exists()) return;
+
+        GlyphAtlas glyphAtlas = new GlyphAtlas();
+        try {
+            for (String path : GlyphAtlas.readList(file)) {
+                glyphAtlas.add(GlyphAtlas.regionName(path), resolve(path));
+            }
+            glyphAtlas.pack();
+        } catch (RuntimeException e) {
+            glyphAtlas.dispose();
+            throw e;
+        }
+        packed = glyphAtlas;
+    }
+
+    @Override
+    public GlyphAtlas loadSync(AssetManager manager, String fileName, FileHandle file, GlyphAtlasParameter parameter) {
+        GlyphAtlas glyphAtlas = packed;
+        packed = null;
+        if (glyphAtlas == null) {
+            // The prebuilt pages are the manager's, they are unloaded with this atlas
+            return new GlyphAtlas(manager.get(GlyphAtlas.packFile(file).path(), TextureAtlas.class), false);
+        }
+        glyphAtlas.build();
+        return glyphAtlas;
+    }
+
+    @Override
+    public void unloadAsync(AssetManager manager, String fileName, FileHandle file, GlyphAtlasParameter parameter) {
+        if (packed != null) packed.dispose();
+        packed = null;
+    }
+
+    public static class GlyphAtlasParameter extends AssetLoaderParameters<GlyphAtlas> {
+    }
+}
@@ -0,0 +1,195 @@
+package it.yuruni.graphics.effects;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+/**
+ * Glow around bright parts of the image. The bright parts are extracted into a chain of downsampled buffers at 1/2,
+ * 1/4 and 1/8 of the window size, each level is blurred with a separable Gaussian and the levels are added on top
+ * of the image. Every blur pass runs below native resolution, and the smaller levels spread the glow wide for
+ * almost nothing. The {@link Quality} picks how many levels and blur passes run; at zero intensity the effect is
+ * skipped entirely.
+ */
+public class BloomEffect extends PostEffect {
+    private static final int LEVELS = 3; // 1/2, 1/4, 1/8
+
+    /**
+     * How much work the glow does, from cheapest to smoothest.
+     */
+    public enum Quality {
+        /** Starts at 1/4 resolution, one blur per level. */
+        LOW(1, 1),
+        /** Starts at 1/2 resolution, one blur per level. */
+        MEDIUM(0, 1),
+        /** Starts at 1/2 resolution, two blurs per level for a rounder falloff. */
+        HIGH(0, 2);
+
+        final int firstLevel;
+        final int blurPasses;
+
+        Quality(int firstLevel, int blurPasses) {
+            this.firstLevel = firstLevel;
+            this.blurPasses = blurPasses;
+        }
+    }
+
+    // Each level holds the result in a and uses b for the horizontal half of the blur
+    private final FrameBuffer[] levelA = new FrameBuffer[LEVELS];
+    private final FrameBuffer[] levelB = new FrameBuffer[LEVELS];
+    private ShaderProgram brightProgram;
+    private ShaderProgram blurProgram;
+
+    private Quality quality = Quality.MEDIUM;
+    private float threshold = 0.7f;
+    private float knee = 0.2f;
+    private float intensity = 0f;
+    // Flash, see flash()
+    private float flashIntensity = 0f;
+    private float flashDuration;
+    private float flashTime;
+
+    @Override
+    protected boolean isActive() {
+        return getCurrentIntensity() > 0f;
+    }
+
+    /**
+     * @return the intensity the glow is drawn with, including a running flash
+     */
+    public float getCurrentIntensity() {
+        if (flashTime >= flashDuration) return intensity;
+        return intensity + flashIntensity * (1f - flashTime / flashDuration);
+    }
+
+    /**
+     * Adds a glow on top of the steady intensity that fades out linearly.
+     * @param intensity the extra intensity at the start
+     * @param duration how long the fade takes, in seconds
+     */
+    public void flash(float intensity, float duration) {
+        if (duration <= 0f) throw new IllegalArgumentException("Flash duration must be positive.");
+        flashIntensity = intensity;
+        flashDuration = duration;
+        flashTime = 0f;
+    }
+
+    @Override
+    public void update(float delta) {
+        if (flashTime < flashDuration) flashTime = Math.min(flashDuration, flashTime + delta);
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        disposeLevels();
+        for (int i = 0; i < LEVELS; i++) {
+            int divisor = 2 << i;
+            int levelWidth = Math.max(1, width / divisor);
+            int levelHeight = Math.max(1, height / divisor);
+            levelA[i] = new FrameBuffer(Pixmap.Format.RGBA8888, levelWidth, levelHeight, false);
+            levelB[i] = new FrameBuffer(Pixmap.Format.RGBA8888, levelWidth, levelHeight, false);
+        }
+    }
+
+    @Override
+    protected void apply(ShaderManager manager, Texture source, FrameBuffer target) {
+        if (brightProgram == null) {
+            brightProgram = manager.getProgram("shaders/screen.vert", "shaders/bloom_bright.frag");
+            blurProgram = manager.getProgram("shaders/screen.vert", "shaders/bloom_blur.frag");
+        }
+        int first = quality.firstLevel;
+
+        // Bright pass, downsampling the image into the first level
+        manager.beginPass(brightProgram, levelA[first]);
+        brightProgram.setUniformf("u_texelSize", 1f / source.getWidth(), 1f / source.getHeight());
+        brightProgram.setUniformf("u_threshold", threshold);
+        brightProgram.setUniformf("u_knee", knee);
+        manager.endPass(source);
+
+        for (int i = first; i < LEVELS; i++) {
+            // Each level starts from the blurred level above it
+            if (i > first) {
+                manager.beginPass(null, levelA[i]);
+                manager.endPass(levelA[i - 1].getColorBufferTexture());
+            }
+            for (int pass = 0; pass < quality.blurPasses; pass++) {
+                blur(manager, levelA[i], levelB[i], 1f / levelA[i].getWidth(), 0f);
+                blur(manager, levelB[i], levelA[i], 0f, 1f / levelA[i].getHeight());
+            }
+        }
+
+        // Composite: the image, then every level added on top
+        SpriteBatch batch = manager.beginPass(null, target);
+        manager.draw(source);
+        batch.enableBlending();
+        batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE);
+        float levelIntensity = getCurrentIntensity() / (LEVELS - first);
+        batch.setColor(levelIntensity, levelIntensity, levelIntensity, 1f);
+        for (int i = first; i < LEVELS; i++) {
+            manager.draw(levelA[i].getColorBufferTexture());
+        }
+        manager.endPass();
+    }
+
+    private void blur(ShaderManager manager, FrameBuffer from, FrameBuffer to, float directionX, float directionY) {
+        manager.beginPass(blurProgram, to);
+        blurProgram.setUniformf("u_direction", directionX, directionY);
+        manager.endPass(from.getColorBufferTexture());
+    }
+
+    public Quality getQuality() {
+        return quality;
+    }
+
+    public void setQuality(Quality quality) {
+        if (quality == null) throw new IllegalArgumentException("Quality cannot be null.");
+        this.quality = quality;
+    }
+
+    public float getIntensity() {
+        return intensity;
+    }
+
+    /**
+     * @param intensity the steady strength of the glow, 0 turns it off
+     */
+    public void setIntensity(float intensity) {
+        if (intensity < 0f) throw new IllegalArgumentException("Intensity cannot be negative.");
+        this.intensity = intensity;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param threshold the brightness, from 0 to 1, above which pixels glow
+     */
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param knee how far below the threshold the glow starts fading in
+     */
+    public void setKnee(float knee) {
+        this.knee = knee;
+    }
+
+    private void disposeLevels() {
+        for (int i = 0; i < LEVELS; i++) {
+            if (levelA[i] != null) levelA[i].dispose();
+            if (levelB[i] != null) levelB[i].dispose();
+            levelA[i] = null;
+            levelB[i] = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposeLevels();
+    }
+}
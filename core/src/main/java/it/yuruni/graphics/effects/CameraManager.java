@@ -1,11 +1,13 @@
 package it.yuruni.graphics.effects;
 
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
-import it.yuruni.Utils;
 import it.yuruni.graphics.animation.Easing;
+import it.yuruni.graphics.animation.EasingTable;
 
 public class CameraManager {
     private final OrthographicCamera camera;
@@ -16,6 +18,8 @@ public class CameraManager {
     private float intervalTimer = 0f;
     private float currentShakeX = 0f;
     private float currentShakeY = 0f;
+    // Its own generator, the camera updates in a job next to the particles, which use MathUtils'
+    private final RandomXS128 random = new RandomXS128();
 
     private final Array<CameraAnimation> animations = new Array<>();
     private final Pool<CameraAnimation> animationPool = new Pool<CameraAnimation>() {
@@ -25,6 +29,7 @@ public class CameraManager {
         }
     };
     private float currentRotation = 0f;
+    private final Vector3 corner = new Vector3();
 
     public CameraManager(OrthographicCamera camera) {
         this.camera = camera;
@@ -94,6 +99,25 @@ public class CameraManager {
         camera.update();
     }
 
+    /**
+     * Computes the axis aligned world area the camera sees, from the inverse of its combined matrix, so rotation
+     * and shake are included. Call it after {@link #applyEffects()}.
+     * @param out receives the bounds
+     * @return out
+     */
+    public Rectangle getViewBounds(Rectangle out) {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < 4; i++) {
+            corner.set((i & 1) == 0 ? -1 : 1, (i & 2) == 0 ? -1 : 1, -1).prj(camera.invProjectionView);
+            minX = Math.min(minX, corner.x);
+            minY = Math.min(minY, corner.y);
+            maxX = Math.max(maxX, corner.x);
+            maxY = Math.max(maxY, corner.y);
+        }
+        return out.set(minX, minY, maxX - minX, maxY - minY);
+    }
+
     /**
      * Resets transient, per-frame effects like screenshake.
      * Call this immediately after rendering your scene.
@@ -117,8 +141,8 @@ public class CameraManager {
             } else {
                 if (intervalTimer <= 0) {
                     intervalTimer = shakeInterval;
-                    currentShakeX = MathUtils.random(-1f, 1f) * shakeIntensity;
-                    currentShakeY = MathUtils.random(-1f, 1f) * shakeIntensity;
+                    currentShakeX = (random.nextFloat() * 2f - 1f) * shakeIntensity;
+                    currentShakeY = (random.nextFloat() * 2f - 1f) * shakeIntensity;
                 }
             }
         }
@@ -167,7 +191,7 @@ public class CameraManager {
             time = Math.min(duration, time + delta);
 
             float progress = (duration == 0) ? 1f : time / duration;
-            float easedProgress = Utils.applyEasing(progress, this.easing);
+            float easedProgress = EasingTable.apply(progress, this.easing);
 
             currentRotation = startRotation + (toRotation - startRotation) * easedProgress;
         }
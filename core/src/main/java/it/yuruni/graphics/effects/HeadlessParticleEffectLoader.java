@@ -0,0 +1,41 @@
+package it.yuruni.graphics.effects;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.ParticleEffectLoader.ParticleEffectParameter;
+import com.badlogic.gdx.assets.loaders.SynchronousAssetLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads {@link ParticleEffect}s without their images, for runs without a GL context such as
+ * {@link it.yuruni.Main#simulateOnly}. Every emitter gets one blank sprite, which is all the simulation needs;
+ * the effects can't be drawn.
+ */
+public class HeadlessParticleEffectLoader extends SynchronousAssetLoader<ParticleEffect, ParticleEffectParameter> {
+    public HeadlessParticleEffectLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public ParticleEffect load(AssetManager manager, String fileName, FileHandle file, ParticleEffectParameter parameter) {
+        ParticleEffect effect = new ParticleEffect();
+        effect.loadEmitters(file);
+        Array<ParticleEmitter> emitters = effect.getEmitters();
+        for (int i = 0; i < emitters.size; i++) {
+            Array<Sprite> sprites = new Array<>(1);
+            sprites.add(new Sprite());
+            emitters.get(i).setSprites(sprites);
+        }
+        return effect;
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, ParticleEffectParameter parameter) {
+        return null;
+    }
+}
@@ -1,49 +1,97 @@
 package it.yuruni.graphics.effects;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
 import it.yuruni.Main;
 import it.yuruni.graphics.animation.Glyph;
 
-public class ParallaxManager {
+/**
+ * Moves glyphs against the pointer and the arrow keys. It follows input through its events, so add it to an
+ * {@link com.badlogic.gdx.InputMultiplexer}; it never consumes them.
+ */
+public class ParallaxManager extends InputAdapter {
 
     private final Array<ParallaxLayer> layers = new Array<>();
+    // Pointer offset from the screen center, and the arrow keys held down
+    private float pointerOffsetX;
+    private float pointerOffsetY;
+    private boolean left, right, down, up;
 
     /**
      * Registers a Glyph to be part of the parallax effect.
      * The glyph will be centered and its original position stored.
      * @param glyph The glyph to be moved.
      * @param strength How much the glyph should move in response to input. A small value like 0.02 is a good start.
-     * @param smoothness How smoothly the glyph should move to its target position. A small value like 0.1 is a good start.
+     * @param smoothness How smoothly the glyph should move to its target position, as the share of the distance covered in
+     *                   a 60th of a second. A small value like 0.1 is a good start.
      */
     public void addLayer(Glyph glyph, float strength, float smoothness) {
         glyph.setX(Main.WIDTH / 2f - glyph.getWidth() / 2f);
         glyph.setY(Main.HEIGHT / 2f - glyph.getHeight() / 2f);
+        glyph.savePreviousState();
         layers.add(new ParallaxLayer(glyph, strength, smoothness));
     }
 
-    public void update(float delta) {
-        float targetOffsetX = 0;
-        float targetOffsetY = 0;
+    @Override
+    public boolean mouseMoved(int screenX, int screenY) {
+        pointerOffsetX = screenX - Main.WIDTH / 2f;
+        pointerOffsetY = (Main.HEIGHT - screenY) - Main.HEIGHT / 2f; // Y is inverted
+        return false;
+    }
+
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        return mouseMoved(screenX, screenY);
+    }
+
+    @Override
+    public boolean keyDown(int keycode) {
+        setArrow(keycode, true);
+        return false;
+    }
 
-        targetOffsetX += Gdx.input.getX() - Main.WIDTH / 2f;
-        targetOffsetY += (Main.HEIGHT - Gdx.input.getY()) - Main.HEIGHT / 2f; // Y is inverted
+    @Override
+    public boolean keyUp(int keycode) {
+        setArrow(keycode, false);
+        return false;
+    }
+
+    private void setArrow(int keycode, boolean held) {
+        switch (keycode) {
+            case Input.Keys.LEFT:
+                left = held;
+                break;
+            case Input.Keys.RIGHT:
+                right = held;
+                break;
+            case Input.Keys.DOWN:
+                down = held;
+                break;
+            case Input.Keys.UP:
+                up = held;
+                break;
+        }
+    }
+
+    public void update(float delta) {
+        float targetOffsetX = pointerOffsetX;
+        float targetOffsetY = pointerOffsetY;
 
         //arrow keys
         float keyStrengthX = Main.WIDTH / 2f;
         float keyStrengthY = Main.HEIGHT / 2f;
-        if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
+        if (left) {
             targetOffsetX -= keyStrengthX;
         }
-        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
+        if (right) {
             targetOffsetX += keyStrengthX;
         }
-        if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) {
+        if (down) {
             targetOffsetY -= keyStrengthY;
         }
-        if (Gdx.input.isKeyPressed(Input.Keys.UP)) {
+        if (up) {
             targetOffsetY += keyStrengthY;
         }
 
@@ -51,13 +99,14 @@ public class ParallaxManager {
         targetOffsetX = MathUtils.clamp(targetOffsetX, -Main.WIDTH / 2f, Main.WIDTH / 2f);
         targetOffsetY = MathUtils.clamp(targetOffsetY, -Main.HEIGHT / 2f, Main.HEIGHT / 2f);
 
-        //Apply
+        //Apply, scaling the smoothing to the delta so it eases the same at any update rate
         for (ParallaxLayer layer : layers) {
             float finalTargetX = layer.originalX - targetOffsetX * layer.strength;
             float finalTargetY = layer.originalY - targetOffsetY * layer.strength;
+            float t = 1f - (float) Math.pow(1f - layer.smoothness, delta * 60f);
 
-            layer.glyph.setX(MathUtils.lerp(layer.glyph.getX(), finalTargetX, layer.smoothness));
-            layer.glyph.setY(MathUtils.lerp(layer.glyph.getY(), finalTargetY, layer.smoothness));
+            layer.glyph.setX(MathUtils.lerp(layer.glyph.getX(), finalTargetX, t));
+            layer.glyph.setY(MathUtils.lerp(layer.glyph.getY(), finalTargetY, t));
         }
     }
 
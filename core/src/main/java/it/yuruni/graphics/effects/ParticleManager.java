@@ -0,0 +1,325 @@
+package it.yuruni.graphics.effects;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool.PooledEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Runs particle effects out of pools. Each .p file is parsed once, by the {@link AssetManager} with its images, and
+ * instances are copies kept in a {@link ParticleEffectPool}; an effect goes back to its pool as soon as it is
+ * complete. Effects are addressed by handles from {@link #spawn(String, float, float)}, which stay safe to use
+ * after the effect is gone.
+ * <p>
+ * The particles of all effects are capped. Every effect reserves the most particles it can have alive at once,
+ * worked out from its emitters; when the full reservation doesn't fit under the cap any more, the new effect is
+ * spawned with its emission thinned out to fit, and when even {@link #MIN_EMISSION_SCALE} of it doesn't fit, it is
+ * not spawned. Running effects are never touched, so they keep looking the same. Pools can be filled ahead of time
+ * with {@link #prewarm(String, int)} so spawning doesn't allocate.
+ * <p>
+ * Emitters draw from the static {@link com.badlogic.gdx.math.MathUtils#random} generator, which is not thread safe,
+ * so the effects are simulated one after another. {@link #update(float)} may run as a job, as long as no job running
+ * next to it uses that generator.
+ */
+public class ParticleManager {
+    /** Returned by {@link #spawn(String, float, float)} when the cap is reached; never refers to an effect. */
+    public static final long NO_EFFECT = 0L;
+    /** The thinnest emission an effect is spawned with before it is dropped instead. */
+    public static final float MIN_EMISSION_SCALE = 0.25f;
+    private static final int POOL_CAPACITY = 16;
+
+    private final AssetManager assets;
+    private final int maxParticles;
+    private final ObjectMap<String, Prototype> prototypes = new ObjectMap<>();
+
+    // Live effects in spawn order, which is also draw order
+    private final Array<Live> live = new Array<>(true, 16, Live[]::new);
+    private final LongMap<Live> liveByHandle = new LongMap<>();
+    private final Pool<Live> livePool = new Pool<Live>() {
+        @Override
+        protected Live newObject() {
+            return new Live();
+        }
+    };
+    private long nextHandle = 1;
+    private int reserved; // sum of the live reservations
+    private int particleCount;
+
+    /**
+     * @param assets the manager the effect files are loaded with, as {@link ParticleEffect} assets
+     * @param maxParticles the cap on particles across all effects
+     */
+    public ParticleManager(AssetManager assets, int maxParticles) {
+        if (maxParticles <= 0) throw new IllegalArgumentException("Particle cap must be positive.");
+        this.assets = assets;
+        this.maxParticles = maxParticles;
+    }
+
+    /**
+     * Starts an effect.
+     * @param name the asset name of a loaded .p file
+     * @param x the x-coordinate of the effect
+     * @param y the y-coordinate of the effect
+     * @return a handle to the effect, or {@link #NO_EFFECT} if it does not fit under the particle cap
+     * @throws GdxRuntimeException if the effect file is not loaded
+     */
+    public long spawn(String name, float x, float y) {
+        Prototype prototype = prototype(name);
+        float scale = Math.min(1f, (maxParticles - reserved) / (float) prototype.peakParticles);
+        if (scale < MIN_EMISSION_SCALE) return NO_EFFECT;
+
+        PooledEffect effect = prototype.pool.obtain();
+        effect.setPosition(x, y);
+        applyEmission(prototype, effect, scale);
+        effect.start(); // Restarting picks up the emission
+
+        Live entry = livePool.obtain();
+        entry.effect = effect;
+        entry.owner = prototype;
+        entry.handle = nextHandle++;
+        entry.reserved = Math.min(maxParticles - reserved, (int) Math.ceil(prototype.peakParticles * scale));
+        entry.index = live.size;
+        live.add(entry);
+        liveByHandle.put(entry.handle, entry);
+        reserved += entry.reserved;
+        return entry.handle;
+    }
+
+    /**
+     * Fills the pool of an effect so that the next spawns reuse instances instead of creating them.
+     * @param name the asset name of a loaded .p file
+     * @param count how many instances to have ready
+     */
+    public void prewarm(String name, int count) {
+        ParticleEffectPool pool = prototype(name).pool;
+        int missing = count - pool.getFree();
+        if (missing <= 0) return;
+
+        Array<PooledEffect> created = new Array<>(missing);
+        for (int i = 0; i < missing; i++) created.add(pool.obtain());
+        for (int i = 0; i < missing; i++) pool.free(created.get(i));
+    }
+
+    /**
+     * @param handle a handle from {@link #spawn(String, float, float)}
+     * @return the effect, or null once it is complete and back in its pool; don't keep the reference
+     */
+    public ParticleEffect get(long handle) {
+        Live entry = find(handle);
+        return entry == null ? null : entry.effect;
+    }
+
+    /**
+     * @return whether the effect of the handle is still running
+     */
+    public boolean isAlive(long handle) {
+        return find(handle) != null;
+    }
+
+    /**
+     * Lets a continuous effect finish its current particles and end. Does nothing for finished effects.
+     */
+    public void allowCompletion(long handle) {
+        ParticleEffect effect = get(handle);
+        if (effect != null) effect.allowCompletion();
+    }
+
+    /**
+     * Ends an effect right away and returns it to its pool.
+     * @return whether the effect was still running
+     */
+    public boolean kill(long handle) {
+        Live entry = find(handle);
+        if (entry == null) return false;
+
+        // Ordered removal keeps the draw order
+        live.removeIndex(entry.index);
+        for (int i = entry.index; i < live.size; i++) {
+            live.items[i].index = i;
+        }
+        release(entry);
+        return true;
+    }
+
+    /**
+     * Advances every live effect and returns the complete ones to their pools.
+     * @param delta the time elapsed since the last update
+     */
+    public void update(float delta) {
+        int count = 0;
+        int kept = 0;
+        Live[] entries = live.items;
+        for (int i = 0, n = live.size; i < n; i++) {
+            Live entry = entries[i];
+            entry.effect.update(delta);
+            if (entry.effect.isComplete()) {
+                release(entry);
+                continue;
+            }
+            count += countParticles(entry.effect);
+            entry.index = kept;
+            entries[kept++] = entry;
+        }
+        live.truncate(kept);
+        particleCount = count;
+    }
+
+    /**
+     * Draws every live effect, in spawn order.
+     * @param batch the started batch
+     */
+    public void draw(Batch batch) {
+        for (int i = 0; i < live.size; i++) {
+            live.items[i].effect.draw(batch);
+        }
+    }
+
+    /**
+     * Returns every live effect to its pool.
+     */
+    public void clear() {
+        for (int i = 0; i < live.size; i++) {
+            release(live.items[i]);
+        }
+        live.clear();
+        particleCount = 0;
+    }
+
+    /**
+     * Drops the pool of an effect file, ending its live effects, so the file can be unloaded.
+     * @param name the asset name of the .p file
+     */
+    public void forget(String name) {
+        Prototype prototype = prototypes.remove(name);
+        if (prototype == null) return;
+
+        int kept = 0;
+        Live[] entries = live.items;
+        for (int i = 0, n = live.size; i < n; i++) {
+            Live entry = entries[i];
+            if (entry.owner == prototype) {
+                release(entry);
+                continue;
+            }
+            entry.index = kept;
+            entries[kept++] = entry;
+        }
+        live.truncate(kept);
+        prototype.pool.clear();
+    }
+
+    /**
+     * @return the particles alive as of the last update
+     */
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    /**
+     * @return the number of effects running
+     */
+    public int getEffectCount() {
+        return live.size;
+    }
+
+    /**
+     * @return the particles reserved by the running effects, never more than the cap
+     */
+    public int getReservedParticles() {
+        return reserved;
+    }
+
+    private Prototype prototype(String name) {
+        Prototype prototype = prototypes.get(name);
+        if (prototype != null) return prototype;
+        if (!assets.isLoaded(name, ParticleEffect.class)) throw new GdxRuntimeException("Particle effect is not loaded: " + name);
+
+        prototype = new Prototype();
+        prototype.effect = assets.get(name, ParticleEffect.class);
+        prototype.pool = new ParticleEffectPool(prototype.effect, POOL_CAPACITY, Integer.MAX_VALUE);
+        prototype.peakParticles = Math.max(1, peakParticles(prototype.effect));
+        prototypes.put(name, prototype);
+        return prototype;
+    }
+
+    private static void applyEmission(Prototype prototype, PooledEffect effect, float scale) {
+        Array<ParticleEmitter> emitters = effect.getEmitters();
+        Array<ParticleEmitter> templates = prototype.effect.getEmitters();
+        for (int i = 0; i < emitters.size; i++) {
+            ParticleEmitter.ScaledNumericValue template = templates.get(i).getEmission();
+            ParticleEmitter.ScaledNumericValue emission = emitters.get(i).getEmission();
+            // Read when the emitter starts, running emitters keep their rate
+            emission.setLow(template.getLowMin() * scale, template.getLowMax() * scale);
+            emission.setHigh(template.getHighMin() * scale, template.getHighMax() * scale);
+            emitters.get(i).setMinParticleCount((int) (templates.get(i).getMinParticleCount() * scale));
+        }
+    }
+
+    private static int countParticles(ParticleEffect effect) {
+        Array<ParticleEmitter> emitters = effect.getEmitters();
+        int count = 0;
+        for (int i = 0; i < emitters.size; i++) {
+            count += emitters.get(i).getActiveCount();
+        }
+        return count;
+    }
+
+    /**
+     * Estimates the most particles an effect has alive at once: the fastest emission times the longest life, plus
+     * the particles kept alive by the minimum count, capped by each emitter's maximum.
+     */
+    private static int peakParticles(ParticleEffect effect) {
+        Array<ParticleEmitter> emitters = effect.getEmitters();
+        int count = 0;
+        for (int i = 0; i < emitters.size; i++) {
+            ParticleEmitter emitter = emitters.get(i);
+            ParticleEmitter.ScaledNumericValue emission = emitter.getEmission();
+            float rate = Math.max(emission.getLowMax(), emission.getHighMax()) + (emission.isRelative() ? emission.getLowMax() : 0f);
+            float life = Math.max(emitter.getLife().getLowMax(), emitter.getLife().getHighMax()) / 1000f;
+            int emitted = emitter.getMinParticleCount() + (int) Math.ceil(rate * life);
+            count += Math.min(emitter.getMaxParticleCount(), emitted);
+        }
+        return count;
+    }
+
+    private Live find(long handle) {
+        return handle == NO_EFFECT ? null : liveByHandle.get(handle);
+    }
+
+    // Returns the effect and its entry to their pools; the caller takes the entry out of the live list
+    private void release(Live entry) {
+        liveByHandle.remove(entry.handle);
+        reserved -= entry.reserved;
+        entry.effect.free();
+        livePool.free(entry);
+    }
+
+    // A running effect, found by its handle; its index in the live list is kept up to date so it is never searched for
+    private static final class Live implements Pool.Poolable {
+        PooledEffect effect;
+        Prototype owner;
+        long handle;
+        int reserved;
+        int index;
+
+        @Override
+        public void reset() {
+            effect = null;
+            owner = null;
+        }
+    }
+
+    // One parsed .p file and the pool of its copies
+    private static final class Prototype {
+        ParticleEffect effect;
+        ParticleEffectPool pool;
+        int peakParticles;
+    }
+}
@@ -0,0 +1,81 @@
+package it.yuruni.graphics.effects;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * One stage of the {@link ShaderManager} post-processing chain. An effect reads the image produced by the stages
+ * before it and renders into a target the manager hands it; an effect that is not {@link #isActive() active} is
+ * skipped, and when no effect is active the scene is drawn straight to the screen.
+ * <p>
+ * Each effect renders into a target of its own {@link #setResolutionScale(float) resolution scale}, so heavy
+ * effects can run below the window resolution and get upsampled by the next stage.
+ */
+public abstract class PostEffect implements Disposable {
+    private float resolutionScale = 1f;
+    private boolean enabled = true;
+
+    /**
+     * @return whether the effect currently changes the image; checked every frame before the scene is drawn
+     */
+    protected abstract boolean isActive();
+
+    /**
+     * Renders the effect. Use {@link ShaderManager#beginPass} and {@link ShaderManager#endPass} for full screen
+     * passes.
+     * @param manager the chain running the effect
+     * @param source the image so far
+     * @param target where to render the result, sized by the resolution scale; null for the screen
+     */
+    protected abstract void apply(ShaderManager manager, Texture source, FrameBuffer target);
+
+    /**
+     * Advances the effect's animation.
+     * @param delta the time elapsed since the last update
+     */
+    public void update(float delta) {
+    }
+
+    /**
+     * Called when the window size changes, for effects that keep their own buffers.
+     * @param width the new width in pixels
+     * @param height the new height in pixels
+     */
+    public void resize(int width, int height) {
+    }
+
+    /**
+     * @return whether the effect runs this frame
+     */
+    public boolean isRunning() {
+        return enabled && isActive();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled false to skip the effect even while it is active
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public float getResolutionScale() {
+        return resolutionScale;
+    }
+
+    /**
+     * @param resolutionScale the size of the effect's output relative to the window, in (0, 1]
+     */
+    public void setResolutionScale(float resolutionScale) {
+        if (resolutionScale <= 0f || resolutionScale > 1f) throw new IllegalArgumentException("Resolution scale must be in (0, 1].");
+        this.resolutionScale = resolutionScale;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
@@ -0,0 +1,51 @@
+package it.yuruni.graphics.effects;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+/**
+ * Lens distortion and chromatic aberration that kicks in at full strength and fades out over a quarter second.
+ * It only runs while fading.
+ */
+public class PunchEffect extends PostEffect {
+    private static final float FADE_SPEED = 4f; // intensity lost per second
+
+    private ShaderProgram program;
+    private float intensity = 0f;
+
+    /**
+     * @param intensity the strength to start fading from, 0 is no effect and 1 the strongest
+     */
+    public void setIntensity(float intensity) {
+        this.intensity = intensity;
+    }
+
+    public float getIntensity() {
+        return intensity;
+    }
+
+    @Override
+    protected boolean isActive() {
+        return intensity > 0f;
+    }
+
+    @Override
+    public void update(float delta) {
+        if (intensity > 0) {
+            intensity -= delta * FADE_SPEED; // Fades out over ~0.25 seconds
+            if (intensity < 0) {
+                intensity = 0;
+            }
+        }
+    }
+
+    @Override
+    protected void apply(ShaderManager manager, Texture source, FrameBuffer target) {
+        if (program == null) program = manager.getProgram("shaders/screen.vert", "shaders/punch.frag");
+
+        manager.beginPass(program, target);
+        program.setUniformf("u_punch", intensity);
+        manager.endPass(source);
+    }
+}
@@ -1,80 +1,287 @@
 package it.yuruni.graphics.effects;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
-import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
 
+/**
+ * Runs the post-processing chain: an ordered list of {@link PostEffect}s. While any of them is active the scene is
+ * drawn into an offscreen buffer between {@link #begin()} and {@link #end()}, then each running effect renders from
+ * the previous result into a ping-pong target of its resolution scale, the last one straight onto the screen.
+ * When no effect is active the scene is drawn to the screen directly, with no offscreen copy at all.
+ * Shader programs are loaded once through {@link #getProgram(String, String)} and shared by every effect.
+ */
 public class ShaderManager {
 
-    private FrameBuffer fbo;
+    private FrameBuffer sceneBuffer;
+    private final Array<RenderTarget> targets = new Array<>();
+    private int width;
+    private int height;
     private final SpriteBatch batch;
-    private final OrthographicCamera screenCamera;
+    private final OrthographicCamera screenCamera; // Unit square, passes draw their source over the whole target
 
-    private final ShaderProgram punchShader;
-    private float punchIntensity = 0f;
+    private final ObjectMap<String, ShaderProgram> programs = new ObjectMap<>();
+    private final Array<PostEffect> effects = new Array<>();
+    private final Array<PostEffect> running = new Array<>(); // Effects running this frame, collected by begin
+    private boolean capturing;
+    private FrameBuffer passTarget;
+
+    private final BloomEffect bloom;
+    private final PunchEffect punch;
 
     public ShaderManager() {
         batch = new SpriteBatch();
         screenCamera = new OrthographicCamera();
+        screenCamera.setToOrtho(false, 1, 1);
 
-        //TODO: TEMP HARD CODED, CHANGE THIS TO BE MORE MODULAR
-        punchShader = new ShaderProgram(Gdx.files.internal("shaders/punch.vert"), Gdx.files.internal("shaders/punch.frag"));
-        if (!punchShader.isCompiled()) {
-            Gdx.app.error("PunchShader", "compilation failed:\n" + punchShader.getLog());
-        }
+        // Glow first, so the punch distorts it along with the scene
+        bloom = addEffect(new BloomEffect());
+        punch = addEffect(new PunchEffect());
     }
 
-    public void resize(int width, int height) {
-        if (fbo != null) {
-            fbo.dispose();
-        }
-        fbo = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
-        screenCamera.setToOrtho(false, width, height);
+    /**
+     * Appends an effect to the end of the chain. The manager disposes it.
+     * @param effect the effect
+     * @return effect
+     */
+    public <T extends PostEffect> T addEffect(T effect) {
+        if (effects.contains(effect, true)) throw new IllegalArgumentException("Effect is already in the chain.");
+        effects.add(effect);
+        if (width > 0) effect.resize(width, height);
+        return effect;
     }
 
-    public void setPunch(float intensity) {
-        this.punchIntensity = intensity;
+    /**
+     * Takes an effect out of the chain without disposing it.
+     * @return true if it was in the chain
+     */
+    public boolean removeEffect(PostEffect effect) {
+        return effects.removeValue(effect, true);
     }
 
-    private void update(float delta) {
-        if (punchIntensity > 0) {
-            punchIntensity -= delta * 4.0f; // Fades out over ~0.25 seconds
-            if (punchIntensity < 0) {
-                punchIntensity = 0;
-            }
+    /**
+     * @return the effects in the order they run; do not modify it
+     */
+    public Array<PostEffect> getEffects() {
+        return effects;
+    }
+
+    /**
+     * @return the glow at the start of the chain
+     */
+    public BloomEffect getBloom() {
+        return bloom;
+    }
+
+    /**
+     * @return the lens punch, after the glow
+     */
+    public PunchEffect getPunch() {
+        return punch;
+    }
+
+    public void resize(int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        this.width = width;
+        this.height = height;
+
+        disposeTargets();
+        sceneBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+        for (PostEffect effect : effects) {
+            effect.resize(width, height);
         }
     }
 
+    /**
+     * Advances the effect animations.
+     * @param delta the time elapsed since the last update
+     */
+    public void update(float delta) {
+        for (PostEffect effect : effects) {
+            effect.update(delta);
+        }
+    }
+
+    /**
+     * Starts capturing the scene if any effect will run this frame.
+     */
     public void begin() {
-        if (fbo == null) return;
-        fbo.begin();
-        ScreenUtils.clear(0, 0, 0, 1);
+        running.clear();
+        for (PostEffect effect : effects) {
+            if (effect.isRunning()) running.add(effect);
+        }
+
+        capturing = sceneBuffer != null && running.size > 0;
+        if (capturing) {
+            sceneBuffer.begin();
+        } else {
+            // Fill the window like the chain's output does
+            Gdx.gl.glViewport(0, 0, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
+        }
     }
 
-    public void end(float delta) {
-        if (fbo == null) return;
-        fbo.end();
+    /**
+     * Runs the effects over the captured scene and puts the result on the screen.
+     */
+    public void end() {
+        if (!capturing) return;
+        capturing = false;
+        sceneBuffer.end();
 
-        update(delta); // Update shader values
+        Texture source = sceneBuffer.getColorBufferTexture();
+        FrameBuffer current = sceneBuffer;
+        for (int i = 0; i < running.size; i++) {
+            PostEffect effect = running.get(i);
+            float scale = effect.getResolutionScale();
+            FrameBuffer target = i == running.size - 1 && scale == 1f ? null : obtainTarget(scale, current);
+            effect.apply(this, source, target);
+            if (target == null) return;
 
-        screenCamera.update();
-        batch.setProjectionMatrix(screenCamera.combined);
+            source = target.getColorBufferTexture();
+            current = target;
+        }
+
+        // The last effect ran below the window resolution, stretch its result over the screen
+        beginPass(null, null);
+        endPass(source);
+    }
 
-        batch.setShader(punchShader);
+    /**
+     * Starts a full screen pass. Blending is off, so the pass replaces the target's contents.
+     * @param program the shader, null for a plain copy
+     * @param target the buffer to render into, null for the screen
+     * @return the batch drawing the pass, to set uniforms or blending on
+     */
+    public SpriteBatch beginPass(ShaderProgram program, FrameBuffer target) {
+        passTarget = target;
+        if (target != null) target.begin();
+
+        batch.setShader(program);
+        batch.setProjectionMatrix(screenCamera.combined);
+        batch.disableBlending();
         batch.begin();
-        punchShader.setUniformf("u_punch", punchIntensity);
-        batch.draw(fbo.getColorBufferTexture(), 0, Gdx.graphics.getHeight(), Gdx.graphics.getWidth(), -Gdx.graphics.getHeight());
+        return batch;
+    }
+
+    /**
+     * Draws the source over the pass target and finishes the pass started by {@link #beginPass}.
+     * @param source the texture the pass reads, usually an offscreen buffer
+     */
+    public void endPass(Texture source) {
+        draw(source);
+        endPass();
+    }
+
+    /**
+     * Draws a texture over the whole target of the current pass, for passes that draw more than once.
+     * @param source an offscreen buffer's texture
+     */
+    public void draw(Texture source) {
+        batch.draw(source, 0, 1, 1, -1); // Offscreen buffers are upside down
+    }
+
+    /**
+     * Finishes the pass started by {@link #beginPass} and restores the batch.
+     */
+    public void endPass() {
         batch.end();
+        batch.setColor(Color.WHITE);
         batch.setShader(null);
+        batch.enableBlending();
+        batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+        if (passTarget != null) {
+            passTarget.end();
+            passTarget = null;
+        }
+    }
+
+    /**
+     * Loads a shader program, or returns the one loaded before from the same files. Compile errors are logged.
+     * @param vertexPath the internal path of the vertex shader
+     * @param fragmentPath the internal path of the fragment shader
+     * @return the program, owned by the manager
+     */
+    public ShaderProgram getProgram(String vertexPath, String fragmentPath) {
+        String key = vertexPath + '\n' + fragmentPath;
+        ShaderProgram program = programs.get(key);
+        if (program != null) return program;
+
+        program = new ShaderProgram(Gdx.files.internal(vertexPath), Gdx.files.internal(fragmentPath));
+        if (!program.isCompiled()) {
+            Gdx.app.error("ShaderManager", fragmentPath + " compilation failed:\n" + program.getLog());
+        }
+        programs.put(key, program);
+        return program;
+    }
+
+    /**
+     * Hands out an offscreen buffer of a resolution scale that is not the given one, so a pass never reads the
+     * buffer it writes. Buffers are kept until the next resize.
+     * @param scale the size relative to the window
+     * @param reading the buffer the pass reads from
+     * @return the buffer
+     */
+    public FrameBuffer obtainTarget(float scale, FrameBuffer reading) {
+        RenderTarget target = null;
+        for (RenderTarget candidate : targets) {
+            if (candidate.scale == scale) {
+                target = candidate;
+                break;
+            }
+        }
+        if (target == null) {
+            target = new RenderTarget();
+            target.scale = scale;
+            targets.add(target);
+        }
+
+        if (target.a == null) target.a = createBuffer(scale);
+        if (target.a != reading) return target.a;
+        if (target.b == null) target.b = createBuffer(scale);
+        return target.b;
+    }
+
+    private FrameBuffer createBuffer(float scale) {
+        int bufferWidth = Math.max(1, Math.round(width * scale));
+        int bufferHeight = Math.max(1, Math.round(height * scale));
+        return new FrameBuffer(Pixmap.Format.RGBA8888, bufferWidth, bufferHeight, false);
+    }
+
+    private void disposeTargets() {
+        if (sceneBuffer != null) sceneBuffer.dispose();
+        sceneBuffer = null;
+        for (RenderTarget target : targets) {
+            if (target.a != null) target.a.dispose();
+            if (target.b != null) target.b.dispose();
+        }
+        targets.clear();
     }
 
     public void dispose() {
-        if (fbo != null) fbo.dispose();
-        punchShader.dispose();
+        disposeTargets();
+        for (PostEffect effect : effects) {
+            effect.dispose();
+        }
+        for (ShaderProgram program : programs.values()) {
+            program.dispose();
+        }
+        programs.clear();
         batch.dispose();
     }
+
+    // A ping-pong pair of buffers at one resolution scale, created as they are needed
+    private static final class RenderTarget {
+        float scale;
+        FrameBuffer a;
+        FrameBuffer b;
+    }
 }
@@ -0,0 +1,130 @@
+package it.yuruni.graphics.pixmap;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Textures derived from a source image by a {@link PixmapTransform}, memoized by (source, transform).
+ * Asking twice for the same rotated or resized image decodes and uploads it once.
+ * Textures are handed out as regions, so glyphs share them without disposing them; the cache owns every
+ * texture until {@link #dispose()}.
+ * <p>
+ * Textures needed while a screen loads are better queued on the AssetManager with {@link #queue}, which derives them
+ * on its loader thread and uploads them within its frame budget; the manager owns those instead.
+ */
+public class DerivedTextureCache implements Disposable {
+    private final ObjectMap<String, Texture> textures = new ObjectMap<>();
+
+    /**
+     * @param source the source image file
+     * @param transform the transform to apply
+     * @return a region covering the derived texture
+     */
+    public TextureRegion get(FileHandle source, PixmapTransform transform) {
+        String key = key(source.path(), transform);
+        Texture texture = textures.get(key);
+        if (texture == null) {
+            Pixmap pixmap = new Pixmap(source);
+            try {
+                texture = upload(transform, pixmap);
+            } finally {
+                pixmap.dispose();
+            }
+            textures.put(key, texture);
+        }
+        return new TextureRegion(texture);
+    }
+
+    /**
+     * Derives from an image that is already decoded, e.g. a Pixmap loaded by the AssetManager.
+     * @param sourceName a name identifying the source, usually its asset path
+     * @param source the decoded source, it is not disposed
+     * @param transform the transform to apply
+     * @return a region covering the derived texture
+     */
+    public TextureRegion get(String sourceName, Pixmap source, PixmapTransform transform) {
+        String key = key(sourceName, transform);
+        Texture texture = textures.get(key);
+        if (texture == null) {
+            texture = upload(transform, source);
+            textures.put(key, texture);
+        }
+        return new TextureRegion(texture);
+    }
+
+    /**
+     * Queues a derived texture on a manager that was made by {@link it.yuruni.assets.Assets#createManager()},
+     * see {@link DerivedTextureLoader}. Unload it with its {@link #assetName}.
+     * @param assets the manager to queue on
+     * @param source the asset path of the source image
+     * @param transform the transform to apply
+     */
+    public static void queue(AssetManager assets, String source, PixmapTransform transform) {
+        DerivedTextureLoader.DerivedTextureParameter parameter = new DerivedTextureLoader.DerivedTextureParameter();
+        parameter.source = source;
+        parameter.transform = transform;
+        assets.load(assetName(source, transform), Texture.class, parameter);
+    }
+
+    /**
+     * Gets a texture queued with {@link #queue} once the manager has loaded it.
+     * @param assets the manager it was queued on
+     * @param source the asset path of the source image
+     * @param transform the transform
+     * @return a region covering the derived texture
+     */
+    public static TextureRegion fromAssets(AssetManager assets, String source, PixmapTransform transform) {
+        return new TextureRegion(assets.get(assetName(source, transform), Texture.class));
+    }
+
+    /**
+     * @param source the asset path of the source image
+     * @param transform the transform
+     * @return the name the manager knows the derived texture by
+     */
+    public static String assetName(String source, PixmapTransform transform) {
+        return key(source, transform) + DerivedTextureLoader.SUFFIX;
+    }
+
+    /**
+     * @param sourceName the source name or file path
+     * @param transform the transform
+     * @return whether the derived texture is already cached
+     */
+    public boolean contains(String sourceName, PixmapTransform transform) {
+        return textures.containsKey(key(sourceName, transform));
+    }
+
+    /**
+     * @return the number of cached textures
+     */
+    public int size() {
+        return textures.size;
+    }
+
+    @Override
+    public void dispose() {
+        for (Texture texture : textures.values()) {
+            texture.dispose();
+        }
+        textures.clear();
+    }
+
+    private static Texture upload(PixmapTransform transform, Pixmap source) {
+        Pixmap derived = transform.apply(source);
+        try {
+            return new Texture(derived);
+        } finally {
+            derived.dispose();
+        }
+    }
+
+    private static String key(String sourceName, PixmapTransform transform) {
+        return sourceName + '|' + transform.key();
+    }
+}
@@ -0,0 +1,70 @@
+package it.yuruni.graphics.pixmap;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Loads a texture derived from a source image by a {@link PixmapTransform}, for assets queued with
+ * {@link DerivedTextureCache#queue}. The source is decoded and transformed on the loader thread and only the
+ * upload runs on the render thread. The asset name only identifies the result; the source and the transform come
+ * from the {@link DerivedTextureParameter}.
+ */
+public class DerivedTextureLoader extends AsynchronousAssetLoader<Texture, DerivedTextureLoader.DerivedTextureParameter> {
+    /** Ending of derived texture asset names, which selects this loader for them. */
+    public static final String SUFFIX = ".derived";
+
+    private Pixmap derived; // Made by loadAsync, uploaded by loadSync
+
+    public DerivedTextureLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, DerivedTextureParameter parameter) {
+        return null;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, DerivedTextureParameter parameter) {
+        if (parameter == null || parameter.source == null || parameter.transform == null) {
+            throw new GdxRuntimeException("Derived texture " + fileName + " needs its source and transform as parameters.");
+        }
+        Pixmap source = new Pixmap(resolve(parameter.source));
+        try {
+            derived = parameter.transform.apply(source);
+        } finally {
+            source.dispose();
+        }
+    }
+
+    @Override
+    public Texture loadSync(AssetManager manager, String fileName, FileHandle file, DerivedTextureParameter parameter) {
+        Pixmap pixmap = derived;
+        derived = null;
+        try {
+            return new Texture(pixmap);
+        } finally {
+            pixmap.dispose();
+        }
+    }
+
+    @Override
+    public void unloadAsync(AssetManager manager, String fileName, FileHandle file, DerivedTextureParameter parameter) {
+        if (derived != null) derived.dispose();
+        derived = null;
+    }
+
+    public static class DerivedTextureParameter extends AssetLoaderParameters<Texture> {
+        /** Asset path of the source image */
+        public String source;
+        public PixmapTransform transform;
+    }
+}
@@ -0,0 +1,124 @@
+package it.yuruni.graphics.pixmap;
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * One operation from {@link PixmapTransforms}, as a value that can be applied later and used as a cache key.
+ */
+public final class PixmapTransform {
+    /** Sampling used by resize transforms. */
+    public enum Filter {
+        NEAREST, BILINEAR
+    }
+
+    private enum Kind {
+        ROTATE, FLIP, RESIZE, SCALE
+    }
+
+    private final Kind kind;
+    private final int a;
+    private final int b;
+    private final double percentage;
+    private final Filter filter;
+    private final String key;
+
+    private PixmapTransform(Kind kind, int a, int b, double percentage, Filter filter, String key) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.percentage = percentage;
+        this.filter = filter;
+        this.key = key;
+    }
+
+    /**
+     * @param degrees a multiple of 90
+     * @return a rotation, see {@link PixmapTransforms#rotate(Pixmap, int)}
+     */
+    public static PixmapTransform rotate(int degrees) {
+        if (degrees % 90 != 0) throw new IllegalArgumentException("Only right angle rotations are supported: " + degrees);
+        int angle = (degrees % 360 + 360) % 360;
+        return new PixmapTransform(Kind.ROTATE, angle, 0, 0, null, "rotate" + angle);
+    }
+
+    /**
+     * @param horizontal mirror left and right
+     * @param vertical mirror top and bottom
+     * @return a flip
+     */
+    public static PixmapTransform flip(boolean horizontal, boolean vertical) {
+        return new PixmapTransform(Kind.FLIP, horizontal ? 1 : 0, vertical ? 1 : 0, 0, null,
+                "flip" + (horizontal ? "H" : "") + (vertical ? "V" : ""));
+    }
+
+    /**
+     * @param width the new width
+     * @param height the new height
+     * @param filter the sampling
+     * @return a resize to a fixed size
+     */
+    public static PixmapTransform resize(int width, int height, Filter filter) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Dimensions must be positive");
+        return new PixmapTransform(Kind.RESIZE, width, height, 0, filter,
+                "resize" + width + "x" + height + filter.name().toLowerCase());
+    }
+
+    /**
+     * @param percentage the size relative to the source, e.g. 50 for half size
+     * @param filter the sampling
+     * @return a resize relative to the source size, rounded like {@link it.yuruni.Utils#resizeTo(Pixmap, double)}
+     */
+    public static PixmapTransform scale(double percentage, Filter filter) {
+        if (percentage <= 0) throw new IllegalArgumentException("Percentage must be positive.");
+        return new PixmapTransform(Kind.SCALE, 0, 0, percentage, filter,
+                "scale" + percentage + filter.name().toLowerCase());
+    }
+
+    /**
+     * @param source the pixmap to transform, it is not disposed
+     * @return a new pixmap
+     */
+    public Pixmap apply(Pixmap source) {
+        switch (kind) {
+            case ROTATE:
+                return PixmapTransforms.rotate(source, a);
+            case FLIP:
+                return PixmapTransforms.flip(source, a == 1, b == 1);
+            case RESIZE:
+                return resize(source, a, b);
+            default:
+                float scale = (float) (percentage / 100.0);
+                int width = Math.max(1, Math.round(source.getWidth() * scale));
+                int height = Math.max(1, Math.round(source.getHeight() * scale));
+                return resize(source, width, height);
+        }
+    }
+
+    private Pixmap resize(Pixmap source, int width, int height) {
+        return filter == Filter.BILINEAR
+                ? PixmapTransforms.resizeBilinear(source, width, height)
+                : PixmapTransforms.resizeNearest(source, width, height);
+    }
+
+    /**
+     * @return a string that identifies this transform, equal for equal transforms
+     */
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PixmapTransform && ((PixmapTransform) o).key.equals(key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
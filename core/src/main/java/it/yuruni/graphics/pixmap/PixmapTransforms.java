@@ -0,0 +1,291 @@
+package it.yuruni.graphics.pixmap;
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Rotations, flips and resizes that work on the raw bytes of {@link Pixmap#getPixels()}.
+ * The source buffer is copied into a Java array in one bulk read and the result is written back in one
+ * bulk put, so no pixel goes through a JNI call. Every method returns a new pixmap in the source format
+ * (bilinear resizes of 16 bit packed formats return RGBA8888); the source is never modified or disposed.
+ */
+public final class PixmapTransforms {
+    private PixmapTransforms() {
+    }
+
+    /**
+     * @param source the pixmap to rotate
+     * @param degrees a multiple of 90, negative values rotate the other way
+     * @return the rotated copy, positive angles turn the image counterclockwise as seen on screen
+     */
+    public static Pixmap rotate(Pixmap source, int degrees) {
+        if (degrees % 90 != 0) throw new IllegalArgumentException("Only right angle rotations are supported: " + degrees);
+        int angle = (degrees % 360 + 360) % 360;
+        if (angle == 0) return copy(source);
+        if (angle == 180) return flip(source, true, true);
+
+        int bpp = bytesPerPixel(source.getFormat());
+        int srcWidth = source.getWidth();
+        int srcHeight = source.getHeight();
+        // 90 and 270 swap the dimensions
+        int width = srcHeight;
+        int height = srcWidth;
+
+        if (bpp == 4) {
+            // Whole pixels as ints; byte order does not matter since pixels are only moved
+            int[] in = readInts(source);
+            int[] out = new int[in.length];
+            int o = 0;
+            for (int dy = 0; dy < height; dy++) {
+                int srcX = angle == 90 ? height - 1 - dy : dy;
+                if (angle == 90) {
+                    for (int i = srcX; i < in.length; i += srcWidth) out[o++] = in[i];
+                } else {
+                    for (int i = in.length - srcWidth + srcX; i >= 0; i -= srcWidth) out[o++] = in[i];
+                }
+            }
+            return writeInts(out, width, height, source.getFormat());
+        }
+
+        int srcStride = srcWidth * bpp;
+        byte[] in = read(source);
+        byte[] out = new byte[in.length];
+
+        int o = 0;
+        for (int dy = 0; dy < height; dy++) {
+            int srcX = angle == 90 ? height - 1 - dy : dy;
+            for (int dx = 0; dx < width; dx++) {
+                int srcY = angle == 90 ? dx : width - 1 - dx;
+                int i = srcY * srcStride + srcX * bpp;
+                for (int c = 0; c < bpp; c++) out[o++] = in[i + c];
+            }
+        }
+        return write(out, width, height, source.getFormat());
+    }
+
+    /**
+     * @param source the pixmap to flip
+     * @param horizontal mirror left and right
+     * @param vertical mirror top and bottom
+     * @return the flipped copy; flipping both axes is the 180 degree rotation
+     */
+    public static Pixmap flip(Pixmap source, boolean horizontal, boolean vertical) {
+        int bpp = bytesPerPixel(source.getFormat());
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        if (bpp == 4) {
+            int[] in = readInts(source);
+            int[] out = new int[in.length];
+            for (int y = 0; y < height; y++) {
+                int srcRow = (vertical ? height - 1 - y : y) * width;
+                int dstRow = y * width;
+                if (!horizontal) {
+                    System.arraycopy(in, srcRow, out, dstRow, width);
+                    continue;
+                }
+                for (int x = 0, i = srcRow + width - 1; x < width; x++, i--) out[dstRow + x] = in[i];
+            }
+            return writeInts(out, width, height, source.getFormat());
+        }
+
+        int stride = width * bpp;
+        byte[] in = read(source);
+        byte[] out = new byte[in.length];
+
+        for (int y = 0; y < height; y++) {
+            int srcRow = (vertical ? height - 1 - y : y) * stride;
+            int dstRow = y * stride;
+            if (!horizontal) {
+                System.arraycopy(in, srcRow, out, dstRow, stride);
+                continue;
+            }
+            for (int x = 0, i = srcRow + stride - bpp; x < width; x++, i -= bpp) {
+                int o = dstRow + x * bpp;
+                for (int c = 0; c < bpp; c++) out[o + c] = in[i + c];
+            }
+        }
+        return write(out, width, height, source.getFormat());
+    }
+
+    /**
+     * Nearest neighbour resize. Destination rows that sample the same source row are copied from the
+     * previous destination row instead of being sampled again, which makes upscales mostly bulk copies.
+     * @param source the pixmap to resize
+     * @param width the new width
+     * @param height the new height
+     * @return the resized copy
+     */
+    public static Pixmap resizeNearest(Pixmap source, int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Dimensions must be positive");
+
+        int bpp = bytesPerPixel(source.getFormat());
+        int srcWidth = source.getWidth();
+        int srcHeight = source.getHeight();
+        int srcStride = srcWidth * bpp;
+        int stride = width * bpp;
+        byte[] in = read(source);
+        byte[] out = new byte[stride * height];
+
+        // Byte offset of the source pixel for every destination column, sampled at pixel centers
+        int[] columnOffset = new int[width];
+        for (int x = 0; x < width; x++) {
+            columnOffset[x] = Math.min(srcWidth - 1, (int) ((x + 0.5) * srcWidth / width)) * bpp;
+        }
+
+        int previousSrcY = -1;
+        for (int y = 0; y < height; y++) {
+            int srcY = Math.min(srcHeight - 1, (int) ((y + 0.5) * srcHeight / height));
+            int dstRow = y * stride;
+            if (srcY == previousSrcY) {
+                System.arraycopy(out, dstRow - stride, out, dstRow, stride);
+                continue;
+            }
+            previousSrcY = srcY;
+
+            int srcRow = srcY * srcStride;
+            if (srcWidth == width) {
+                System.arraycopy(in, srcRow, out, dstRow, stride);
+                continue;
+            }
+            for (int x = 0, o = dstRow; x < width; x++) {
+                int i = srcRow + columnOffset[x];
+                for (int c = 0; c < bpp; c++) out[o++] = in[i + c];
+            }
+        }
+        return write(out, width, height, source.getFormat());
+    }
+
+    /**
+     * Bilinear resize with 8 bit fixed point weights. Channels are interpolated independently, so formats
+     * that pack several channels into 16 bits are converted to RGBA8888 first.
+     * Downscales below half size should be done in steps, a single bilinear pass skips source pixels.
+     * @param source the pixmap to resize
+     * @param width the new width
+     * @param height the new height
+     * @return the resized copy
+     */
+    public static Pixmap resizeBilinear(Pixmap source, int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Dimensions must be positive");
+
+        Pixmap.Format format = source.getFormat();
+        Pixmap converted = null;
+        if (format == Pixmap.Format.RGB565 || format == Pixmap.Format.RGBA4444) {
+            converted = convert(source, Pixmap.Format.RGBA8888);
+            source = converted;
+            format = Pixmap.Format.RGBA8888;
+        }
+
+        int bpp = bytesPerPixel(format);
+        int srcWidth = source.getWidth();
+        int srcHeight = source.getHeight();
+        int srcStride = srcWidth * bpp;
+        byte[] in = read(source);
+        if (converted != null) converted.dispose();
+        byte[] out = new byte[width * height * bpp];
+
+        // Left/right sample offsets and the right weight (0-256) of every destination column
+        int[] x0 = new int[width];
+        int[] x1 = new int[width];
+        int[] fx = new int[width];
+        for (int x = 0; x < width; x++) {
+            float sx = Math.max(0f, (x + 0.5f) * srcWidth / width - 0.5f);
+            int left = Math.min(srcWidth - 1, (int) sx);
+            x0[x] = left * bpp;
+            x1[x] = Math.min(srcWidth - 1, left + 1) * bpp;
+            fx[x] = (int) ((sx - left) * 256f);
+        }
+
+        int o = 0;
+        for (int y = 0; y < height; y++) {
+            float sy = Math.max(0f, (y + 0.5f) * srcHeight / height - 0.5f);
+            int top = Math.min(srcHeight - 1, (int) sy);
+            int row0 = top * srcStride;
+            int row1 = Math.min(srcHeight - 1, top + 1) * srcStride;
+            int fy = (int) ((sy - top) * 256f);
+            int gy = 256 - fy;
+
+            for (int x = 0; x < width; x++) {
+                int a = row0 + x0[x], b = row0 + x1[x], c = row1 + x0[x], d = row1 + x1[x];
+                int wx = fx[x], gx = 256 - wx;
+                for (int ch = 0; ch < bpp; ch++) {
+                    int upper = (in[a + ch] & 0xFF) * gx + (in[b + ch] & 0xFF) * wx;
+                    int lower = (in[c + ch] & 0xFF) * gx + (in[d + ch] & 0xFF) * wx;
+                    out[o++] = (byte) ((upper * gy + lower * fy + 32768) >>> 16);
+                }
+            }
+        }
+        return write(out, width, height, format);
+    }
+
+    /**
+     * @param source the pixmap to copy
+     * @return a copy with the same size and format
+     */
+    public static Pixmap copy(Pixmap source) {
+        return write(read(source), source.getWidth(), source.getHeight(), source.getFormat());
+    }
+
+    /**
+     * @param format a pixmap format
+     * @return the number of bytes one pixel takes in a pixmap buffer
+     */
+    public static int bytesPerPixel(Pixmap.Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            case RGBA8888:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unsupported pixmap format: " + format);
+        }
+    }
+
+    private static Pixmap convert(Pixmap source, Pixmap.Format format) {
+        Pixmap converted = new Pixmap(source.getWidth(), source.getHeight(), format);
+        converted.setBlending(Pixmap.Blending.None);
+        converted.drawPixmap(source, 0, 0);
+        return converted;
+    }
+
+    private static byte[] read(Pixmap pixmap) {
+        // Duplicate so the pixmap's own buffer position is left alone
+        ByteBuffer pixels = pixmap.getPixels().duplicate();
+        pixels.clear();
+        byte[] bytes = new byte[pixmap.getWidth() * pixmap.getHeight() * bytesPerPixel(pixmap.getFormat())];
+        pixels.get(bytes);
+        return bytes;
+    }
+
+    private static int[] readInts(Pixmap pixmap) {
+        ByteBuffer pixels = pixmap.getPixels().duplicate();
+        pixels.clear();
+        int[] ints = new int[pixmap.getWidth() * pixmap.getHeight()];
+        pixels.asIntBuffer().get(ints);
+        return ints;
+    }
+
+    private static Pixmap writeInts(int[] ints, int width, int height, Pixmap.Format format) {
+        Pixmap pixmap = new Pixmap(width, height, format);
+        ByteBuffer pixels = pixmap.getPixels().duplicate();
+        pixels.clear();
+        pixels.asIntBuffer().put(ints);
+        return pixmap;
+    }
+
+    private static Pixmap write(byte[] bytes, int width, int height, Pixmap.Format format) {
+        Pixmap pixmap = new Pixmap(width, height, format);
+        ByteBuffer pixels = pixmap.getPixels().duplicate();
+        pixels.clear();
+        pixels.put(bytes);
+        return pixmap;
+    }
+}
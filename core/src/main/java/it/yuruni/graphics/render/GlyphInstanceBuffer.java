@@ -0,0 +1,148 @@
+package it.yuruni.graphics.render;
+
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Packs per-glyph attributes for {@link InstancedGlyphRenderer}: the unscaled rectangle, scale, rotation, alpha
+ * and texture region of each glyph, in {@link #INSTANCE_FLOATS} floats. The vertex shader turns them into a quad,
+ * so adding a glyph is a plain copy with no trigonometry.
+ * <p>
+ * With instancing the attributes are stored once per glyph. Without it they are expanded: written for each of the
+ * quad's four corners, after the corner's position in the unit square. Touches no GL state.
+ */
+public final class GlyphInstanceBuffer {
+    /** Floats per glyph: x, y, width, height, scaleX, scaleY, rotation in radians, alpha, u, v, u2, v2. */
+    public static final int INSTANCE_FLOATS = 12;
+    /** Floats per expanded vertex: the corner's x and y, 0 or 1, then the glyph's attributes. */
+    public static final int VERTEX_FLOATS = 2 + INSTANCE_FLOATS;
+
+    // Offsets inside a glyph's attributes
+    public static final int X = 0, Y = 1, WIDTH = 2, HEIGHT = 3, SCALE_X = 4, SCALE_Y = 5, ROTATION = 6, ALPHA = 7;
+    public static final int U = 8, V = 9, U2 = 10, V2 = 11;
+
+    // Corners in the order the quad indices expect: bottom-left, bottom-right, top-right, top-left
+    private static final float[] CORNERS = {0, 0, 1, 0, 1, 1, 0, 1};
+
+    private final boolean expanded;
+    private final int capacity;
+    private final float[] data;
+    private int count;
+
+    /**
+     * @param capacity the most glyphs the buffer holds
+     * @param expanded true to write four vertices per glyph, for GPUs without instancing
+     */
+    public GlyphInstanceBuffer(int capacity, boolean expanded) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+        this.capacity = capacity;
+        this.expanded = expanded;
+        this.data = new float[capacity * (expanded ? VERTEX_FLOATS * 4 : INSTANCE_FLOATS)];
+    }
+
+    /**
+     * Adds a glyph. Scale and rotation happen around the rectangle's centre, like {@link com.badlogic.gdx.graphics.g2d.SpriteBatch}
+     * does for a glyph.
+     * @param x the x-coordinate of the unscaled rectangle's bottom-left corner
+     * @param y the y-coordinate of the unscaled rectangle's bottom-left corner
+     * @param rotation the rotation in degrees
+     * @param v the v of the region's top edge
+     * @param v2 the v of the region's bottom edge
+     * @throws IllegalStateException if the buffer is full
+     */
+    public void add(float x, float y, float width, float height, float scaleX, float scaleY, float rotation, float alpha,
+                    float u, float v, float u2, float v2) {
+        if (count == capacity) throw new IllegalStateException("Glyph instance buffer is full.");
+
+        float[] data = this.data;
+        if (!expanded) {
+            write(data, count * INSTANCE_FLOATS, x, y, width, height, scaleX, scaleY, rotation * MathUtils.degreesToRadians, alpha, u, v, u2, v2);
+        } else {
+            float radians = rotation * MathUtils.degreesToRadians;
+            int offset = count * VERTEX_FLOATS * 4;
+            for (int corner = 0; corner < 4; corner++, offset += VERTEX_FLOATS) {
+                data[offset] = CORNERS[corner * 2];
+                data[offset + 1] = CORNERS[corner * 2 + 1];
+                write(data, offset + 2, x, y, width, height, scaleX, scaleY, radians, alpha, u, v, u2, v2);
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Adds a glyph drawn through an affine transform of its unscaled rectangle, like a child glyph's world transform.
+     * The transform is split into a scale, a rotation and where it puts the rectangle's centre, which describes it
+     * exactly unless it shears.
+     * @param transform maps the rectangle, bottom-left corner at the origin, to world coordinates
+     * @param v the v of the region's top edge
+     * @param v2 the v of the region's bottom edge
+     * @return false if the transform shears, e.g. a rotated child of a non-uniformly scaled parent, and nothing was
+     * added; true otherwise, also when the transform collapses the glyph and there was nothing to add
+     * @throws IllegalStateException if the buffer is full
+     */
+    public boolean add(Affine2 transform, float width, float height, float alpha, float u, float v, float u2, float v2) {
+        // Columns are the transformed axes
+        float scaleX = (float) Math.sqrt(transform.m00 * transform.m00 + transform.m10 * transform.m10);
+        if (scaleX == 0f) return true; // Collapsed to a line, nothing to see
+        float shear = (transform.m00 * transform.m01 + transform.m10 * transform.m11) / scaleX;
+        float scaleY = transform.det() / scaleX;
+        if (Math.abs(shear) > Math.abs(scaleY) * 0.001f) return false;
+
+        // The shader rotates around the centre, find where the transform puts it
+        float centerX = transform.m00 * width / 2f + transform.m01 * height / 2f + transform.m02;
+        float centerY = transform.m10 * width / 2f + transform.m11 * height / 2f + transform.m12;
+        float rotation = MathUtils.atan2(transform.m10, transform.m00) * MathUtils.radiansToDegrees;
+        add(centerX - width / 2f, centerY - height / 2f, width, height, scaleX, scaleY, rotation, alpha, u, v, u2, v2);
+        return true;
+    }
+
+    private static void write(float[] data, int offset, float x, float y, float width, float height, float scaleX,
+                              float scaleY, float radians, float alpha, float u, float v, float u2, float v2) {
+        data[offset + X] = x;
+        data[offset + Y] = y;
+        data[offset + WIDTH] = width;
+        data[offset + HEIGHT] = height;
+        data[offset + SCALE_X] = scaleX;
+        data[offset + SCALE_Y] = scaleY;
+        data[offset + ROTATION] = radians;
+        data[offset + ALPHA] = alpha;
+        data[offset + U] = u;
+        data[offset + V] = v;
+        data[offset + U2] = u2;
+        data[offset + V2] = v2;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @return the number of glyphs added since the last {@link #clear()}
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isFull() {
+        return count == capacity;
+    }
+
+    public boolean isExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return the packed floats, valid up to {@link #getFloatCount()}
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    public int getFloatCount() {
+        return count * (expanded ? VERTEX_FLOATS * 4 : INSTANCE_FLOATS);
+    }
+}
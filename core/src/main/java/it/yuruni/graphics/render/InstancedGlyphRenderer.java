@@ -0,0 +1,196 @@
+package it.yuruni.graphics.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Draws glyphs with their transform done in the vertex shader. Each glyph is streamed as the attributes packed by
+ * {@link GlyphInstanceBuffer}, so the CPU never computes sines or rotated corners; a rotating glyph costs the same
+ * as a still one.
+ * <p>
+ * On GL3 every glyph is one instance of a shared quad. Without GL3 the attributes are expanded onto the four
+ * vertices of each quad instead, drawn with a shared index buffer, which streams four times the data but runs the
+ * same shader. Glyphs are batched until the texture changes or {@link #MAX_GLYPHS_PER_DRAW} are queued.
+ * <p>
+ * The desktop launcher runs on ANGLE's GLES 2 emulation, which has no GL3, so the game ships drawing expanded
+ * quads and the instanced path only runs on native GL3 contexts. Both feed the shader the same attributes, which
+ * GlyphInstanceBufferTest checks against the batch's CPU transforms.
+ * <p>
+ * Like a {@link com.badlogic.gdx.graphics.g2d.SpriteBatch}, draws go between {@link #begin(Matrix4)} and
+ * {@link #end()}, with normal alpha blending, and the two can't be active at once.
+ */
+public class InstancedGlyphRenderer implements Disposable {
+    /** The most glyphs per draw call; keeps the expanded quads' indices within 16 bits. */
+    public static final int MAX_GLYPHS_PER_DRAW = 8191;
+
+    private static final String VERTEX_SHADER = "shaders/glyph.vert";
+    private static final String FRAGMENT_SHADER = "shaders/glyph.frag";
+
+    private final boolean instanced;
+    private final Mesh mesh;
+    private final GlyphInstanceBuffer buffer;
+    private final ShaderProgram shader;
+    private final Matrix4 projection = new Matrix4();
+    private Texture lastTexture;
+    private boolean drawing;
+
+    /** Draw calls since the last {@link #begin(Matrix4)}. */
+    public int renderCalls = 0;
+
+    /**
+     * Uses instancing when the context supports GL3.
+     */
+    public InstancedGlyphRenderer() {
+        this(Gdx.gl30 != null);
+    }
+
+    /**
+     * @param instanced true to draw instances of a shared quad, which needs a GL3 context; false for expanded quads
+     */
+    public InstancedGlyphRenderer(boolean instanced) {
+        if (instanced && Gdx.gl30 == null) throw new IllegalArgumentException("Instanced glyphs need a GL3 context.");
+        this.instanced = instanced;
+
+        VertexAttribute corner = new VertexAttribute(VertexAttributes.Usage.Generic, 2, "a_corner");
+        VertexAttribute rect = new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_rect");
+        VertexAttribute transform = new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_transform");
+        VertexAttribute region = new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_region");
+        buffer = new GlyphInstanceBuffer(MAX_GLYPHS_PER_DRAW, !instanced);
+
+        if (instanced) {
+            mesh = new Mesh(true, 4, 6, corner);
+            mesh.setVertices(new float[] {0, 0, 1, 0, 1, 1, 0, 1});
+            mesh.setIndices(new short[] {0, 1, 2, 2, 3, 0});
+            mesh.enableInstancedRendering(false, MAX_GLYPHS_PER_DRAW, rect, transform, region);
+        } else {
+            mesh = new Mesh(false, MAX_GLYPHS_PER_DRAW * 4, MAX_GLYPHS_PER_DRAW * 6, corner, rect, transform, region);
+            short[] indices = new short[MAX_GLYPHS_PER_DRAW * 6];
+            for (int i = 0, vertex = 0; i < indices.length; i += 6, vertex += 4) {
+                indices[i] = (short) vertex;
+                indices[i + 1] = (short) (vertex + 1);
+                indices[i + 2] = (short) (vertex + 2);
+                indices[i + 3] = (short) (vertex + 2);
+                indices[i + 4] = (short) (vertex + 3);
+                indices[i + 5] = (short) vertex;
+            }
+            mesh.setIndices(indices);
+        }
+
+        shader = new ShaderProgram(Gdx.files.internal(VERTEX_SHADER), Gdx.files.internal(FRAGMENT_SHADER));
+        if (!shader.isCompiled()) {
+            mesh.dispose();
+            throw new GdxRuntimeException("Glyph shader compilation failed:\n" + shader.getLog());
+        }
+    }
+
+    /**
+     * Starts a run of draws.
+     * @param projection the camera's combined matrix, copied
+     */
+    public void begin(Matrix4 projection) {
+        if (drawing) throw new IllegalStateException("InstancedGlyphRenderer.end must be called before begin.");
+        this.projection.set(projection);
+        renderCalls = 0;
+        drawing = true;
+    }
+
+    /**
+     * Queues a glyph, see {@link GlyphInstanceBuffer#add} for the parameters. Flushes first when the texture changes.
+     * @param texture the texture the region is in
+     */
+    public void draw(Texture texture, float x, float y, float width, float height, float scaleX, float scaleY,
+                     float rotation, float alpha, float u, float v, float u2, float v2) {
+        prepare(texture);
+        buffer.add(x, y, width, height, scaleX, scaleY, rotation, alpha, u, v, u2, v2);
+    }
+
+    /**
+     * Queues a glyph drawn through an affine transform, see {@link GlyphInstanceBuffer#add(Affine2, float, float, float, float, float, float, float)}
+     * for the parameters. Flushes first when the texture changes.
+     * @param texture the texture the region is in
+     * @return false if the transform shears and the glyph must be drawn another way
+     */
+    public boolean draw(Texture texture, Affine2 transform, float width, float height, float alpha,
+                        float u, float v, float u2, float v2) {
+        prepare(texture);
+        return buffer.add(transform, width, height, alpha, u, v, u2, v2);
+    }
+
+    // Makes room for a glyph with the texture
+    private void prepare(Texture texture) {
+        if (!drawing) throw new IllegalStateException("InstancedGlyphRenderer.begin must be called before draw.");
+        if (texture != lastTexture) {
+            flush();
+            lastTexture = texture;
+        } else if (buffer.isFull()) {
+            flush();
+        }
+    }
+
+    /**
+     * Draws the queued glyphs. Sets up its own shader, texture and blending, so other renderers can draw in
+     * between flushes.
+     */
+    public void flush() {
+        int count = buffer.getCount();
+        if (count == 0) return;
+
+        if (instanced) {
+            mesh.setInstanceData(buffer.getData(), 0, buffer.getFloatCount());
+        } else {
+            mesh.setVertices(buffer.getData(), 0, buffer.getFloatCount());
+        }
+
+        Gdx.gl.glDepthMask(false);
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        lastTexture.bind(0);
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", projection);
+        shader.setUniformi("u_texture", 0);
+        if (instanced) {
+            mesh.render(shader, GL20.GL_TRIANGLES);
+        } else {
+            mesh.render(shader, GL20.GL_TRIANGLES, 0, count * 6);
+        }
+
+        buffer.clear();
+        renderCalls++;
+    }
+
+    /**
+     * Draws what is left and ends the run of draws.
+     */
+    public void end() {
+        if (!drawing) throw new IllegalStateException("InstancedGlyphRenderer.begin must be called before end.");
+        flush();
+        lastTexture = null;
+        drawing = false;
+    }
+
+    /**
+     * @return whether glyphs are drawn as instances rather than expanded quads
+     */
+    public boolean isInstanced() {
+        return instanced;
+    }
+
+    public boolean isDrawing() {
+        return drawing;
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+        shader.dispose();
+    }
+}
@@ -0,0 +1,335 @@
+package it.yuruni.jobs;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.Pool;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs data-independent simulation work on every core, on top of a {@link ForkJoinPool}.
+ * <p>
+ * Each step builds a small dependency graph: {@link #add(String, Runnable, Job...)} registers a job that starts
+ * once the jobs it depends on are done, and {@link #run()} executes the graph and returns only when every job has
+ * finished. That return is a hard barrier: nothing scheduled is still writing when the caller goes on, for example
+ * to draw. Inside a job, or anywhere else, {@link #parallelFor(int, int, RangeTask)} splits a loop over disjoint
+ * index ranges.
+ * <p>
+ * In serial mode, kept for debugging, jobs run one after another on the calling thread in the order they were
+ * added and loops run in one piece, so the results are the same as with a single core.
+ */
+public class JobSystem implements Disposable {
+    /** Runs everything on the calling thread; for code that is used without a game, like benchmarks. */
+    public static final JobSystem SERIAL = new JobSystem(0);
+
+    /**
+     * A loop body over a range of indices.
+     */
+    public interface RangeTask {
+        /**
+         * @param from the first index, inclusive
+         * @param to the last index, exclusive
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Told how long every job of a graph took, see {@link #setTimingListener(TimingListener)}.
+     */
+    public interface TimingListener {
+        /**
+         * @param name the job's name
+         * @param nanos how long its work ran, on whichever thread ran it
+         */
+        void jobTimed(String name, long nanos);
+    }
+
+    private static final int CHUNKS_PER_WORKER = 4; // Lets fast workers steal from slow ones
+
+    private final ForkJoinPool pool; // null without workers
+    private boolean serial;
+    private final Array<Job> jobs = new Array<>(true, 16, Job[]::new);
+    private final Pool<Job> jobPool = new Pool<Job>() {
+        @Override
+        protected Job newObject() {
+            return new Job();
+        }
+    };
+    // Shared by every parallelFor, which may run in several jobs at once, so it is only used while holding it
+    private final Pool<RangeAction> rangePool = new Pool<RangeAction>() {
+        @Override
+        protected RangeAction newObject() {
+            return new RangeAction();
+        }
+    };
+    private final WaveTask waveTask = new WaveTask();
+    private int waves;
+    private boolean running;
+    private TimingListener timingListener;
+
+    /**
+     * @param workers the number of threads running jobs; 0 or 1 creates no pool and runs everything serially
+     */
+    public JobSystem(int workers) {
+        if (workers < 0) throw new IllegalArgumentException("Worker count cannot be negative.");
+        pool = workers > 1 ? new ForkJoinPool(workers) : null;
+    }
+
+    /**
+     * @return one worker per core
+     */
+    public static int defaultWorkers() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Schedules a job for the next {@link #run()}.
+     * @param name what the job does, for debugging
+     * @param work the work; it must not touch what jobs it doesn't depend on touch
+     * @param after jobs of the same graph that must finish first
+     * @return the job, valid until {@link #run()} returns
+     */
+    public Job add(String name, Runnable work, Job... after) {
+        if (running) throw new IllegalStateException("Jobs cannot be added while the graph runs.");
+        int wave = 0;
+        for (Job dependency : after) {
+            if (!jobs.contains(dependency, true)) throw new IllegalArgumentException("Dependency is not in this graph: " + dependency);
+            wave = Math.max(wave, dependency.wave + 1);
+        }
+
+        Job job = jobPool.obtain();
+        job.name = name;
+        job.work = work;
+        job.wave = wave;
+        jobs.add(job);
+        waves = Math.max(waves, wave + 1);
+        return job;
+    }
+
+    /**
+     * Runs the scheduled jobs and clears the graph. Jobs run in waves: a wave holds the jobs whose dependencies all
+     * ran in earlier waves, its jobs run in parallel and the next wave starts when they are done. Returns once
+     * every job has finished, after telling the timing listener how long each took.
+     * @throws RuntimeException the first exception a job threw; the rest of the graph is dropped
+     */
+    public void run() {
+        if (running) throw new IllegalStateException("The graph is already running.");
+        running = true;
+        try {
+            if (isSerial()) {
+                // Insertion order respects dependencies, they must be added first
+                for (int i = 0; i < jobs.size; i++) {
+                    jobs.items[i].execute();
+                }
+            } else {
+                for (int wave = 0; wave < waves; wave++) {
+                    waveTask.reinitialize();
+                    waveTask.wave = wave;
+                    pool.invoke(waveTask);
+                }
+            }
+            if (timingListener != null) {
+                for (int i = 0; i < jobs.size; i++) {
+                    Job job = jobs.items[i];
+                    timingListener.jobTimed(job.name, job.nanos);
+                }
+            }
+        } finally {
+            jobPool.freeAll(jobs);
+            jobs.clear();
+            waves = 0;
+            running = false;
+        }
+    }
+
+    /**
+     * Runs a loop split into disjoint ranges, in parallel, and returns when every range is done. Runs in one
+     * piece on the calling thread in serial mode or when there are no more than grain indices.
+     * @param count the number of indices, from 0
+     * @param grain the fewest indices worth a range of their own
+     * @param task the loop body; ranges run concurrently, so it may only write state owned by its indices
+     */
+    public void parallelFor(int count, int grain, RangeTask task) {
+        if (grain <= 0) throw new IllegalArgumentException("Grain must be positive.");
+        if (count <= 0) return;
+        if (count <= grain || isSerial()) {
+            task.run(0, count);
+            return;
+        }
+
+        int chunks = Math.min((count + grain - 1) / grain, pool.getParallelism() * CHUNKS_PER_WORKER);
+        int chunkSize = (count + chunks - 1) / chunks;
+        RangeAction range = obtainRange(task, 0, count, chunkSize);
+        if (ForkJoinTask.getPool() == pool) {
+            range.invoke(); // Already on a worker, e.g. inside a job
+        } else {
+            pool.invoke(range);
+        }
+        // Not freed when a range threw, one of its halves may still be running
+        freeRange(range);
+    }
+
+    private RangeAction obtainRange(RangeTask task, int from, int to, int chunkSize) {
+        RangeAction range;
+        synchronized (rangePool) {
+            range = rangePool.obtain();
+        }
+        range.task = task;
+        range.from = from;
+        range.to = to;
+        range.chunkSize = chunkSize;
+        return range;
+    }
+
+    private void freeRange(RangeAction range) {
+        synchronized (rangePool) {
+            rangePool.free(range);
+        }
+    }
+
+    /**
+     * @return whether everything runs on the calling thread
+     */
+    public boolean isSerial() {
+        return serial || pool == null;
+    }
+
+    /**
+     * @param serial true to run jobs one after another on the calling thread, for debugging; ignored while the
+     *               graph runs, and a system without workers is always serial
+     */
+    public void setSerial(boolean serial) {
+        if (running) return;
+        this.serial = serial;
+    }
+
+    /**
+     * @param listener told how long each job took at the end of every {@link #run()}, on the calling thread; null
+     *                 for none
+     */
+    public void setTimingListener(TimingListener listener) {
+        timingListener = listener;
+    }
+
+    /**
+     * @return how many threads work at once, 1 in serial mode
+     */
+    public int getParallelism() {
+        return isSerial() ? 1 : pool.getParallelism();
+    }
+
+    @Override
+    public void dispose() {
+        if (pool != null) pool.shutdown();
+    }
+
+    /**
+     * A node of the graph built for one {@link #run()}.
+     */
+    public static final class Job implements Pool.Poolable {
+        private final RecursiveAction task = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                execute();
+            }
+        };
+        private String name;
+        private Runnable work;
+        private int wave;
+        private long nanos; // How long the work ran
+
+        private void execute() {
+            long start = System.nanoTime();
+            work.run();
+            nanos = System.nanoTime() - start;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void reset() {
+            task.reinitialize();
+            name = null;
+            work = null;
+            nanos = 0;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // Forks every job of one wave, runs the first itself and joins the rest
+    private final class WaveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        int wave;
+
+        @Override
+        protected void compute() {
+            Job inline = null;
+            for (int i = 0; i < jobs.size; i++) {
+                Job job = jobs.items[i];
+                if (job.wave != wave) continue;
+                if (inline == null) {
+                    inline = job;
+                } else {
+                    job.task.fork();
+                }
+            }
+            if (inline == null) return;
+
+            // Every forked job is waited for even after a failure, none may outlive the graph
+            Throwable failure = null;
+            try {
+                inline.execute();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            for (int i = 0; i < jobs.size; i++) {
+                Job job = jobs.items[i];
+                if (job.wave != wave || job == inline) continue;
+                job.task.quietlyJoin();
+                if (failure == null) failure = job.task.getException();
+            }
+
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw new GdxRuntimeException(failure);
+        }
+    }
+
+    // Halves its range until it is at most one chunk, pooled like jobs
+    private final class RangeAction extends RecursiveAction implements Pool.Poolable {
+        private static final long serialVersionUID = 1L;
+        private RangeTask task;
+        private int from;
+        private int to;
+        private int chunkSize;
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                task.run(from, to);
+                return;
+            }
+            int middle = from + (to - from) / 2;
+            RangeAction low = obtainRange(task, from, middle, chunkSize);
+            RangeAction high = obtainRange(task, middle, to, chunkSize);
+            invokeAll(low, high);
+            freeRange(low);
+            freeRange(high);
+        }
+
+        @Override
+        public void reset() {
+            reinitialize();
+            task = null;
+        }
+    }
+}
@@ -1,21 +1,19 @@
 package it.yuruni.ui;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.math.Vector3;
-import it.yuruni.Main;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import it.yuruni.graphics.animation.Glyph;
 
-
+/**
+ * A clickable glyph. Buttons don't poll the pointer themselves, register them with a {@link PointerDispatcher}.
+ */
 public class Button extends Glyph {
     private final Runnable onClick;
     private Runnable onHover;
     private Runnable onUnHover;
 
-    private boolean justHovered = false;
+    private boolean hovered = false;
 
     /**
      * @param texture The image that will be used as a button
@@ -29,6 +27,18 @@ public class Button extends Glyph {
         this.onClick = onClick;
     }
 
+    /**
+     * @param region The atlas region that will be used as a button
+     * @param x The x-coordinate where the top-left corner of the button will be
+     * @param y The y-coordinate where the top-left corner of the button will be
+     * @param onClick when user click btn
+     */
+    public Button(TextureRegion region, float x, float y, Runnable onClick) {
+        super(region, x, y, false);
+
+        this.onClick = onClick;
+    }
+
     public void addOnHoverListener(Runnable onHover) {
         this.onHover = onHover;
     }
@@ -45,28 +55,21 @@ public class Button extends Glyph {
     }
 
     /**
-     * @param delta The value that keeps the FPS locked
+     * @return whether the pointer is over the button, as dispatched by a {@link PointerDispatcher}
      */
-    @Override
-    public void update(float delta) {
-        super.update(delta);
+    public boolean isHovered() {
+        return hovered;
+    }
+
+    void setHovered(boolean hovered) {
+        if (this.hovered == hovered) return;
+        this.hovered = hovered;
 
-        Vector2 touchPos = new Vector2(Gdx.input.getX(), Gdx.input.getY());
-        Main.viewport.unproject(touchPos);
+        Runnable listener = hovered ? onHover : onUnHover;
+        if (listener != null) listener.run();
+    }
 
-        if (getHitbox().contains(touchPos.x, touchPos.y)) {
-            if (onHover != null && !justHovered) {
-                justHovered = true;
-                onHover.run();
-            }
-            if (Gdx.input.isButtonJustPressed(Input.Buttons.LEFT)) {
-                onClick.run();
-            }
-        } else {
-            if (justHovered) {
-                justHovered = false;
-                if (onUnHover != null) onUnHover.run();
-            }
-        }
+    void click() {
+        onClick.run();
     }
 }
@@ -0,0 +1,109 @@
+package it.yuruni.ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import it.yuruni.Main;
+import it.yuruni.graphics.animation.Glyph;
+import it.yuruni.graphics.animation.SpatialGrid;
+
+/**
+ * Routes pointer input to {@link Button}s. The buttons are indexed in a {@link SpatialGrid}, so finding the one
+ * under the pointer only looks at the buttons near it. When several overlap, the one drawn last wins.
+ * Add it to {@link Main#input} and call {@link #update()} once per frame after the buttons moved.
+ */
+public class PointerDispatcher extends InputAdapter {
+    private static final float CELL_SIZE = 256f;
+
+    private final SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+    private final Array<Glyph> hits = new Array<>();
+    private final Vector2 pointer = new Vector2();
+    private int screenX = -1;
+    private int screenY = -1;
+    private Button hovered;
+
+    /**
+     * @param button the button to dispatch to
+     */
+    public void add(Button button) {
+        grid.add(button);
+    }
+
+    /**
+     * @param button the button to stop dispatching to; it is un-hovered first if the pointer is over it
+     */
+    public void remove(Button button) {
+        if (!grid.remove(button)) return;
+        if (hovered == button) {
+            hovered = null;
+            button.setHovered(false);
+        }
+    }
+
+    /**
+     * Re-indexes moved buttons and updates the hover state, since buttons can move under a still pointer.
+     */
+    public void update() {
+        grid.update();
+        if (screenX < 0) {
+            // No pointer event yet, start from wherever the cursor is
+            screenX = Gdx.input.getX();
+            screenY = Gdx.input.getY();
+        }
+        refreshHover();
+    }
+
+    @Override
+    public boolean mouseMoved(int screenX, int screenY) {
+        setPointer(screenX, screenY);
+        return false;
+    }
+
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        setPointer(screenX, screenY);
+        return false;
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        setPointer(screenX, screenY);
+        if (button != Input.Buttons.LEFT || hovered == null) return false;
+
+        hovered.click();
+        return true;
+    }
+
+    private void setPointer(int screenX, int screenY) {
+        this.screenX = screenX;
+        this.screenY = screenY;
+        refreshHover();
+    }
+
+    private void refreshHover() {
+        Button top = pick();
+        if (top == hovered) return;
+
+        Button previous = hovered;
+        hovered = top;
+        if (previous != null) previous.setHovered(false);
+        if (top != null) top.setHovered(true);
+    }
+
+    private Button pick() {
+        pointer.set(screenX, screenY);
+        Main.viewport.unproject(pointer);
+
+        hits.clear();
+        grid.queryPoint(pointer.x, pointer.y, hits);
+        Button top = null;
+        for (int i = 0; i < hits.size; i++) {
+            Button candidate = (Button) hits.get(i);
+            if (!candidate.isVisibleInHierarchy()) continue;
+            if (top == null || Main.renderQueue.compareDrawOrder(candidate, top) > 0) top = candidate;
+        }
+        return top;
+    }
+}
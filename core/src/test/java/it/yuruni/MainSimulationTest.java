@@ -0,0 +1,118 @@
+package it.yuruni;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import it.yuruni.game.judgement.JudgementEngine;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the game in {@link Main#simulateOnly} mode under the headless backend, through loading, the intro with a
+ * stall in it and into a level, at a fixed frame delta. Needs the assets folder as working directory.
+ */
+public class MainSimulationTest {
+    private static final float FRAME = 1f / 60f;
+    private static final float STALL = 0.5f;
+    private static final float DROP = 13f; // Timeline time the intro spawns its particles at
+    private static final long LOAD_TIMEOUT_MILLIS = 30000;
+
+    @Test
+    public void simulatesTheIntroOnTheSongClock() throws Throwable {
+        Driver driver = new Driver();
+        new HeadlessApplication(driver);
+        assertTrue("Simulation timed out", driver.done.await(2, TimeUnit.MINUTES));
+        if (driver.failure != null) throw driver.failure;
+    }
+
+    private static final class Driver extends ApplicationAdapter {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable failure;
+        private final FixedDeltaGraphics graphics = new FixedDeltaGraphics();
+        private Main game;
+
+        @Override
+        public void create() {
+            try {
+                Gdx.graphics = graphics;
+                game = new Main(true);
+                game.create();
+                run();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                try {
+                    if (game != null) game.dispose();
+                } catch (Throwable t) {
+                    if (failure == null) failure = t;
+                }
+                Gdx.app.exit();
+                done.countDown();
+            }
+        }
+
+        private void run() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+            while (!(game.getScreen() instanceof FirstScreen)) {
+                assertTrue("Loading timed out", System.currentTimeMillis() < deadline);
+                frame(FRAME);
+                Thread.sleep(1); // The loader thread decodes meanwhile
+            }
+            long firstStep = Main.loop.getStepCount();
+
+            // Steps are paid out for the song clock's time, whole frames of it
+            while (Main.songClock.getTime() < 5f) frame(FRAME);
+            assertEquals(Main.songClock.getTime(), (Main.loop.getStepCount() - firstStep) * GameLoop.STEP, GameLoop.STEP * 2f);
+
+            // The steps that don't fit in the stalled frame are dropped, the intro still keeps to the clock
+            frame(STALL);
+            assertTrue(Main.loop.getLastDroppedTime() > 0f);
+            while (Main.songClock.getTime() < DROP) frame(FRAME);
+            assertEquals(0, Main.particles.getEffectCount());
+            frame(FRAME);
+            frame(FRAME);
+            assertTrue("The drop spawned no particles", Main.particles.getEffectCount() > 0);
+            assertTrue(Main.particles.getParticleCount() > 0);
+
+            // Into the menu, then play the selected level
+            while (Main.songClock.getTime() < 15f) frame(FRAME);
+            assertNotNull(Main.levels.getSelected());
+            Main.input.keyDown(Input.Keys.UP);
+            Main.input.keyDown(Input.Keys.SPACE);
+            frame(FRAME);
+            Main.input.keyUp(Input.Keys.SPACE);
+            Main.input.keyUp(Input.Keys.UP);
+            for (int i = 0; i < 60; i++) frame(FRAME);
+            assertTrue("No chart is judged", isJudging());
+        }
+
+        private void frame(float delta) {
+            graphics.delta = delta;
+            game.render();
+            ((HeadlessApplication) Gdx.app).executeRunnables();
+        }
+
+        private boolean isJudging() {
+            for (InputProcessor processor : Main.input.getProcessors()) {
+                if (processor instanceof JudgementEngine) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class FixedDeltaGraphics extends MockGraphics {
+        float delta = FRAME;
+
+        @Override
+        public float getDeltaTime() {
+            return delta;
+        }
+    }
+}
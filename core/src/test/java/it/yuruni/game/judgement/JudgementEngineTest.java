@@ -0,0 +1,117 @@
+package it.yuruni.game.judgement;
+
+import it.yuruni.game.chart.Chart;
+import it.yuruni.game.chart.ChartCompiler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Feeds synthetic key streams through {@link JudgementEngine#submit(char, float)}, no clock or input backend needed.
+ */
+public class JudgementEngineTest {
+    private static final JudgementWindows WINDOWS = new JudgementWindows(0.03f, 0.08f);
+
+    private static Chart chart(String body) {
+        return ChartCompiler.parse("title: test\n" + body);
+    }
+
+    // Judged notes in the order the listener saw them
+    private static List<Integer> record(JudgementEngine engine) {
+        List<Integer> notes = new ArrayList<>();
+        engine.addListener((note, judgement, offset) -> notes.add(note));
+        return notes;
+    }
+
+    @Test
+    public void onTimeStreamIsAllPerfect() {
+        Chart chart = chart("spacing: 0.2\n1.0 lexiflux\n4.0 typing\n");
+        JudgementEngine engine = new JudgementEngine(chart, WINDOWS, null);
+        for (int note = 0; note < chart.getNoteCount(); note++) {
+            assertEquals(Judgement.PERFECT, engine.submit(chart.getCharacter(note), chart.getTime(note)));
+        }
+        assertTrue(engine.isFinished());
+        assertEquals(chart.getNoteCount(), engine.getMaxCombo());
+        assertEquals(1f, engine.getAccuracy(), 0f);
+        assertEquals(0, engine.getStrayInputs());
+    }
+
+    @Test
+    public void jitteredStreamIsGradedByOffset() {
+        Chart chart = chart("spacing: 0.25\n2.0 thequickbrownfoxjumpsoverthelazydog\n");
+        JudgementEngine engine = new JudgementEngine(chart, WINDOWS, null);
+        Random random = new Random(14);
+        int perfect = 0, great = 0;
+        for (int note = 0; note < chart.getNoteCount(); note++) {
+            float offset = (random.nextFloat() * 2f - 1f) * 0.07f;
+            Judgement expected = WINDOWS.judge(offset);
+            if (expected == Judgement.PERFECT) perfect++;
+            else great++;
+            // Upper case too, characters are compared case insensitively
+            char typed = note % 2 == 0 ? chart.getCharacter(note) : Character.toUpperCase(chart.getCharacter(note));
+            assertEquals("note " + note, expected, engine.submit(typed, chart.getTime(note) + offset));
+        }
+        assertEquals(perfect, engine.getCount(Judgement.PERFECT));
+        assertEquals(great, engine.getCount(Judgement.GREAT));
+        assertEquals(0, engine.getCount(Judgement.MISS));
+        assertTrue(engine.isFinished());
+    }
+
+    @Test
+    public void inputHitsTheClosestNoteNotTheEarliest() {
+        // Two a's 60 ms apart, both inside the great window of an input between them
+        Chart chart = chart("spacing: 0.06\n1.0 aa\n");
+        JudgementEngine engine = new JudgementEngine(chart, WINDOWS, null);
+        List<Integer> judged = record(engine);
+
+        assertEquals(Judgement.PERFECT, engine.submit('a', 1.05f));
+        assertEquals(1, (int) judged.get(0));
+
+        // The first note is still pending and becomes a miss once the song leaves its window
+        engine.update(1.0f + WINDOWS.getGreat() + 0.01f);
+        assertEquals(2, judged.size());
+        assertEquals(0, (int) judged.get(1));
+        assertEquals(1, engine.getCount(Judgement.MISS));
+        assertEquals(0, engine.getCombo());
+    }
+
+    @Test
+    public void inputsMatchingNoNoteAreStray() {
+        Chart chart = chart("1.0 x\n");
+        JudgementEngine engine = new JudgementEngine(chart, WINDOWS, null);
+        assertNull(engine.submit('y', 1.0f)); // Wrong character
+        assertNull(engine.submit('x', 1.0f + WINDOWS.getGreat() * 2f)); // Too late
+        assertEquals(Judgement.GREAT, engine.submit('x', 1.0f - WINDOWS.getGreat() * 0.9f));
+        assertNull(engine.submit('x', 1.0f)); // Already hit
+        assertEquals(3, engine.getStrayInputs());
+    }
+
+    @Test
+    public void missedStreamCountsEveryNote() {
+        Chart chart = chart("spacing: 0.1\n1.0 silence\n");
+        JudgementEngine engine = new JudgementEngine(chart, WINDOWS, null);
+        for (float time = 0f; time < 3f; time += 1f / 60f) {
+            engine.update(time);
+        }
+        assertEquals(chart.getNoteCount(), engine.getCount(Judgement.MISS));
+        assertEquals(0f, engine.getAccuracy(), 0f);
+        assertTrue(engine.isFinished());
+    }
+
+    @Test
+    public void startingMidSongSkipsPastNotes() {
+        Chart chart = chart("1.0 a\n2.0 b\n3.0 c\n");
+        JudgementEngine engine = new JudgementEngine(chart, WINDOWS, null);
+        engine.startAt(2.5f);
+        engine.update(2.5f);
+        assertEquals(0, engine.getJudgedCount());
+        assertNull(engine.submit('b', 2.5f));
+        assertEquals(Judgement.PERFECT, engine.submit('c', 3.0f));
+        assertTrue(engine.isFinished());
+        assertEquals(1f, engine.getAccuracy(), 0f);
+    }
+}
@@ -0,0 +1,116 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.math.Interpolation;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EasingTableTest {
+    private static final float EXACT_TOLERANCE = 1e-5f;
+    // Interpolation's sine curves read MathUtils' sine table, which is itself only this close
+    private static final float SINE_TABLE_TOLERANCE = 2e-4f;
+
+    @After
+    public void restoreDefaults() {
+        EasingTable.setExact(false);
+        EasingTable.setResolution(EasingTable.DEFAULT_RESOLUTION);
+    }
+
+    // The curves libGDX has a match for; its expo, elastic and bounce curves are shaped differently
+    private static Map<Easing, Interpolation> libGdxCurves() {
+        Map<Easing, Interpolation> curves = new EnumMap<>(Easing.class);
+        curves.put(Easing.LINEAR, Interpolation.linear);
+        curves.put(Easing.EASE_IN_QUAD, Interpolation.pow2In);
+        curves.put(Easing.EASE_OUT_QUAD, Interpolation.pow2Out);
+        curves.put(Easing.EASE_IN_OUT_QUAD, Interpolation.pow2);
+        curves.put(Easing.EASE_IN_CUBIC, Interpolation.pow3In);
+        curves.put(Easing.EASE_OUT_CUBIC, Interpolation.pow3Out);
+        curves.put(Easing.EASE_IN_OUT_CUBIC, Interpolation.pow3);
+        curves.put(Easing.EASE_IN_QUART, Interpolation.pow4In);
+        curves.put(Easing.EASE_OUT_QUART, Interpolation.pow4Out);
+        curves.put(Easing.EASE_IN_OUT_QUART, Interpolation.pow4);
+        curves.put(Easing.EASE_IN_QUINT, Interpolation.pow5In);
+        curves.put(Easing.EASE_OUT_QUINT, Interpolation.pow5Out);
+        curves.put(Easing.EASE_IN_OUT_QUINT, Interpolation.pow5);
+        curves.put(Easing.EASE_IN_SINE, Interpolation.sineIn);
+        curves.put(Easing.EASE_OUT_SINE, Interpolation.sineOut);
+        curves.put(Easing.EASE_IN_OUT_SINE, Interpolation.sine);
+        curves.put(Easing.EASE_IN_CIRC, Interpolation.circleIn);
+        curves.put(Easing.EASE_OUT_CIRC, Interpolation.circleOut);
+        curves.put(Easing.EASE_IN_OUT_CIRC, Interpolation.circle);
+        curves.put(Easing.EASE_IN_BACK, new Interpolation.SwingIn(1.70158f));
+        curves.put(Easing.EASE_OUT_BACK, new Interpolation.SwingOut(1.70158f));
+        // Swing doubles its scale for the in-out curve
+        curves.put(Easing.EASE_IN_OUT_BACK, new Interpolation.Swing(1.70158f * 1.525f / 2f));
+        return curves;
+    }
+
+    @Test
+    public void exactModeMatchesInterpolation() {
+        EasingTable.setExact(true);
+        for (Map.Entry<Easing, Interpolation> curve : libGdxCurves().entrySet()) {
+            float tolerance = curve.getKey().name().endsWith("SINE") ? SINE_TABLE_TOLERANCE : EXACT_TOLERANCE;
+            for (int i = 0; i <= 1000; i++) {
+                float t = i / 1000f;
+                assertEquals(curve.getKey() + " at " + t, curve.getValue().apply(t),
+                        EasingTable.apply(t, curve.getKey()), tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void tableModeStaysWithinStatedError() {
+        for (Easing easing : Easing.values()) {
+            float error = EasingTable.maxError(easing, 100_000);
+            assertTrue(easing + " error " + error, error <= EasingTable.DEFAULT_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void tableModeMatchesInterpolationWithinStatedError() {
+        for (Map.Entry<Easing, Interpolation> curve : libGdxCurves().entrySet()) {
+            for (int i = 0; i <= 10_000; i++) {
+                float t = i / 10_000f;
+                assertEquals(curve.getKey() + " at " + t, curve.getValue().apply(t),
+                        EasingTable.apply(t, curve.getKey()), EasingTable.DEFAULT_MAX_ERROR);
+            }
+        }
+    }
+
+    @Test
+    public void resolutionChangesWhileOtherThreadsEvaluate() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        long end = System.nanoTime() + 300_000_000L;
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    int step = 0;
+                    while (System.nanoTime() < end) {
+                        for (int id = 0; id < Easing.values().length; id++) {
+                            float value = EasingTable.apply((step++ % 1001) / 1000f, id);
+                            if (Float.isNaN(value) || value < -2f || value > 2f) {
+                                throw new AssertionError("Eased value out of range: " + value);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers[r].start();
+        }
+
+        int[] resolutions = {2, 4096, 3, 1024, 17};
+        for (int i = 0; System.nanoTime() < end; i++) {
+            EasingTable.setResolution(resolutions[i % resolutions.length]);
+        }
+        for (Thread reader : readers) reader.join();
+        assertNull(String.valueOf(failure.get()), failure.get());
+    }
+}
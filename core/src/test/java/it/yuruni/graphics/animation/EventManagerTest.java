@@ -0,0 +1,122 @@
+package it.yuruni.graphics.animation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventManagerTest {
+    @Test
+    public void addedEventFiresAgainWhenAddedAgain() {
+        EventManager events = new EventManager();
+        int[] fired = new int[1];
+        Event event = new Event(1f, () -> fired[0]++);
+
+        events.addEvent(event);
+        events.update(1f);
+        assertEquals(1, fired[0]);
+        assertTrue(event.hasBeenTriggered());
+        assertEquals(0, events.size());
+
+        int handle = events.addEvent(event);
+        assertFalse(event.hasBeenTriggered());
+        assertTrue(events.isScheduled(handle));
+        events.update(2f);
+        assertEquals(2, fired[0]);
+        assertEquals(0, events.size());
+    }
+
+    @Test
+    public void actionCanAddItsOwnEventAgain() {
+        EventManager events = new EventManager();
+        List<Float> fired = new ArrayList<>();
+        Event[] self = new Event[1];
+        self[0] = new Event(1f, () -> {
+            fired.add(self[0].getTriggerTime());
+            if (fired.size() < 3) {
+                self[0].triggerTime += 1f;
+                events.addEvent(self[0]);
+            }
+        });
+
+        events.addEvent(self[0]);
+        for (float time = 0f; time <= 5f; time += 0.5f) {
+            events.update(time);
+        }
+        assertEquals(3, fired.size());
+        assertEquals(1f, fired.get(0), 0f);
+        assertEquals(2f, fired.get(1), 0f);
+        assertEquals(3f, fired.get(2), 0f);
+        assertEquals(0, events.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void scheduledEventCannotBeAddedTwice() {
+        EventManager events = new EventManager();
+        Event event = new Event(1f, () -> { });
+        events.addEvent(event);
+        events.addEvent(event);
+    }
+
+    @Test
+    public void cancelledEventsDoNotFire() {
+        EventManager events = new EventManager();
+        int[] fired = new int[2];
+        int pooled = events.schedule(1f, () -> fired[0]++);
+        Event event = new Event(1f, () -> fired[1]++);
+        int added = events.addEvent(event);
+
+        assertTrue(events.cancel(pooled));
+        assertTrue(events.cancel(added));
+        assertFalse(events.cancel(pooled));
+        assertFalse(events.isScheduled(added));
+        assertEquals(0, events.size());
+        events.update(2f);
+        assertArrayEquals(new int[] {0, 0}, fired);
+
+        // A cancelled event that was never fired can be added again
+        events.addEvent(event);
+        events.update(3f);
+        assertEquals(1, fired[1]);
+        assertFalse(events.cancel(EventManager.NO_HANDLE));
+    }
+
+    @Test
+    public void eventsFireInTimeThenSchedulingOrder() {
+        EventManager events = new EventManager();
+        List<String> fired = new ArrayList<>();
+        events.schedule(2f, () -> fired.add("c"));
+        events.schedule(1f, () -> fired.add("a"));
+        events.addEvent(new Event(2f, () -> fired.add("d")));
+        events.schedule(1f, () -> fired.add("b"));
+        events.schedule(2f, () -> fired.add("e"));
+        events.schedule(3f, () -> fired.add("late"));
+
+        events.update(0.5f);
+        assertTrue(fired.isEmpty());
+        assertEquals(1f, events.peekNextTime(), 0f);
+        events.update(2f);
+        assertEquals(List.of("a", "b", "c", "d", "e"), fired);
+        assertEquals(3f, events.peekNextTime(), 0f);
+    }
+
+    @Test
+    public void manySameTimeEventsKeepTheirOrder() {
+        EventManager events = new EventManager();
+        List<Integer> fired = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int index = i;
+            // Three trigger times, interleaved, so the heap has to reorder them
+            events.schedule((i % 3) * 1f, () -> fired.add(index));
+        }
+        events.update(10f);
+        assertEquals(200, fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+            int previous = fired.get(i - 1), current = fired.get(i);
+            assertTrue(previous % 3 < current % 3 || previous % 3 == current % 3 && previous < current);
+        }
+        assertEquals(Float.POSITIVE_INFINITY, events.peekNextTime(), 0f);
+    }
+}
@@ -0,0 +1,115 @@
+package it.yuruni.graphics.animation;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KeyframeTrackTest {
+    private static final float TOLERANCE = 1e-5f;
+
+    // 0 -> 10 over two seconds, a jump to 20 at 2, back to 0 at 4
+    private static KeyframeTrack jumpingTrack() {
+        return new KeyframeTrack().key(0f, 0f).key(2f, 10f).key(2f, 20f).key(4f, 0f);
+    }
+
+    // Keyframe times of keyedTrack, with one repeat
+    private static final float[] KEY_TIMES = {0f, 1f, 2f, 2f, 3f, 5f, 8f, 13f};
+
+    // What segmentAt returns for keyedTrack, found without a hint
+    private static int search(float time) {
+        int segment = -1;
+        for (int i = 0; i < KEY_TIMES.length; i++) {
+            if (KEY_TIMES[i] <= time) segment = i;
+        }
+        return segment;
+    }
+
+    private static KeyframeTrack keyedTrack() {
+        KeyframeTrack track = new KeyframeTrack();
+        for (int i = 0; i < KEY_TIMES.length; i++) {
+            track.key(KEY_TIMES[i], i);
+        }
+        return track;
+    }
+
+    @Test
+    public void valuesHoldOutsideAndInterpolateInside() {
+        KeyframeTrack track = jumpingTrack();
+        assertEquals(0f, track.evaluate(-1f), 0f);
+        assertEquals(5f, track.evaluate(1f), TOLERANCE);
+        assertEquals(20f, track.evaluate(2f), 0f); // The later of two keyframes at the same time wins
+        assertEquals(10f, track.evaluate(3f), TOLERANCE);
+        assertEquals(0f, track.evaluate(4f), 0f);
+        assertEquals(0f, track.evaluate(10f), 0f);
+        assertEquals(0f, track.getStartTime(), 0f);
+        assertEquals(4f, track.getEndTime(), 0f);
+    }
+
+    @Test
+    public void keyframesAreSortedWhateverOrderTheyAreAddedIn() {
+        KeyframeTrack track = new KeyframeTrack().key(4f, 40f).key(0f, 0f).key(2f, 20f);
+        assertEquals(10f, track.evaluate(1f), TOLERANCE);
+        assertEquals(30f, track.evaluate(3f), TOLERANCE);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptyTrackCannotBeEvaluated() {
+        new KeyframeTrack().evaluate(0f);
+    }
+
+    @Test
+    public void hintedLookupsMatchTheSearchInBothDirections() {
+        KeyframeTrack track = keyedTrack();
+        // Forward and backward playback, in steps smaller and larger than the segments
+        for (float step : new float[] {0.01f, 0.3f, 1.7f, 6f}) {
+            for (float time = -1f; time <= 15f; time += step) {
+                assertEquals("forward " + time, search(time), track.segmentAt(time));
+            }
+            for (float time = 15f; time >= -1f; time -= step) {
+                assertEquals("backward " + time, search(time), track.segmentAt(time));
+            }
+        }
+        // Random seeks
+        Random random = new Random(25);
+        for (int i = 0; i < 1000; i++) {
+            float time = random.nextFloat() * 16f - 1f;
+            assertEquals("seek " + time, search(time), track.segmentAt(time));
+        }
+        // Exactly on the keyframes, the repeated one lands on the later keyframe
+        for (int i = 0; i < KEY_TIMES.length; i++) {
+            int expected = i + 1 < KEY_TIMES.length && KEY_TIMES[i + 1] == KEY_TIMES[i] ? i + 1 : i;
+            assertEquals("keyframe " + i, expected, track.segmentAt(KEY_TIMES[i]));
+        }
+    }
+
+    @Test
+    public void addingAKeyframeDropsTheHint() {
+        KeyframeTrack track = new KeyframeTrack().key(0f, 0f).key(4f, 40f);
+        assertEquals(0, track.segmentAt(3f));
+        track.key(2f, 20f);
+        assertEquals(1, track.segmentAt(3f));
+        assertEquals(30f, track.evaluate(3f), TOLERANCE);
+    }
+
+    @Test
+    public void jumpsAreFoundBetweenTimesInEitherOrder() {
+        KeyframeTrack track = jumpingTrack();
+        assertTrue(track.jumpsBetween(1f, 3f));
+        assertTrue(track.jumpsBetween(3f, 1f));
+        // The later end is included and the earlier one excluded whatever the direction
+        assertTrue(track.jumpsBetween(1f, 2f));
+        assertTrue(track.jumpsBetween(2f, 1f));
+        assertFalse(track.jumpsBetween(2f, 3f));
+        assertFalse(track.jumpsBetween(3f, 2f));
+        assertFalse(track.jumpsBetween(0f, 1.9f));
+        assertFalse(track.jumpsBetween(2.5f, 10f));
+        assertFalse(track.jumpsBetween(-5f, -1f));
+        assertTrue(track.jumpsBetween(-5f, 10f));
+        assertFalse(track.jumpsBetween(2f, 2f));
+
+        assertFalse(new KeyframeTrack().key(0f, 0f).key(1f, 1f).jumpsBetween(-1f, 2f));
+        assertFalse(new KeyframeTrack().key(1f, 1f).jumpsBetween(0f, 2f));
+    }
+}
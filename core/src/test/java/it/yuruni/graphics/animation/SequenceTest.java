@@ -0,0 +1,179 @@
+package it.yuruni.graphics.animation;
+
+import com.badlogic.gdx.graphics.Texture;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays, seeks and rewinds sequences over glyphs without textures, no GL context needed.
+ */
+public class SequenceTest {
+    private static final float TOLERANCE = 1e-4f;
+
+    private static Glyph glyph() {
+        return new Glyph((Texture) null, 0f, 0f, false);
+    }
+
+    @Test
+    public void trackWritesOnItsSpanAndOnceWhenLeavingIt() {
+        Sequence sequence = new Sequence();
+        Glyph glyph = glyph();
+        sequence.track(glyph, Sequence.Property.X).key(1f, 10f).key(2f, 20f);
+
+        // Before the track, written once with its first value
+        sequence.playTo(0.5f);
+        assertEquals(10f, glyph.getX(), 0f);
+        glyph.setX(99f);
+        sequence.playTo(0.7f);
+        assertEquals(99f, glyph.getX(), 0f);
+
+        sequence.playTo(1.5f);
+        assertEquals(15f, glyph.getX(), TOLERANCE);
+
+        // Leaving the end writes the last value once, then the property is free for others
+        sequence.playTo(3f);
+        assertEquals(20f, glyph.getX(), 0f);
+        glyph.setX(50f);
+        sequence.playTo(4f);
+        assertEquals(50f, glyph.getX(), 0f);
+
+        // A seek writes even when the side stays the same
+        sequence.seek(5f);
+        assertEquals(20f, glyph.getX(), 0f);
+
+        // Playing back into the span writes again, and leaving it at the start writes the first value
+        glyph.setX(50f);
+        sequence.playTo(1.25f);
+        assertEquals(12.5f, glyph.getX(), TOLERANCE);
+        sequence.playTo(0f);
+        assertEquals(10f, glyph.getX(), 0f);
+        glyph.setX(99f);
+        sequence.playTo(-1f);
+        assertEquals(99f, glyph.getX(), 0f);
+    }
+
+    @Test
+    public void jumpingOverAnEndLandsOnIt() {
+        Sequence sequence = new Sequence();
+        Glyph glyph = glyph();
+        sequence.track(glyph, Sequence.Property.ALPHA).key(1f, 0f).key(2f, 1f);
+        sequence.playTo(0.5f);
+        sequence.playTo(10f);
+        assertEquals(1f, glyph.getAlpha(), 0f);
+        sequence.playTo(-10f);
+        assertEquals(0f, glyph.getAlpha(), 0f);
+    }
+
+    @Test
+    public void glyphsJumpInsteadOfSlidingOverKeyframeJumps() {
+        Sequence sequence = new Sequence();
+        Glyph glyph = glyph();
+        sequence.track(glyph, Sequence.Property.Y).key(0f, 0f).key(1f, 0f).key(1f, 100f).key(2f, 100f);
+
+        glyph.savePreviousState();
+        sequence.playTo(0.5f);
+        assertEquals(0f, glyph.previousY, 0f);
+        sequence.playTo(1.5f);
+        assertEquals(100f, glyph.getY(), 0f);
+        assertEquals("The jump is not interpolated", 100f, glyph.previousY, 0f);
+
+        // Backwards over the same jump
+        sequence.playTo(0.5f);
+        assertEquals(0f, glyph.getY(), 0f);
+        assertEquals(0f, glyph.previousY, 0f);
+    }
+
+    @Test
+    public void seekRunsOnlyTheCuesMeantForSeeks() {
+        Sequence sequence = new Sequence();
+        int[] state = new int[1];
+        int[] sound = new int[1];
+        sequence.cue(1f, () -> state[0]++);
+        sequence.cue(2f, () -> sound[0]++, false);
+
+        sequence.seek(3f);
+        assertEquals(1, state[0]);
+        assertEquals(0, sound[0]);
+
+        // Seeking back arms the cues again, playing forward runs both
+        sequence.skip(-2.5f);
+        assertEquals(0.5f, sequence.getTime(), 0f);
+        sequence.playTo(2.5f);
+        assertEquals(2, state[0]);
+        assertEquals(1, sound[0]);
+
+        // A cue at the time seeked back to runs again
+        sequence.seek(1f);
+        sequence.playTo(1.5f);
+        assertEquals(3, state[0]);
+
+        // Rewinding and playing forward in steps runs every cue once more
+        sequence.rewind();
+        for (int i = 0; i < 30; i++) {
+            sequence.update(0.1f);
+        }
+        assertEquals(4, state[0]);
+        assertEquals(2, sound[0]);
+        assertTrue(sequence.isFinished());
+    }
+
+    @Test
+    public void playingBackwardsRunsNoCues() {
+        Sequence sequence = new Sequence();
+        int[] runs = new int[1];
+        sequence.cue(1f, () -> runs[0]++);
+        sequence.playTo(2f);
+        sequence.setSpeed(-1f);
+        for (int i = 0; i < 30; i++) {
+            sequence.update(0.1f);
+        }
+        assertEquals(1, runs[0]);
+        sequence.setSpeed(1f);
+        sequence.playTo(2f);
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    public void cuesRunInTimeThenAddedOrder() {
+        Sequence sequence = new Sequence();
+        List<String> runs = new ArrayList<>();
+        sequence.cue(2f, () -> runs.add("c"));
+        sequence.cue(1f, () -> runs.add("a"));
+        sequence.cue(2f, () -> runs.add("d"), false);
+        sequence.cue(1f, () -> runs.add("b"));
+        sequence.playTo(3f);
+        assertEquals(List.of("a", "b", "c", "d"), runs);
+
+        // A cue added behind the time waits for the time to come back to it
+        sequence.cue(0.5f, () -> runs.add("late"));
+        sequence.playTo(4f);
+        assertEquals(4, runs.size());
+        sequence.seek(0f);
+        sequence.playTo(0.75f);
+        assertEquals("late", runs.get(4));
+    }
+
+    @Test
+    public void cuesSeeTheNewTime() {
+        Sequence sequence = new Sequence();
+        float[] seen = new float[1];
+        sequence.cue(1f, () -> seen[0] = sequence.getTime());
+        sequence.playTo(1.25f);
+        assertEquals(1.25f, seen[0], 0f);
+    }
+
+    @Test
+    public void durationCoversTracksAndCues() {
+        Sequence sequence = new Sequence();
+        assertEquals(0f, sequence.getDuration(), 0f);
+        sequence.cue(3f, () -> { });
+        sequence.track(glyph(), Sequence.Property.ROTATION).key(0f, 0f).key(5f, 90f);
+        assertEquals(5f, sequence.getDuration(), 0f);
+        Glyph glyph = glyph();
+        assertSame(sequence.track(glyph, Sequence.Property.X), sequence.track(glyph, Sequence.Property.X));
+    }
+}
@@ -0,0 +1,143 @@
+package it.yuruni.graphics.render;
+
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static it.yuruni.graphics.render.GlyphInstanceBuffer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs glyph.vert's math on the CPU over the packed attributes and compares the corners with the affine transforms
+ * the batch draws glyphs with, for both the instanced and the expanded layout. No GL context needed.
+ */
+public class GlyphInstanceBufferTest {
+    // Radians, two steps of MathUtils' sine table: the batch's transforms read it, truncating the angle, and the
+    // packed ones go through its atan2 approximation, so corners may be this far apart around the glyph's centre
+    private static final float ANGLE_TOLERANCE = 2f * MathUtils.PI2 / 16384f;
+    private static final float REGION_U = 0.25f, REGION_V = 0.5f, REGION_U2 = 0.75f, REGION_V2 = 1f;
+    // Corner order of the quad: bottom-left, bottom-right, top-right, top-left
+    private static final float[] CORNERS = {0, 0, 1, 0, 1, 1, 0, 1};
+
+    // Where glyph.vert puts a corner of a glyph, and the texture coordinates it gives it
+    private static float[] shade(GlyphInstanceBuffer buffer, int glyph, int corner) {
+        float[] data = buffer.getData();
+        float cornerX = CORNERS[corner * 2], cornerY = CORNERS[corner * 2 + 1];
+        int offset;
+        if (buffer.isExpanded()) {
+            offset = (glyph * 4 + corner) * VERTEX_FLOATS;
+            assertEquals(cornerX, data[offset], 0f);
+            assertEquals(cornerY, data[offset + 1], 0f);
+            offset += 2;
+        } else {
+            offset = glyph * INSTANCE_FLOATS;
+        }
+        float width = data[offset + WIDTH], height = data[offset + HEIGHT];
+        float localX = (cornerX - 0.5f) * width * data[offset + SCALE_X];
+        float localY = (cornerY - 0.5f) * height * data[offset + SCALE_Y];
+        double c = Math.cos(data[offset + ROTATION]), s = Math.sin(data[offset + ROTATION]);
+        return new float[] {
+                (float) (localX * c - localY * s) + data[offset + X] + width * 0.5f,
+                (float) (localX * s + localY * c) + data[offset + Y] + height * 0.5f,
+                cornerX == 0f ? data[offset + U] : data[offset + U2],
+                cornerY == 0f ? data[offset + V2] : data[offset + V],
+                data[offset + ALPHA]
+        };
+    }
+
+    // Compares every corner of a packed glyph with the transform applied to its unscaled rectangle
+    private static void assertMatches(GlyphInstanceBuffer buffer, int glyph, Affine2 transform, float width, float height, float alpha) {
+        float scaledWidth = width * (float) Math.sqrt(transform.m00 * transform.m00 + transform.m10 * transform.m10);
+        float scaledHeight = height * (float) Math.sqrt(transform.m01 * transform.m01 + transform.m11 * transform.m11);
+        float tolerance = 1e-3f + ANGLE_TOLERANCE * (float) Math.hypot(scaledWidth, scaledHeight) / 2f;
+        Vector2 expected = new Vector2();
+        for (int corner = 0; corner < 4; corner++) {
+            float[] shaded = shade(buffer, glyph, corner);
+            transform.applyTo(expected.set(CORNERS[corner * 2] * width, CORNERS[corner * 2 + 1] * height));
+            String message = "glyph " + glyph + " corner " + corner;
+            assertEquals(message, expected.x, shaded[0], tolerance);
+            assertEquals(message, expected.y, shaded[1], tolerance);
+            // The batch maps the bottom-left corner to u, v2 and the top-right one to u2, v
+            assertEquals(message, CORNERS[corner * 2] == 0f ? REGION_U : REGION_U2, shaded[2], 0f);
+            assertEquals(message, CORNERS[corner * 2 + 1] == 0f ? REGION_V2 : REGION_V, shaded[3], 0f);
+            assertEquals(message, alpha, shaded[4], 0f);
+        }
+    }
+
+    // The batch draws a glyph on its own scaled and rotated around its centre
+    private static Affine2 batchTransform(float x, float y, float width, float height, float scaleX, float scaleY, float rotation) {
+        return new Affine2().setToTrnRotScl(x + width / 2f, y + height / 2f, rotation, scaleX, scaleY).translate(-width / 2f, -height / 2f);
+    }
+
+    @Test
+    public void glyphsMatchTheBatch() {
+        for (boolean expanded : new boolean[] {false, true}) {
+            GlyphInstanceBuffer buffer = new GlyphInstanceBuffer(64, expanded);
+            Random random = new Random(23);
+            float[][] glyphs = new float[buffer.getCapacity()][];
+            for (int i = 0; i < glyphs.length; i++) {
+                glyphs[i] = new float[] {
+                        random.nextFloat() * 1920f, random.nextFloat() * 1080f,
+                        1f + random.nextFloat() * 300f, 1f + random.nextFloat() * 300f,
+                        0.1f + random.nextFloat() * 3f, (random.nextBoolean() ? 1f : -1f) * (0.1f + random.nextFloat() * 3f),
+                        random.nextFloat() * 720f - 360f, random.nextFloat()
+                };
+                float[] g = glyphs[i];
+                buffer.add(g[0], g[1], g[2], g[3], g[4], g[5], g[6], g[7], REGION_U, REGION_V, REGION_U2, REGION_V2);
+            }
+            assertTrue(buffer.isFull());
+            for (int i = 0; i < glyphs.length; i++) {
+                float[] g = glyphs[i];
+                assertMatches(buffer, i, batchTransform(g[0], g[1], g[2], g[3], g[4], g[5], g[6]), g[2], g[3], g[7]);
+            }
+        }
+    }
+
+    @Test
+    public void nestedTransformsMatchTheirAffine() {
+        for (boolean expanded : new boolean[] {false, true}) {
+            GlyphInstanceBuffer buffer = new GlyphInstanceBuffer(64, expanded);
+            Random random = new Random(19);
+            Affine2[] transforms = new Affine2[buffer.getCapacity()];
+            for (int i = 0; i < transforms.length; i++) {
+                // A uniformly scaled parent and a child in its frame, composed the way Glyph builds world transforms
+                float parentScale = (random.nextBoolean() ? 1f : -1f) * (0.1f + random.nextFloat() * 3f);
+                Affine2 parent = batchTransform(random.nextFloat() * 1920f, random.nextFloat() * 1080f, 400f, 300f,
+                        parentScale, parentScale, random.nextFloat() * 360f);
+                transforms[i] = batchTransform(random.nextFloat() * 400f, random.nextFloat() * 300f, 120f, 80f,
+                        0.1f + random.nextFloat() * 2f, 0.1f + random.nextFloat() * 2f, random.nextFloat() * 360f).preMul(parent);
+                assertTrue(buffer.add(transforms[i], 120f, 80f, 0.5f, REGION_U, REGION_V, REGION_U2, REGION_V2));
+            }
+            for (int i = 0; i < transforms.length; i++) {
+                assertMatches(buffer, i, transforms[i], 120f, 80f, 0.5f);
+            }
+        }
+    }
+
+    @Test
+    public void axisAlignedChildrenOfStretchedParentsMatch() {
+        GlyphInstanceBuffer buffer = new GlyphInstanceBuffer(2, true);
+        Affine2 parent = batchTransform(100f, 50f, 400f, 300f, 2f, 0.5f, 0f);
+        Affine2 upright = batchTransform(10f, 20f, 120f, 80f, 1f, 1f, 0f).preMul(parent);
+        Affine2 quarterTurn = batchTransform(10f, 20f, 120f, 80f, 1f, 1f, 90f).preMul(parent);
+        assertTrue(buffer.add(upright, 120f, 80f, 1f, REGION_U, REGION_V, REGION_U2, REGION_V2));
+        assertTrue(buffer.add(quarterTurn, 120f, 80f, 1f, REGION_U, REGION_V, REGION_U2, REGION_V2));
+        assertMatches(buffer, 0, upright, 120f, 80f, 1f);
+        assertMatches(buffer, 1, quarterTurn, 120f, 80f, 1f);
+    }
+
+    @Test
+    public void shearedAndCollapsedTransformsAddNothing() {
+        GlyphInstanceBuffer buffer = new GlyphInstanceBuffer(4, false);
+        Affine2 parent = batchTransform(0f, 0f, 400f, 300f, 2f, 1f, 0f);
+        Affine2 sheared = batchTransform(0f, 0f, 120f, 80f, 1f, 1f, 30f).preMul(parent);
+        assertFalse(buffer.add(sheared, 120f, 80f, 1f, REGION_U, REGION_V, REGION_U2, REGION_V2));
+
+        Affine2 collapsed = batchTransform(0f, 0f, 120f, 80f, 0f, 1f, 0f);
+        assertTrue(buffer.add(collapsed, 120f, 80f, 1f, REGION_U, REGION_V, REGION_U2, REGION_V2));
+        assertEquals(0, buffer.getCount());
+    }
+}